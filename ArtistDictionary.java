@@ -0,0 +1,211 @@
+package models;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dictionary encoding for artist names: maps each distinct name to a compact int ID (0, 1, 2, ...).
+ * Names are keyed by their UTF-8 bytes in an open-addressing table, so the CSV loaders can intern an
+ * artist straight from the mapped file and only create a String the first time a name is seen.
+ * The global() dictionary is shared by every Song and SongStore, which makes artist IDs comparable
+ * across the whole application; loaders use private dictionaries per worker and remap to it.
+ * IDs are never released: an artist interned once, e.g. by a standalone Song, stays in the dictionary
+ * for the life of the process, which is what keeps IDs stable.
+ * Interning is synchronized; name(id) is lock-free for every ID that has been published.
+ * Space Complexity: O(A + B) for A distinct artists with B bytes of names.
+ */
+public class ArtistDictionary {
+    private static final ArtistDictionary GLOBAL = new ArtistDictionary();
+
+    private int[] table = new int[64]; // Slot -> artist ID + 1, 0 when empty
+    private int[] hashes = new int[32]; // Artist ID -> hash of its bytes
+    private int[] offsets = new int[33]; // Name of ID i spans [offsets[i], offsets[i + 1]) in the arena
+    private byte[] arena = new byte[512];
+    private volatile String[] names = new String[32]; // Republished after every insert so name(id) can read without locking
+    private int count;
+    private int[] collationRanks = new int[0]; // Cached by collationRanks(), one entry per artist when up to date
+
+    /**
+     * Returns the application-wide dictionary used by Song and SongStore.
+     * @return The shared dictionary.
+     */
+    public static ArtistDictionary global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Interns an artist name.
+     * Time Complexity: O(L) on average for a name of L bytes.
+     * Space Complexity: O(L) if the name is new, O(L) temporary for its UTF-8 bytes otherwise.
+     * @param name The artist name.
+     * @return The artist ID.
+     */
+    public synchronized int intern(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int hash = 1;
+        for (byte b : bytes) {
+            hash = 31 * hash + b;
+        }
+        int id = find(hash, ByteBuffer.wrap(bytes), 0, bytes.length);
+        return (id >= 0) ? id : insert(hash, ByteBuffer.wrap(bytes), 0, bytes.length, name);
+    }
+
+    /**
+     * Interns an artist name given as UTF-8 bytes [start, end) of a buffer, without creating a String
+     * unless the name has not been seen before.
+     * Time Complexity: O(L) on average for a name of L bytes.
+     * Space Complexity: O(1) if the name is known, O(L) otherwise.
+     * @return The artist ID.
+     */
+    public synchronized int intern(ByteBuffer buf, int start, int end) {
+        int hash = 1;
+        for (int p = start; p < end; p++) {
+            hash = 31 * hash + buf.get(p);
+        }
+        int id = find(hash, buf, start, end);
+        return (id >= 0) ? id : insert(hash, buf, start, end, null);
+    }
+
+    /**
+     * Returns the name for an artist ID.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     * @param id The artist ID.
+     * @return The artist name.
+     */
+    public String name(int id) {
+        String[] published = names;
+        if (id >= 0 && id < published.length) {
+            String name = published[id];
+            if (name != null) {
+                return name;
+            }
+        }
+        return lockedName(id); // Out of range, or interned by another thread and not yet published
+    }
+
+    private synchronized String lockedName(int id) {
+        if (id < 0 || id >= count) {
+            throw new IndexOutOfBoundsException("Artist ID: " + id + ", Count: " + count);
+        }
+        return names[id];
+    }
+
+    /**
+     * Returns the number of distinct artists.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Returns the case-insensitive collation rank of every artist ID: ranks[id] orders artists like
+     * String.CASE_INSENSITIVE_ORDER on their names, and names equal ignoring case share a rank.
+     * The ranks are computed once and reused until new artists are interned, so sorting by artist
+     * does not re-rank the dictionary on every sort. The returned array is shared and must not be modified.
+     * Time Complexity: O(1) when cached, O(A log A) to rebuild for A artists.
+     * Space Complexity: O(A) when rebuilt.
+     * @return The ranks, indexed by artist ID, covering every ID handed out so far.
+     */
+    public synchronized int[] collationRanks() {
+        if (collationRanks.length == count) {
+            return collationRanks;
+        }
+        String[] published = names;
+        Integer[] ids = new Integer[count];
+        for (int id = 0; id < count; id++) {
+            ids[id] = id;
+        }
+        Arrays.sort(ids, (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(published[a], published[b]));
+        int[] ranks = new int[count];
+        int rank = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && String.CASE_INSENSITIVE_ORDER.compare(published[ids[i - 1]], published[ids[i]]) != 0) {
+                rank++;
+            }
+            ranks[ids[i]] = rank;
+        }
+        collationRanks = ranks;
+        return ranks;
+    }
+
+    private int find(int hash, ByteBuffer buf, int start, int end) {
+        int mask = table.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && bytesEqual(id, buf, start, end)) {
+                return id;
+            }
+        }
+    }
+
+    private int insert(int hash, ByteBuffer buf, int start, int end, String name) {
+        int length = end - start;
+        String[] grown = names;
+        if (count == grown.length) {
+            int newCapacity = count * 2;
+            grown = Arrays.copyOf(grown, newCapacity);
+            hashes = Arrays.copyOf(hashes, newCapacity);
+            offsets = Arrays.copyOf(offsets, newCapacity + 1);
+        }
+        if (offsets[count] + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, offsets[count] + length));
+        }
+        int base = offsets[count];
+        for (int i = 0; i < length; i++) {
+            arena[base + i] = buf.get(start + i);
+        }
+        offsets[count + 1] = base + length;
+        hashes[count] = hash;
+        grown[count] = (name != null) ? name : new String(arena, base, length, StandardCharsets.UTF_8);
+        names = grown; // Volatile write publishes the new entry to lock-free readers
+        int id = count++;
+
+        if (count * 2 > table.length) {
+            rehash(table.length * 2);
+        } else {
+            place(id);
+        }
+        return id;
+    }
+
+    private void rehash(int newCapacity) {
+        table = new int[newCapacity];
+        for (int id = 0; id < count; id++) {
+            place(id);
+        }
+    }
+
+    private void place(int id) {
+        int mask = table.length - 1;
+        int slot = mix(hashes[id]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id + 1;
+    }
+
+    private boolean bytesEqual(int id, ByteBuffer buf, int start, int end) {
+        int base = offsets[id];
+        if (offsets[id + 1] - base != end - start) {
+            return false;
+        }
+        for (int i = 0; i < end - start; i++) {
+            if (arena[base + i] != buf.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,406 @@
+package utils;
+
+import models.ArtistDictionary;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Byte-level CSV scanner shared by the memory-mapped loaders.
+ * Works directly on a (mapped) ByteBuffer: fields are located by offset, numeric columns are
+ * parsed straight from the bytes, artists are dictionary-encoded from their bytes, and only titles
+ * (plus each distinct artist, once) are turned into Strings.
+ * Handles RFC-4180 quoting: quoted fields may contain commas, newlines and doubled ("") quotes.
+ */
+final class CSVByteScanner {
+    private static final byte COMMA = ',';
+    private static final byte QUOTE = '"';
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    // Column roles, used as indices into the per-row field bounds
+    static final int TITLE = 0;
+    static final int ARTIST = 1;
+    static final int DURATION = 2;
+    static final int POPULARITY = 3;
+
+    private CSVByteScanner() {
+    }
+
+    /**
+     * Column positions of the four fields the Song model needs, resolved from the header row.
+     */
+    static final class Layout {
+        final int[] roleOfColumn; // column index -> role, or -1 if the column is ignored
+        final int maxRequiredIdx;
+        final int dataStart; // byte offset of the first data row
+
+        Layout(int[] roleOfColumn, int maxRequiredIdx, int dataStart) {
+            this.roleOfColumn = roleOfColumn;
+            this.maxRequiredIdx = maxRequiredIdx;
+            this.dataStart = dataStart;
+        }
+    }
+
+    /**
+     * Growable columnar buffer of parsed rows. IDs are assigned later, once row order is final.
+     * Artists are dictionary-encoded into a batch-local ArtistDictionary while scanning, so each
+     * distinct artist becomes a String once per batch; globalArtistId remaps them to the shared dictionary.
+     */
+    static final class RowBatch {
+        final ArtistDictionary artists = new ArtistDictionary();
+        String[] titles = new String[256];
+        int[] artistIds = new int[256]; // IDs in the batch-local dictionary
+        long[] durations = new long[256];
+        int[] popularity = new int[256];
+        int size;
+        private int[] globalIds = new int[0]; // Local artist ID -> global ID + 1, 0 if not yet mapped
+
+        void add(String title, int artistId, long durationMs, int pop) {
+            if (size == titles.length) {
+                int newCapacity = size * 2;
+                titles = Arrays.copyOf(titles, newCapacity);
+                artistIds = Arrays.copyOf(artistIds, newCapacity);
+                durations = Arrays.copyOf(durations, newCapacity);
+                popularity = Arrays.copyOf(popularity, newCapacity);
+            }
+            titles[size] = title;
+            artistIds[size] = artistId;
+            durations[size] = durationMs;
+            popularity[size] = pop;
+            size++;
+        }
+
+        String artistName(int row) {
+            return artists.name(artistIds[row]);
+        }
+
+        int globalArtistId(int row) {
+            int local = artistIds[row];
+            if (local >= globalIds.length) {
+                globalIds = Arrays.copyOf(globalIds, Math.max(local + 1, artists.size()));
+            }
+            if (globalIds[local] == 0) {
+                globalIds[local] = ArtistDictionary.global().intern(artists.name(local)) + 1;
+            }
+            return globalIds[local] - 1;
+        }
+    }
+
+    /**
+     * Parses the header row and resolves the required column indices.
+     * Time Complexity: O(H) where H is the length of the header row.
+     * Space Complexity: O(C) where C is the number of columns.
+     * @param buf The mapped file contents.
+     * @return The column layout, or null if a required column is missing.
+     */
+    static Layout readHeader(ByteBuffer buf) {
+        int limit = buf.limit();
+        Map<String, Integer> headerMap = new HashMap<>();
+        int pos = 0;
+        int column = 0;
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        // Header cells are few and short, so a simple char-by-char decode is fine here
+        while (pos < limit) {
+            byte b = buf.get(pos++);
+            if (inQuotes) {
+                if (b == QUOTE) {
+                    if (pos < limit && buf.get(pos) == QUOTE) {
+                        field.append('"');
+                        pos++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    field.append((char) (b & 0xFF));
+                }
+            } else if (b == QUOTE) {
+                inQuotes = true;
+            } else if (b == COMMA) {
+                headerMap.put(field.toString().trim(), column++);
+                field.setLength(0);
+            } else if (b == LF || b == CR) {
+                if (b == CR && pos < limit && buf.get(pos) == LF) {
+                    pos++;
+                }
+                break;
+            } else {
+                field.append((char) (b & 0xFF));
+            }
+        }
+        headerMap.put(field.toString().trim(), column);
+
+        Integer songNameIdx = headerMap.get("SongName");
+        Integer artistNameIdx = headerMap.get("ArtistName");
+        Integer durationMsIdx = headerMap.get("Duration_ms");
+        Integer popularityIdx = headerMap.get("Popularity");
+        if (songNameIdx == null || artistNameIdx == null || durationMsIdx == null || popularityIdx == null) {
+            return null;
+        }
+
+        int maxRequiredIdx = Math.max(songNameIdx, Math.max(artistNameIdx, Math.max(durationMsIdx, popularityIdx)));
+        int[] roleOfColumn = new int[maxRequiredIdx + 1];
+        Arrays.fill(roleOfColumn, -1);
+        roleOfColumn[songNameIdx] = TITLE;
+        roleOfColumn[artistNameIdx] = ARTIST;
+        roleOfColumn[durationMsIdx] = DURATION;
+        roleOfColumn[popularityIdx] = POPULARITY;
+        return new Layout(roleOfColumn, maxRequiredIdx, pos);
+    }
+
+    /**
+     * Scans all complete rows in [from, to) and appends the parsed ones to the batch.
+     * Rows with missing columns or malformed numbers are reported and skipped, like CSVLoader does.
+     * Time Complexity: O(B) where B is the number of bytes in the range.
+     * Space Complexity: O(R) for the Strings of the R accepted rows.
+     * @param buf The mapped file contents.
+     * @param from Byte offset of the first row (must be at a row boundary).
+     * @param to Byte offset where scanning stops; a row starting before it is read to its end.
+     * @param layout The column layout from the header.
+     * @param out The batch receiving parsed rows.
+     * @return The byte offset just after the last row consumed.
+     */
+    static int scanRows(ByteBuffer buf, int from, int to, Layout layout, RowBatch out) {
+        return scanRows(buf, from, to, layout, out, true);
+    }
+
+    /**
+     * Scans rows as scanRows does, from a buffer that may be a window onto part of the file.
+     * If the buffer does not end at the end of the input, a row that runs into its limit without a line
+     * terminator may continue past it, so that row is left unconsumed and scanning stops at its start.
+     * Time Complexity: O(B) where B is the number of bytes in the range.
+     * Space Complexity: O(R) for the Strings of the R accepted rows.
+     * @param buf The mapped window.
+     * @param from Byte offset of the first row in the window (must be at a row boundary).
+     * @param to Byte offset where scanning stops; a row starting before it is read to its end.
+     * @param layout The column layout from the header.
+     * @param out The batch receiving parsed rows.
+     * @param endOfInput Whether the window's limit is the end of the input.
+     * @return The byte offset just after the last row consumed; less than to if a row was cut off by the limit.
+     */
+    static int scanRows(ByteBuffer buf, int from, int to, Layout layout, RowBatch out, boolean endOfInput) {
+        ByteBuffer view = buf.duplicate(); // independent position for bulk copies
+        int limit = buf.limit();
+        int[] starts = new int[4];
+        int[] ends = new int[4];
+        boolean[] escaped = new boolean[4];
+        byte[] scratch = new byte[256];
+
+        int pos = from;
+        while (pos < to) {
+            int rowStart = pos;
+            int column = 0;
+            boolean rowEnded = false;
+            boolean terminated = false; // Ended by a line terminator rather than the buffer's limit
+
+            while (!rowEnded) {
+                // Locate one field, honouring RFC-4180 quoting
+                int fieldStart = pos;
+                while (fieldStart < limit && isBlank(buf.get(fieldStart))) {
+                    fieldStart++;
+                }
+                int contentStart;
+                int contentEnd;
+                boolean hasEscapes = false;
+                if (fieldStart < limit && buf.get(fieldStart) == QUOTE) {
+                    contentStart = fieldStart + 1;
+                    int p = contentStart;
+                    while (true) {
+                        if (p >= limit) { // unterminated quote: take the rest of the file
+                            contentEnd = limit;
+                            break;
+                        }
+                        if (buf.get(p) == QUOTE) {
+                            if (p + 1 < limit && buf.get(p + 1) == QUOTE) {
+                                hasEscapes = true;
+                                p += 2;
+                                continue;
+                            }
+                            contentEnd = p;
+                            p++;
+                            break;
+                        }
+                        p++;
+                    }
+                    // Skip anything between the closing quote and the delimiter
+                    while (p < limit && buf.get(p) != COMMA && buf.get(p) != LF && buf.get(p) != CR) {
+                        p++;
+                    }
+                    pos = p;
+                } else {
+                    int p = pos;
+                    while (p < limit && buf.get(p) != COMMA && buf.get(p) != LF && buf.get(p) != CR) {
+                        p++;
+                    }
+                    contentStart = pos;
+                    contentEnd = p;
+                    while (contentStart < contentEnd && isBlank(buf.get(contentStart))) {
+                        contentStart++;
+                    }
+                    while (contentEnd > contentStart && isBlank(buf.get(contentEnd - 1))) {
+                        contentEnd--;
+                    }
+                    pos = p;
+                }
+
+                if (column <= layout.maxRequiredIdx) {
+                    int role = layout.roleOfColumn[column];
+                    if (role >= 0) {
+                        starts[role] = contentStart;
+                        ends[role] = contentEnd;
+                        escaped[role] = hasEscapes;
+                    }
+                }
+                column++;
+
+                // Consume the delimiter
+                if (pos >= limit) {
+                    rowEnded = true;
+                } else {
+                    byte b = buf.get(pos++);
+                    if (b == LF) {
+                        rowEnded = true;
+                        terminated = true;
+                    } else if (b == CR) {
+                        if (pos < limit && buf.get(pos) == LF) {
+                            pos++;
+                        }
+                        rowEnded = true;
+                        terminated = true;
+                    }
+                }
+            }
+
+            if (!terminated && !endOfInput) {
+                return rowStart; // The rest of this row lies beyond the window
+            }
+            if (isEmptyRow(buf, rowStart, pos)) {
+                continue; // blank line
+            }
+            if (column <= layout.maxRequiredIdx) {
+                System.err.println("Skipping incomplete row (not enough columns for essential data): " + decodeRow(view, rowStart, pos));
+                continue;
+            }
+
+            long durationMs = parseLong(buf, starts[DURATION], ends[DURATION]);
+            long popularity = parseLong(buf, starts[POPULARITY], ends[POPULARITY]);
+            if (durationMs == Long.MIN_VALUE || popularity == Long.MIN_VALUE
+                    || popularity > Integer.MAX_VALUE || popularity < Integer.MIN_VALUE) {
+                System.err.println("Skipping row due to number format error (check Duration_ms or Popularity column): " + decodeRow(view, rowStart, pos));
+                continue;
+            }
+
+            if (scratch.length < ends[TITLE] - starts[TITLE] || scratch.length < ends[ARTIST] - starts[ARTIST]) {
+                scratch = new byte[Math.max(ends[TITLE] - starts[TITLE], ends[ARTIST] - starts[ARTIST]) * 2];
+            }
+            String title = decode(view, starts[TITLE], ends[TITLE], escaped[TITLE], scratch);
+            int artistId = escaped[ARTIST]
+                    ? out.artists.intern(decode(view, starts[ARTIST], ends[ARTIST], true, scratch))
+                    : out.artists.intern(buf, starts[ARTIST], ends[ARTIST]);
+            out.add(title, artistId, durationMs, (int) popularity);
+        }
+        return pos;
+    }
+
+    /**
+     * Builds the song ID the same way CSVLoader does (title and artist with whitespace removed,
+     * followed by the running counter), without going through the regex engine.
+     * Time Complexity: O(T + A) for the title and artist lengths.
+     * Space Complexity: O(T + A) for the resulting String.
+     */
+    static String buildSongId(String title, String artist, long idCounter) {
+        StringBuilder sb = new StringBuilder(title.length() + artist.length() + 8);
+        appendWithoutWhitespace(sb, title);
+        appendWithoutWhitespace(sb, artist);
+        return sb.append(idCounter).toString();
+    }
+
+    private static void appendWithoutWhitespace(StringBuilder sb, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            // Same character class as the regex \s: [ \t\n\x0B\f\r]
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\u000B' && c != '\f' && c != '\r') {
+                sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Parses a signed decimal integer directly from the buffer.
+     * @return The parsed value, or Long.MIN_VALUE if the range is empty, not a number, or overflows.
+     */
+    private static long parseLong(ByteBuffer buf, int start, int end) {
+        if (start >= end) {
+            return Long.MIN_VALUE;
+        }
+        int p = start;
+        boolean negative = false;
+        byte first = buf.get(p);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            p++;
+            if (p == end) {
+                return Long.MIN_VALUE;
+            }
+        }
+        long value = 0;
+        for (; p < end; p++) {
+            int digit = buf.get(p) - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.MIN_VALUE;
+            }
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private static String decode(ByteBuffer view, int start, int end, boolean hasEscapes, byte[] scratch) {
+        int len = end - start;
+        view.position(start);
+        view.get(scratch, 0, len);
+        if (hasEscapes) {
+            // Collapse doubled quotes ("") into a single quote
+            int w = 0;
+            for (int r = 0; r < len; r++) {
+                scratch[w++] = scratch[r];
+                if (scratch[r] == QUOTE && r + 1 < len && scratch[r + 1] == QUOTE) {
+                    r++;
+                }
+            }
+            len = w;
+        }
+        return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    private static String decodeRow(ByteBuffer view, int start, int end) {
+        while (end > start && (view.get(end - 1) == LF || view.get(end - 1) == CR)) {
+            end--;
+        }
+        byte[] bytes = new byte[end - start];
+        view.position(start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isEmptyRow(ByteBuffer buf, int start, int end) {
+        for (int p = start; p < end; p++) {
+            byte b = buf.get(p);
+            if (b != LF && b != CR && !isBlank(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Same characters String.trim() strips (U+0000..U+0020), except CR and LF, which end the row
+    // just as they ended the line for BufferedReader.readLine in CSVLoader
+    private static boolean isBlank(byte b) {
+        return b >= 0 && b <= ' ' && b != LF && b != CR;
+    }
+}
@@ -75,15 +75,10 @@ public class CSVLoader {
                     long durationMs = Long.parseLong(data[durationMsIdx].trim());
                     int popularity = Integer.parseInt(data[popularityIdx].trim());
 
-                    // Simple mapping of popularity to 1-5 star rating
-                    int rating = 1;
-                    if (popularity >= 80) rating = 5;
-                    else if (popularity >= 60) rating = 4;
-                    else if (popularity >= 40) rating = 3;
-                    else if (popularity >= 20) rating = 2;
+                    int rating = popularityToRating(popularity);
 
                     String songId = title.replaceAll("\\s+", "") + artist.replaceAll("\\s+", "") + (idCounter++);
-                    songs.add(new Song(songId, title, artist, durationMs, rating));
+                    songs.add(new Song(songId, title, artist, durationMs, rating, popularity));
 
                 } catch (NumberFormatException e) {
                     System.err.println("Skipping row due to number format error (check Duration_ms or Popularity column): " + line + " - " + e.getMessage());
@@ -98,4 +93,20 @@ public class CSVLoader {
         }
         return songs;
     }
+
+    /**
+     * Simple mapping of popularity (0-100) to a 1-5 star rating.
+     * Shared by all loader modes so they agree on ratings.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     * @param popularity The Spotify popularity score.
+     * @return The star rating (1-5).
+     */
+    static int popularityToRating(int popularity) {
+        if (popularity >= 80) return 5;
+        if (popularity >= 60) return 4;
+        if (popularity >= 40) return 3;
+        if (popularity >= 20) return 2;
+        return 1;
+    }
 }
\ No newline at end of file
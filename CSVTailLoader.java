@@ -0,0 +1,111 @@
+package utils;
+
+import models.Song;
+import models.SongStore;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incrementally ingests rows appended to the catalog CSV.
+ * Remembers the byte offset and ID counter where the last load stopped, so each refresh maps and
+ * parses only the new bytes and applies them as a batch to the catalog's song list and indexes.
+ * Only complete rows are consumed: a row still being written, even one cut inside a quoted field that
+ * contains newlines, is picked up by the next refresh.
+ */
+public class CSVTailLoader {
+    private final String filePath;
+    private final Catalog catalog;
+    private CSVByteScanner.Layout layout;
+    private long offset; // First CSV byte not yet ingested
+    private long nextId;
+
+    /**
+     * Creates a tail loader that continues where the catalog's load left off.
+     * @param filePath The path to the CSV file the catalog was loaded from.
+     * @param catalog The catalog to append new songs to.
+     */
+    public CSVTailLoader(String filePath, Catalog catalog) {
+        this.filePath = filePath;
+        this.catalog = catalog;
+        this.offset = catalog.getConsumedBytes();
+        this.nextId = catalog.getNextId();
+    }
+
+    /**
+     * Parses rows appended since the last load or refresh and adds them to the catalog.
+     * Time Complexity: O(D) where D is the number of new bytes (plus index insertion per new song).
+     * Space Complexity: O(R) for the R new songs.
+     * @return The newly added songs, in CSV order (empty if nothing new or the file could not be read).
+     */
+    public List<Song> refresh() {
+        List<Song> added = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < offset) {
+                System.err.println("CSV file shrank since it was loaded, a full reload is required: " + filePath);
+                return added;
+            }
+            if (layout == null && !readLayout(channel, fileSize)) {
+                return added;
+            }
+            if (fileSize == offset) {
+                return added;
+            }
+
+            long length = Math.min(fileSize - offset, Integer.MAX_VALUE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+
+            // The mapped bytes are not treated as the end of the input, so the scan stops before a row that has
+            // no line terminator outside quotes yet; that partially written row stays for the next refresh
+            CSVByteScanner.RowBatch batch = new CSVByteScanner.RowBatch();
+            int consumed = CSVByteScanner.scanRows(buffer, 0, (int) length, layout, batch, false);
+
+            SongStore store = catalog.getStore();
+            for (int i = 0; i < batch.size; i++) {
+                added.add(store.view(MappedCSVLoader.appendTo(store, batch, i, nextId++)));
+            }
+            offset += consumed;
+            apply(added);
+        } catch (IOException e) {
+            System.err.println("Error reading CSV file at " + filePath + ": " + e.getMessage());
+        }
+        return added;
+    }
+
+    /**
+     * Returns the byte offset up to which the CSV has been ingested.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     * @return The offset of the first byte not yet ingested.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    private void apply(List<Song> added) {
+        catalog.getSongs().addAll(added);
+        catalog.getLookup().addAll(added);
+        catalog.getRatings().insertAll(added);
+    }
+
+    private boolean readLayout(FileChannel channel, long fileSize) throws IOException {
+        if (fileSize == 0) {
+            return false;
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, Integer.MAX_VALUE));
+        layout = CSVByteScanner.readHeader(header);
+        if (layout == null) {
+            System.err.println("CSV file missing one or more required columns for Song object: SongName, ArtistName, Duration_ms, Popularity.");
+            return false;
+        }
+        if (offset < layout.dataStart) {
+            offset = layout.dataStart; // Nothing was loaded before, start at the first data row
+        }
+        return true;
+    }
+}
@@ -0,0 +1,62 @@
+package utils;
+
+import models.Song;
+import models.SongStore;
+import ratings.SongRatingTree;
+import search.SongLookup;
+import java.util.List;
+
+/**
+ * The loaded song catalog together with the indexes built over it.
+ * Songs are flyweight views over the columnar SongStore.
+ */
+public class Catalog {
+    /**
+     * Backend of the catalog's song lookup.
+     */
+    public enum LookupType {
+        HASH_MAP,  // SongHashMap: object maps, returns the stored Song objects
+        PRIMITIVE  // PrimitiveSongHashMap: int tables over the store's ordinals, returns fresh views
+    }
+
+    private final SongStore store;
+    private final List<Song> songs; // In CSV order
+    private final SongLookup lookup;
+    private final SongRatingTree ratings;
+    private final long consumedBytes; // CSV bytes the catalog was built from
+    private final long nextId; // Next value of the loader's ID counter
+
+    public Catalog(SongStore store, List<Song> songs, SongLookup lookup, SongRatingTree ratings, long consumedBytes, long nextId) {
+        this.store = store;
+        this.songs = songs;
+        this.lookup = lookup;
+        this.ratings = ratings;
+        this.consumedBytes = consumedBytes;
+        this.nextId = nextId;
+    }
+
+    // Getters
+    public SongStore getStore() {
+        return store;
+    }
+
+    public List<Song> getSongs() {
+        return songs;
+    }
+
+    public SongLookup getLookup() {
+        return lookup;
+    }
+
+    public SongRatingTree getRatings() {
+        return ratings;
+    }
+
+    public long getConsumedBytes() {
+        return consumedBytes;
+    }
+
+    public long getNextId() {
+        return nextId;
+    }
+}
@@ -0,0 +1,338 @@
+package utils;
+
+import models.Song;
+import models.SongStore;
+import ratings.SongRatingTree;
+import search.SongHashMap;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of a loaded catalog and its indexes, used for fast warm starts.
+ *
+ * Layout (big-endian):
+ *   header:  magic "PWSN" (int), version (int), CSV mtime (long), CSV size (long), payload length (long)
+ *   payload: the song columns as written by SongStore.writeColumns (artist name table, then each column
+ *            and the title and ID arenas as raw arrays), restored with one bulk copy per column;
+ *            title table: title count (int), posting length per title (int[]), then every posting's song
+ *            ordinals one after another (int[]);
+ *            rating buckets: bucket count (int), then per bucket: rating (byte), count (int) + song ordinals (int)
+ *   trailer: CRC32 of the payload (long)
+ *
+ * A snapshot is only used when the CSV's modification time and size match the header.
+ */
+public class CatalogSnapshot {
+    private static final int MAGIC = 0x5057534E; // "PWSN"
+    private static final int VERSION = 4; // 2: title table holds a posting list per title; 3: raw popularity; 4: raw columns
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8;
+    private static final int TRAILER_BYTES = 8;
+    private static final String SUFFIX = ".snap";
+
+    /**
+     * Loads the catalog from the snapshot next to the CSV if it is current, otherwise parses the CSV
+     * and writes a fresh snapshot for the next start.
+     * Time Complexity: O(S) for a valid snapshot of S bytes, otherwise that of ParallelCatalogLoader.load plus O(S) to write.
+     * Space Complexity: O(N) for the catalog.
+     * @param csvPath The path to the CSV file (e.g., "data/SpotifySongs.csv").
+     * @return The loaded catalog.
+     */
+    public static Catalog loadOrBuild(String csvPath) {
+        Path csv = Paths.get(csvPath);
+        Path snapshot = Paths.get(csvPath + SUFFIX);
+        long csvMtime;
+        long csvSize;
+        try {
+            csvMtime = Files.getLastModifiedTime(csv).toMillis();
+            csvSize = Files.size(csv);
+        } catch (IOException e) {
+            System.err.println("Error reading CSV file at " + csvPath + ": " + e.getMessage());
+            return ParallelCatalogLoader.load(csvPath);
+        }
+
+        Catalog catalog = read(snapshot, csvMtime, csvSize);
+        if (catalog != null) {
+            return catalog;
+        }
+
+        catalog = ParallelCatalogLoader.load(csvPath);
+        if (!catalog.getSongs().isEmpty()) {
+            try {
+                write(catalog, snapshot, csvMtime, csvSize);
+            } catch (IOException e) {
+                System.err.println("Could not write catalog snapshot " + snapshot + ": " + e.getMessage());
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Writes a snapshot of the catalog. The file is written to a temporary name and then moved into place,
+     * so a crash never leaves a half-written snapshot behind.
+     * Time Complexity: O(N + B) for N songs and B bytes of text.
+     * Space Complexity: O(N + B) when the songs have to be compacted into a new store first, otherwise O(A)
+     * for the artist table.
+     * @param catalog The catalog to persist.
+     * @param snapshot The snapshot file path.
+     * @param csvMtime The CSV modification time (ms) the catalog was loaded from.
+     * @param csvSize The CSV size (bytes) the catalog was loaded from.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public static void write(Catalog catalog, Path snapshot, long csvMtime, long csvSize) throws IOException {
+        List<Song> songs = catalog.getSongs();
+        SongStore store = catalog.getStore();
+        Map<String, Integer> ordinals = null; // Only needed when the songs are not exactly the store's rows
+        if (!isDense(songs, store)) {
+            store = new SongStore(songs.size());
+            ordinals = new HashMap<>(songs.size() * 2);
+            for (Song song : songs) {
+                ordinals.put(song.getId(), store.add(song.getId(), song.getTitle(), song.getArtistId(),
+                        song.getDurationMs(), song.getRating(), song.getPopularity()));
+            }
+        }
+
+        Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ)) {
+            // Header is patched with the payload length once it is known
+            channel.position(HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            CountingOutputStream counter = new CountingOutputStream(Channels.newOutputStream(channel));
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(counter, 1 << 16), crc));
+
+            store.writeColumns(out);
+
+            Collection<List<Song>> titlePostings = catalog.getLookup().getTitlePostings();
+            int[] lengths = new int[titlePostings.size()];
+            int entries = 0;
+            for (List<Song> posting : titlePostings) {
+                entries += posting.size();
+            }
+            int[] postingOrdinals = new int[entries];
+            int t = 0;
+            entries = 0;
+            for (List<Song> posting : titlePostings) {
+                int before = entries;
+                entries = collectOrdinals(posting, store, ordinals, postingOrdinals, entries);
+                lengths[t++] = entries - before;
+            }
+            out.writeInt(lengths.length);
+            writeInts(out, lengths, lengths.length);
+            writeInts(out, postingOrdinals, entries);
+
+            Map<Integer, List<Song>> buckets = catalog.getRatings().getBuckets();
+            out.writeInt(buckets.size());
+            for (Map.Entry<Integer, List<Song>> bucket : buckets.entrySet()) {
+                int[] bucketOrdinals = new int[bucket.getValue().size()];
+                int count = collectOrdinals(bucket.getValue(), store, ordinals, bucketOrdinals, 0);
+                out.writeByte(bucket.getKey());
+                out.writeInt(count);
+                writeInts(out, bucketOrdinals, count);
+            }
+            out.flush();
+
+            long payloadLength = counter.count;
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+            trailer.putLong(crc.getValue()).flip();
+            channel.write(trailer, HEADER_BYTES + payloadLength);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(csvMtime).putLong(csvSize).putLong(payloadLength).flip();
+            channel.write(header, 0);
+        }
+        Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot by memory-mapping it.
+     * Time Complexity: O(S) where S is the snapshot size.
+     * Space Complexity: O(N) for the restored catalog.
+     * @param snapshot The snapshot file path.
+     * @param csvMtime The current CSV modification time (ms).
+     * @param csvSize The current CSV size (bytes).
+     * @return The restored catalog, or null if the snapshot is missing, stale, of another version, or corrupt.
+     */
+    public static Catalog read(Path snapshot, long csvMtime, long csvSize) {
+        if (!Files.isRegularFile(snapshot)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES + TRAILER_BYTES || fileSize > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                return null;
+            }
+            if (buf.getLong() != csvMtime || buf.getLong() != csvSize) {
+                return null; // CSV changed since the snapshot was taken
+            }
+            long payloadLength = buf.getLong();
+            if (payloadLength != fileSize - HEADER_BYTES - TRAILER_BYTES) {
+                return null;
+            }
+
+            ByteBuffer payload = buf.duplicate();
+            payload.position(HEADER_BYTES).limit(HEADER_BYTES + (int) payloadLength);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (buf.getLong(HEADER_BYTES + (int) payloadLength) != crc.getValue()) {
+                System.err.println("Catalog snapshot checksum mismatch, ignoring " + snapshot);
+                return null;
+            }
+
+            SongStore store = SongStore.readColumns(buf);
+            int songCount = store.size();
+            Song[] views = new Song[songCount];
+            for (int i = 0; i < songCount; i++) {
+                views[i] = store.view(i);
+            }
+            List<Song> songs = new ArrayList<>(Arrays.asList(views));
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+
+            int[] lengths = readInts(buf, buf.getInt());
+            long entries = 0;
+            for (int length : lengths) {
+                entries += length;
+            }
+            int[] postingOrdinals = readInts(buf, (int) Math.min(entries, Integer.MAX_VALUE));
+            List<Song[]> titlePostings = new ArrayList<>(lengths.length);
+            int from = 0;
+            for (int length : lengths) {
+                titlePostings.add(toSongs(postingOrdinals, from, length, views));
+                from += length;
+            }
+            SongHashMap lookup = SongHashMap.restore(views, titlePostings, pool);
+
+            // Every song's rating column matches its bucket, so building from the buckets in rating order
+            // restores each bucket's order exactly
+            int bucketCount = buf.getInt();
+            List<Song[]> buckets = new ArrayList<>(bucketCount);
+            int bucketed = 0;
+            for (int b = 0; b < bucketCount; b++) {
+                buf.get(); // The rating, which the songs carry themselves
+                int[] bucketOrdinals = readInts(buf, buf.getInt());
+                buckets.add(toSongs(bucketOrdinals, 0, bucketOrdinals.length, views));
+                bucketed += bucketOrdinals.length;
+            }
+            Song[] byRating = new Song[bucketed];
+            int at = 0;
+            for (Song[] bucket : buckets) {
+                System.arraycopy(bucket, 0, byRating, at, bucket.length);
+                at += bucket.length;
+            }
+            SongRatingTree ratings = SongRatingTree.build(byRating, pool);
+            // Snapshots are taken right after a full load, so the whole CSV was consumed and IDs ran 1..N
+            return new Catalog(store, songs, lookup, ratings, csvSize, songCount + 1L);
+        } catch (IOException | RuntimeException e) {
+            // A truncated or malformed snapshot is not fatal: the CSV is parsed instead
+            System.err.println("Could not read catalog snapshot " + snapshot + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Whether the songs are exactly the store's rows in ordinal order, so the store can be written as it is
+    private static boolean isDense(List<Song> songs, SongStore store) {
+        if (songs.size() != store.size()) {
+            return false;
+        }
+        for (int i = 0; i < songs.size(); i++) {
+            Song song = songs.get(i);
+            if (song.getStore() != store || song.getOrdinal() != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Appends the ordinals of the songs that are part of the snapshot; with a null map, the store's own views are
+    private static int collectOrdinals(Collection<Song> songs, SongStore store, Map<String, Integer> ordinals,
+            int[] out, int at) {
+        for (Song song : songs) {
+            Integer ordinal = (ordinals != null) ? ordinals.get(song.getId())
+                    : (song.getStore() == store) ? Integer.valueOf(song.getOrdinal()) : null;
+            if (ordinal != null) {
+                out[at++] = ordinal;
+            }
+        }
+        return at;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values, int count) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(Math.min(count, 1 << 14) * 4);
+        for (int from = 0; from < count; from += bytes.capacity() / 4) {
+            int block = Math.min(count - from, bytes.capacity() / 4);
+            bytes.clear();
+            bytes.asIntBuffer().put(values, from, block);
+            out.write(bytes.array(), 0, block * 4);
+        }
+    }
+
+    // Reads count ints with one bulk copy
+    private static int[] readInts(ByteBuffer buf, int count) {
+        if (count < 0 || count > buf.remaining() / 4) {
+            throw new IllegalArgumentException("Bad table length " + count);
+        }
+        int[] values = new int[count];
+        buf.asIntBuffer().get(values);
+        buf.position(buf.position() + count * 4);
+        return values;
+    }
+
+    private static Song[] toSongs(int[] ordinals, int from, int count, Song[] views) {
+        Song[] songs = new Song[count];
+        for (int i = 0; i < count; i++) {
+            songs[i] = views[ordinals[from + i]];
+        }
+        return songs;
+    }
+
+    /**
+     * Tracks how many payload bytes reached the channel.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+        long count;
+
+        CountingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+    }
+}
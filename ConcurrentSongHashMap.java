@@ -0,0 +1,244 @@
+package search;
+
+import models.Song;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Thread-safe SongLookup for serving searches from many threads while catalog updates stream in.
+ * Reads never lock: both tables are ConcurrentHashMaps, and each title maps to an immutable array of
+ * songs that writers replace copy-on-write, so a reader always sees a complete posting list.
+ * Writers for the same song ID are serialized by a striped lock, which makes the check-then-act of
+ * replacing or removing a song atomic across the ID and title tables; writers on different stripes
+ * proceed in parallel. A song is published to the title table before the ID table and withdrawn from
+ * the ID table first, so a song found by ID is always findable by title as well.
+ * Stripes are picked from Song.hashCode, which reads the store's ID hash column, so only the table key is decoded.
+ * Attached secondary indexes are notified under the writer's stripe lock and one index lock, so each index sees
+ * one writer at a time and the events for one ID in the order they were applied.
+ * Space Complexity: O(N) for N songs.
+ */
+public class ConcurrentSongHashMap implements SongLookup {
+    private static final int STRIPES = 64; // Power of two
+    private static final Song[] NO_SONGS = new Song[0];
+
+    private final ConcurrentHashMap<String, Song> songIdMap;
+    // Lowercased title -> songs with that title in insertion order; arrays are never mutated once published
+    private final ConcurrentHashMap<String, Song[]> songTitleMap;
+    private final Object[] locks = new Object[STRIPES];
+    private final Object indexLock = new Object(); // Serializes notifications to the secondary indexes
+    private final List<SecondaryIndex> secondaryIndexes = new CopyOnWriteArrayList<>();
+
+    public ConcurrentSongHashMap() {
+        this(16);
+    }
+
+    /**
+     * Creates lookup maps presized for the expected number of songs.
+     * @param expectedSize The number of songs expected to be added.
+     */
+    public ConcurrentSongHashMap(int expectedSize) {
+        this.songIdMap = new ConcurrentHashMap<>(expectedSize);
+        this.songTitleMap = new ConcurrentHashMap<>(expectedSize);
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Adds a song. Re-adding an existing ID atomically replaces the old song in both tables.
+     * Time Complexity: O(P) on average for P songs sharing the title (copy-on-write).
+     * Space Complexity: O(P) for the new posting array.
+     * @param song The song to add.
+     */
+    @Override
+    public void addSong(Song song) {
+        synchronized (lockFor(song.hashCode())) {
+            String id = song.getId();
+            Song replaced = songIdMap.get(id);
+            String title = normalizeTitle(song.getTitle());
+            boolean sameTitle = replaced != null && normalizeTitle(replaced.getTitle()).equals(title);
+            // Same title: swap the entry in one step so readers never see both songs (or neither)
+            songTitleMap.compute(title, (t, songs) -> append(sameTitle ? without(songs, replaced) : songs, song));
+            songIdMap.put(id, song);
+            if (replaced != null && !sameTitle) {
+                removeFromTitle(replaced);
+            }
+            notifyIndexes(replaced, song);
+        }
+    }
+
+    /**
+     * Adds a batch of songs, with the same result as calling addSong for each in order.
+     * Each song is published atomically on its own; the batch as a whole is not.
+     * Time Complexity: O(B * P) on average for B songs and P songs per title.
+     * Space Complexity: O(B * P) for the replaced posting arrays.
+     * @param songs The songs to add, in order.
+     */
+    @Override
+    public void addAll(Collection<Song> songs) {
+        for (Song song : songs) {
+            addSong(song);
+        }
+    }
+
+    /**
+     * Removes a song by ID from both tables.
+     * Time Complexity: O(P) on average for P songs sharing the title.
+     * Space Complexity: O(P) for the new posting array.
+     * @param songId The ID of the song to remove.
+     * @return The removed Song object, or null if not found.
+     */
+    @Override
+    public Song removeSong(String songId) {
+        synchronized (lockFor(songId.hashCode())) {
+            Song removed = songIdMap.remove(songId);
+            if (removed != null) {
+                removeFromTitle(removed);
+                notifyIndexes(removed, null);
+            }
+            return removed;
+        }
+    }
+
+    /**
+     * Searches for a song by its ID or title (case-insensitive), ID first. Lock-free.
+     * Time Complexity: O(1) on average.
+     * Space Complexity: O(1).
+     * @param query The song ID or title to search for.
+     * @return The found Song object, or null if not found.
+     */
+    @Override
+    public Song searchSong(String query) {
+        Song song = songIdMap.get(query);
+        if (song != null) {
+            return song;
+        }
+        Song[] songs = songTitleMap.get(normalizeTitle(query));
+        return (songs != null) ? songs[0] : null;
+    }
+
+    /**
+     * Returns every song with the given title (case-insensitive), in insertion order. Lock-free.
+     * Time Complexity: O(P) for P matches.
+     * Space Complexity: O(P) for the returned copy.
+     * @param title The title to search for.
+     * @return The matching songs, or an empty list.
+     */
+    @Override
+    public List<Song> searchAllByTitle(String title) {
+        Song[] songs = songTitleMap.get(normalizeTitle(title));
+        return (songs != null) ? new ArrayList<>(Arrays.asList(songs)) : new ArrayList<>();
+    }
+
+    /**
+     * Attaches an index that is kept in sync with this lookup from now on. Writers are held off while the index
+     * is populated with every song already stored, so it misses no song and sees none twice.
+     * Time Complexity: O(N) index insertions for N stored songs.
+     * Space Complexity: O(1) here; the index's own space is its concern.
+     * @param index The index to attach.
+     */
+    @Override
+    public void attachIndex(SecondaryIndex index) {
+        attachHoldingStripes(0, index);
+    }
+
+    /**
+     * Returns every title's posting list. Lock-free; each list is a consistent snapshot of its title.
+     * Time Complexity: O(T + P) for T distinct titles and P posting entries.
+     * Space Complexity: O(T + P) for the copied lists.
+     * @return The songs for each distinct lowercased title, in insertion order.
+     */
+    @Override
+    public Collection<List<Song>> getTitlePostings() {
+        List<List<Song>> postings = new ArrayList<>(songTitleMap.size());
+        for (Song[] songs : songTitleMap.values()) {
+            postings.add(Arrays.asList(songs.clone()));
+        }
+        return postings;
+    }
+
+    /**
+     * Returns the number of songs stored.
+     * Time Complexity: O(1) (an estimate while writes are in flight).
+     * Space Complexity: O(1).
+     */
+    @Override
+    public int size() {
+        return songIdMap.size();
+    }
+
+    private void removeFromTitle(Song song) {
+        songTitleMap.computeIfPresent(normalizeTitle(song.getTitle()), (title, songs) -> without(songs, song));
+    }
+
+    // Stripe for an ID hash (String.hashCode of the ID, which Song.hashCode equals)
+    private Object lockFor(int idHash) {
+        return locks[(idHash ^ (idHash >>> 16)) & (STRIPES - 1)];
+    }
+
+    // Called under the writer's stripe lock
+    private void notifyIndexes(Song removed, Song added) {
+        if (secondaryIndexes.isEmpty()) {
+            return;
+        }
+        synchronized (indexLock) {
+            for (SecondaryIndex index : secondaryIndexes) {
+                if (removed != null) {
+                    index.remove(removed);
+                }
+                if (added != null) {
+                    index.add(added);
+                }
+            }
+        }
+    }
+
+    // Takes every stripe lock in order, then populates and registers the index
+    private void attachHoldingStripes(int stripe, SecondaryIndex index) {
+        if (stripe < STRIPES) {
+            synchronized (locks[stripe]) {
+                attachHoldingStripes(stripe + 1, index);
+            }
+            return;
+        }
+        synchronized (indexLock) {
+            for (Song song : songIdMap.values()) {
+                index.add(song);
+            }
+            secondaryIndexes.add(index);
+        }
+    }
+
+    private static Song[] append(Song[] songs, Song song) {
+        if (songs == null) {
+            songs = NO_SONGS;
+        }
+        Song[] grown = Arrays.copyOf(songs, songs.length + 1);
+        grown[songs.length] = song;
+        return grown;
+    }
+
+    // Returns the postings without this exact song, or null (dropping the title) if none are left
+    private static Song[] without(Song[] songs, Song song) {
+        for (int i = 0; i < songs.length; i++) {
+            if (songs[i] == song) {
+                if (songs.length == 1) {
+                    return null;
+                }
+                Song[] shrunk = new Song[songs.length - 1];
+                System.arraycopy(songs, 0, shrunk, 0, i);
+                System.arraycopy(songs, i + 1, shrunk, i, songs.length - i - 1);
+                return shrunk;
+            }
+        }
+        return songs;
+    }
+
+    private static String normalizeTitle(String title) {
+        return title.toLowerCase();
+    }
+}
@@ -0,0 +1,487 @@
+package search;
+
+import models.Song;
+import models.SongIdMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Typo-tolerant search over song titles and artist names using a character-trigram inverted index.
+ * Candidates are generated from the trigram posting lists with a count threshold derived from the
+ * allowed edit distance (a string within d edits of the query shares at least |grams| - 4d trigrams, since an
+ * adjacent transposition can break four), scanning only the shortest lists and probing the longer ones by binary search.
+ * That bound needs at least two shared trigrams to prune, which very short queries cannot guarantee, so keys of up to
+ * four characters are also indexed under themselves and each single-character deletion: a key within one edit of
+ * a query of up to three characters shares one of those variants with the query's own. Budgets neither filter can
+ * answer are lowered to the largest one that they can, so no query ever scans every key.
+ * Candidates are then verified with a bounded Damerau-Levenshtein distance that stops early once
+ * the bound is exceeded. Kept in sync with a SongHashMap by attaching it as a SecondaryIndex.
+ * Space Complexity: O(C) postings for C characters of indexed text, plus O(D) query counters for D indexed keys.
+ */
+public class FuzzyIndex implements SecondaryIndex {
+    private static final char PAD = '\u0001'; // Marks the start and end of a key
+    private static final int SHORT_KEY_LENGTH = 4; // Longest key indexed by its deletion variants
+    private static final int MIN_SHARED_GRAMS = 2; // Fewest shared trigrams the filter relies on
+
+    // Documents are (song ordinal, field) pairs: doc = ordinal * 2 + field, field 0 = title, 1 = artist
+    private Song[] songs = new Song[64];
+    private String[] keys = new String[128]; // Normalized text per document
+    private int[] keyLengths = new int[128]; // Length of each key, read when filtering candidates instead of the String
+    private long[] signatures = new long[128]; // Characters of each key, one bit per char modulo 64
+    private final BitSet live = new BitSet(); // Documents not yet removed
+    private SongIdMap ordinals = new SongIdMap(); // Song ID -> ordinal, so a fresh view of an indexed song is found
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    // Short key and each of its single-character deletions, packed 16 bits per char -> documents
+    private final Map<Long, Postings> deletionVariants = new HashMap<>();
+    private int nextOrdinal; // Ordinals only grow, so posting lists stay sorted by appending
+    private int deadDocs;
+    private int[] counts = new int[128]; // Per-document trigram hits of the running query, all zero between queries
+    private int[] touched = new int[64]; // Documents with a non-zero count
+
+    /**
+     * Indexes a song's title and artist.
+     * Time Complexity: O(T + A) for title and artist lengths.
+     * Space Complexity: O(T + A) postings.
+     * @param song The song to index.
+     */
+    @Override
+    public void add(Song song) {
+        if (ordinals.containsKey(song)) {
+            return;
+        }
+        int ordinal = nextOrdinal++;
+        if (ordinal == songs.length) {
+            songs = Arrays.copyOf(songs, ordinal * 2);
+            keys = Arrays.copyOf(keys, ordinal * 4);
+            keyLengths = Arrays.copyOf(keyLengths, ordinal * 4);
+            signatures = Arrays.copyOf(signatures, ordinal * 4);
+        }
+        songs[ordinal] = song;
+        ordinals.put(song, ordinal);
+        indexDocument(ordinal * 2, PrefixIndex.normalize(song.getTitle()));
+        indexDocument(ordinal * 2 + 1, PrefixIndex.normalize(song.getArtist()));
+    }
+
+    /**
+     * Removes a song. Its postings are dropped lazily; the index compacts itself once half of it is stale.
+     * Time Complexity: O(1) amortized.
+     * Space Complexity: O(1).
+     * @param song The song to remove.
+     */
+    @Override
+    public void remove(Song song) {
+        int ordinal = ordinals.remove(song);
+        if (ordinal == SongIdMap.ABSENT) {
+            return;
+        }
+        live.clear(ordinal * 2);
+        live.clear(ordinal * 2 + 1);
+        songs[ordinal] = null;
+        deadDocs += 2;
+        if (deadDocs > 1024 && deadDocs * 2 > nextOrdinal * 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Fuzzy search with an edit budget scaled to the query: 0 edits up to 2 characters,
+     * 1 up to 8 characters, 2 beyond that.
+     * @param query The (possibly misspelled) title or artist.
+     * @param limit The maximum number of results.
+     * @return The matching songs, best first.
+     */
+    public List<Song> search(String query, int limit) {
+        int length = PrefixIndex.normalize(query).length();
+        int maxEdits = (length <= 2) ? 0 : (length <= 8) ? 1 : 2;
+        return search(query, maxEdits, limit);
+    }
+
+    /**
+     * Finds songs whose title or artist is within maxEdits edits of the query
+     * (insertions, deletions, substitutions and adjacent transpositions).
+     * Results are ranked by distance, then rating (highest first), then title.
+     * The budget is lowered for queries too short to filter with it (see searchableEdits): two edits need
+     * at least eight characters, one edit any non-empty query.
+     * Time Complexity: O(G * S + V * Q * d) where G is the number of query trigrams, S the length of the
+     * shortest posting lists scanned, V the number of verified candidates and Q the query length.
+     * Space Complexity: O(V) for the candidates.
+     * @param query The (possibly misspelled) title or artist.
+     * @param maxEdits The maximum edit distance to accept, lowered if the query is too short for it.
+     * @param limit The maximum number of results.
+     * @return The matching songs, best first.
+     */
+    public List<Song> search(String query, int maxEdits, int limit) {
+        String q = PrefixIndex.normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        Map<Integer, Match> bySong = new HashMap<>();
+        int[] grams = distinctGrams(q);
+        maxEdits = searchableEdits(q.length(), grams.length, maxEdits);
+        int threshold = grams.length - 4 * maxEdits;
+        if (threshold >= MIN_SHARED_GRAMS) {
+            collectCandidates(q, grams, threshold, maxEdits, bySong);
+        } else {
+            collectShortKeyCandidates(q, bySong); // One edit of a query of at most three characters
+        }
+
+        // Keep only the best `limit` matches in a heap whose head is the worst of them
+        Comparator<Match> ranking = (a, b) -> {
+            if (a.distance != b.distance) return Integer.compare(a.distance, b.distance);
+            if (a.rating != b.rating) return Integer.compare(b.rating, a.rating);
+            return a.title().compareToIgnoreCase(b.title());
+        };
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(limit, bySong.size()) + 1, ranking.reversed());
+        for (Match m : bySong.values()) {
+            if (best.size() < limit) {
+                best.add(m);
+            } else if (ranking.compare(m, best.peek()) < 0) {
+                best.poll();
+                best.add(m);
+            }
+        }
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(ranking);
+        List<Song> result = new ArrayList<>(matches.size());
+        for (Match m : matches) {
+            result.add(m.song);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the largest edit budget up to maxEdits that the filters can answer for a query: one the trigram
+     * filter can prune with, or a single edit of a query short enough for the deletion-variant index.
+     * Time Complexity: O(Q) for the query length.
+     * Space Complexity: O(Q) for its trigrams.
+     * @param normalizedQuery The query, normalized as by PrefixIndex.normalize.
+     * @param maxEdits The requested budget.
+     * @return The budget search uses.
+     */
+    static int searchableEdits(String normalizedQuery, int maxEdits) {
+        return searchableEdits(normalizedQuery.length(), distinctGrams(normalizedQuery).length, maxEdits);
+    }
+
+    private static int searchableEdits(int length, int gramCount, int maxEdits) {
+        int edits = Math.max(0, maxEdits);
+        while (edits > 0 && gramCount - 4 * edits < MIN_SHARED_GRAMS && !(edits == 1 && length < SHORT_KEY_LENGTH)) {
+            edits--;
+        }
+        return edits;
+    }
+
+    // Looks up the query and its single-character deletions among the short keys' deletion variants
+    private void collectShortKeyCandidates(String q, Map<Integer, Match> bySong) {
+        if (counts.length < keys.length) {
+            counts = new int[keys.length];
+        }
+        long querySignature = signature(q);
+        int touchedCount = 0;
+        for (long variant : deletionVariants(q)) {
+            Postings p = deletionVariants.get(variant);
+            for (int i = 0; p != null && i < p.size; i++) {
+                int doc = p.docs[i];
+                if (live.get(doc) && counts[doc]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = doc;
+                }
+            }
+        }
+        for (int t = 0; t < touchedCount; t++) {
+            counts[touched[t]] = 0; // Leave the counters clean for the next query
+            verify(q, querySignature, touched[t], 1, bySong);
+        }
+    }
+
+    // Counts trigram hits over the shortest posting lists, then probes the longer lists only for those candidates
+    private void collectCandidates(String q, int[] grams, int threshold, int maxEdits, Map<Integer, Match> bySong) {
+        int[][] lists = new int[grams.length][];
+        byte[][] lengthLists = new byte[grams.length][];
+        int[] sizes = new int[grams.length];
+        int n = 0;
+        for (int gram : grams) {
+            Postings p = postings.get(gram);
+            if (p != null) {
+                lists[n] = p.docs;
+                lengthLists[n] = p.lengths;
+                sizes[n++] = p.size;
+            }
+        }
+        if (n < threshold) {
+            return;
+        }
+
+        // Sort lists by length; a qualifying doc must appear in one of the (n - threshold + 1) shortest
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(sizes[a], sizes[b]));
+        int shortCount = n - threshold + 1;
+
+        if (counts.length < keys.length) {
+            counts = new int[keys.length];
+        }
+        // A key within maxEdits edits differs in length by at most maxEdits, so other lengths are never counted
+        int minLength = q.length() - maxEdits;
+        int maxLength = q.length() + maxEdits;
+        long querySignature = signature(q);
+        int touchedCount = 0;
+        for (int s = 0; s < shortCount; s++) {
+            int[] docs = lists[order[s]];
+            byte[] lengths = lengthLists[order[s]];
+            int size = sizes[order[s]];
+            for (int i = 0; i < size; i++) {
+                // The length stored next to the doc avoids touching per-document arrays for keys of other lengths
+                int length = lengths[i] & 0xFF;
+                if (length == Postings.LONG_KEY) {
+                    length = keyLengths[docs[i]];
+                }
+                int doc = docs[i];
+                if (length >= minLength && length <= maxLength && live.get(doc) && counts[doc]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = doc;
+                }
+            }
+        }
+
+        // A remaining list shorter than the cost of probing it once per candidate is merged in by a single pass;
+        // it only counts for documents already touched, since the others cannot reach the threshold
+        int probeFrom = shortCount;
+        int probeCost = touchedCount * (32 - Integer.numberOfLeadingZeros(Math.max(1, sizes[order[n - 1]])));
+        while (probeFrom < n && sizes[order[probeFrom]] <= probeCost) {
+            int[] docs = lists[order[probeFrom]];
+            for (int i = 0, size = sizes[order[probeFrom]]; i < size; i++) {
+                if (counts[docs[i]] > 0) {
+                    counts[docs[i]]++;
+                }
+            }
+            probeFrom++;
+        }
+
+        for (int t = 0; t < touchedCount; t++) {
+            int doc = touched[t];
+            int count = counts[doc];
+            counts[doc] = 0; // Leave the counters clean for the next query
+            // Probe the remaining lists shortest first, giving up once the threshold is out of reach
+            for (int l = probeFrom; l < n && count < threshold && count + (n - l) >= threshold; l++) {
+                if (Arrays.binarySearch(lists[order[l]], 0, sizes[order[l]], doc) >= 0) {
+                    count++;
+                }
+            }
+            if (count >= threshold) {
+                verify(q, querySignature, doc, maxEdits, bySong);
+            }
+        }
+    }
+
+    // Computes the bounded distance to one document and records the song if it is close enough
+    private void verify(String q, long querySignature, int doc, int maxEdits, Map<Integer, Match> bySong) {
+        // Each edit brings in at most one character the other side lacks, so more missing characters cannot match
+        long keySignature = signatures[doc];
+        if (Long.bitCount(querySignature & ~keySignature) > maxEdits
+                || Long.bitCount(keySignature & ~querySignature) > maxEdits) {
+            return;
+        }
+        int distance = boundedDistance(q, keys[doc], maxEdits);
+        if (distance <= maxEdits) {
+            int ordinal = doc >> 1;
+            Match m = bySong.get(ordinal);
+            if (m == null) {
+                bySong.put(ordinal, new Match(songs[ordinal], distance));
+            } else if (distance < m.distance) {
+                m.distance = distance; // Title and artist both matched: keep the closer one
+            }
+        }
+    }
+
+    /**
+     * Restricted Damerau-Levenshtein (optimal string alignment) distance with an upper bound.
+     * Only a diagonal band of width 2 * bound + 1 is computed, and the scan stops as soon as
+     * every cell in a row exceeds the bound.
+     * Time Complexity: O(min(|a|, |b|) * bound)
+     * Space Complexity: O(|b|) for three rows.
+     * @return The distance, or bound + 1 if it exceeds the bound.
+     */
+    static int boundedDistance(String a, String b, int bound) {
+        int la = a.length();
+        int lb = b.length();
+        if (Math.abs(la - lb) > bound) {
+            return bound + 1;
+        }
+        int inf = bound + 1;
+        int[] prev2 = new int[lb + 1];
+        int[] prev = new int[lb + 1];
+        int[] curr = new int[lb + 1];
+        for (int j = 0; j <= lb; j++) {
+            prev[j] = Math.min(j, inf);
+        }
+        for (int i = 1; i <= la; i++) {
+            int from = Math.max(1, i - bound);
+            int to = Math.min(lb, i + bound);
+            // Only the band is computed; the cells just outside it read as over the bound
+            curr[0] = Math.min(i, inf);
+            curr[from - 1] = (from == 1) ? curr[0] : inf;
+            if (to < lb) {
+                curr[to + 1] = inf;
+            }
+            int rowMin = (from == 1) ? curr[0] : inf;
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = (ca == cb) ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, curr[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, prev2[j - 2] + 1); // Adjacent transposition
+                }
+                curr[j] = Math.min(value, inf);
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (rowMin > bound) {
+                return inf; // Early termination: no alignment can come back under the bound
+            }
+            int[] tmp = prev2;
+            prev2 = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return prev[lb];
+    }
+
+    private void indexDocument(int doc, String key) {
+        if (doc >= keys.length) {
+            keys = Arrays.copyOf(keys, doc * 2);
+            keyLengths = Arrays.copyOf(keyLengths, doc * 2);
+            signatures = Arrays.copyOf(signatures, doc * 2);
+        }
+        keys[doc] = key;
+        keyLengths[doc] = key.length();
+        signatures[doc] = signature(key);
+        live.set(doc);
+        for (int gram : distinctGrams(key)) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(doc, key.length());
+        }
+        if (key.length() <= SHORT_KEY_LENGTH) {
+            for (long variant : deletionVariants(key)) {
+                deletionVariants.computeIfAbsent(variant, v -> new Postings()).add(doc, key.length());
+            }
+        }
+    }
+
+    // The key itself and each single-character deletion, packed 16 bits per char (keys hold no '\0', so lengths differ).
+    // Multiplying by an odd constant keeps the packing one-to-one but spreads it over Long.hashCode's bits.
+    private static long[] deletionVariants(String key) {
+        long[] variants = new long[key.length() + 1];
+        for (int skip = 0; skip <= key.length(); skip++) {
+            long packed = 0;
+            for (int i = 0; i < key.length(); i++) {
+                if (i != skip) {
+                    packed = (packed << 16) | key.charAt(i);
+                }
+            }
+            variants[skip] = packed * 0x9E3779B97F4A7C15L; // skip == length is the key itself
+        }
+        return variants;
+    }
+
+    // One bit per distinct character modulo 64; a collision only makes the filter accept more
+    private static long signature(String key) {
+        long bits = 0;
+        for (int i = 0; i < key.length(); i++) {
+            bits |= 1L << key.charAt(i); // The shift distance is taken modulo 64
+        }
+        return bits;
+    }
+
+    // Rebuilds ordinals and postings without the removed songs
+    private void compact() {
+        Song[] oldSongs = songs;
+        int oldCount = nextOrdinal;
+        songs = new Song[Math.max(64, oldCount)];
+        keys = new String[songs.length * 2];
+        keyLengths = new int[keys.length];
+        signatures = new long[keys.length];
+        live.clear();
+        ordinals = new SongIdMap(oldCount);
+        postings.clear();
+        deletionVariants.clear();
+        nextOrdinal = 0;
+        deadDocs = 0;
+        for (int i = 0; i < oldCount; i++) {
+            if (oldSongs[i] != null) {
+                add(oldSongs[i]);
+            }
+        }
+    }
+
+    // Trigrams of the padded key, each packed into an int (collisions only add candidates, never lose them)
+    private static int[] distinctGrams(String key) {
+        String padded = PAD + "" + PAD + key + PAD + PAD;
+        int[] grams = new int[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (padded.charAt(i) * 31 + padded.charAt(i + 1)) * 31 + padded.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Sorted, append-only list of document IDs for one trigram, with each document's key length next to it.
+     */
+    private static final class Postings {
+        static final int LONG_KEY = 0xFF; // Stored for keys of this length or longer; the real length is in keyLengths
+
+        int[] docs = new int[2];
+        byte[] lengths = new byte[2];
+        int size;
+
+        void add(int doc, int keyLength) {
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            lengths[size] = (byte) Math.min(keyLength, LONG_KEY);
+            docs[size++] = doc;
+        }
+    }
+
+    private static final class Match {
+        final Song song;
+        final int rating;
+        int distance;
+        private String title; // Decoded on the first tie that needs it
+
+        Match(Song song, int distance) {
+            this.song = song;
+            this.rating = song.getRating();
+            this.distance = distance;
+        }
+
+        String title() {
+            if (title == null) {
+                title = song.getTitle();
+            }
+            return title;
+        }
+    }
+}
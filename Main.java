@@ -2,10 +2,17 @@ import models.Song;
 
 import playlist.Playlist;
 import playback.PlaybackStack;
+import ratings.ScoreIndex;
 import ratings.SongRatingTree;
+import search.FuzzyIndex;
+import search.PrefixIndex;
 import search.SongHashMap;
-import sorting.MergeSort;
-import utils.CSVLoader;
+import search.SongLookup;
+import sorting.SortKey;
+import sorting.SortSpec;
+import utils.Catalog;
+import utils.CatalogSnapshot;
+import utils.CSVTailLoader;
 
 import java.util.List;
 import java.util.Scanner;
@@ -14,12 +21,18 @@ public class Main {
     private static Playlist currentPlaylist = new Playlist();
     private static PlaybackStack playbackHistory = new PlaybackStack();
     private static SongRatingTree songRatingTree = new SongRatingTree();
-    private static SongHashMap songLookup = new SongHashMap();
+    private static SongLookup songLookup = new SongHashMap();
+    private static PrefixIndex songPrefixIndex = new PrefixIndex();
+    private static FuzzyIndex songFuzzyIndex = new FuzzyIndex();
+    private static ScoreIndex songScoreIndex = new ScoreIndex();
+    private static final SortSpec LONGEST_FIRST = SortSpec.byDescending(SortKey.DURATION);
 
     public static void main(String[] args) {
         System.out.println("Welcome to PlayWise Music Engine!");
 
-        List<Song> songs = CSVLoader.loadSongs("data/SpotifySongs.csv");
+        // Warm starts restore the catalog from its binary snapshot instead of re-parsing the CSV
+        Catalog catalog = CatalogSnapshot.loadOrBuild("data/SpotifySongs.csv");
+        List<Song> songs = catalog.getSongs();
         if (songs.isEmpty()) {
             System.out.println("No songs loaded. Please ensure 'data/SpotifySongs.csv' exists and is correctly formatted.");
             return;
@@ -27,13 +40,22 @@ public class Main {
 
         System.out.println("Loaded " + songs.size() + " songs.");
 
-        for (Song song : songs) {
-            if (currentPlaylist.getSize() < 100) {
-                currentPlaylist.addSong(song);
-            }
-            songLookup.addSong(song);
-            int randomRating = (int) (Math.random() * 5) + 1;
-            songRatingTree.insertSong(song, randomRating);
+        // Lookup and rating indexes are built in parallel by the loader
+        songLookup = catalog.getLookup();
+        songRatingTree = catalog.getRatings();
+        songLookup.attachIndex(songPrefixIndex); // Kept in sync through addSong/removeSong
+        songLookup.attachIndex(songFuzzyIndex);
+        songLookup.attachIndex(songScoreIndex); // Ranks by raw popularity, finer than the 1-5 stars
+        songRatingTree.addListener(songScoreIndex);
+        songRatingTree.addListener((song, oldRating, newRating) -> {
+            // Autocomplete ranks by rating, so re-index the song under its new rating
+            songPrefixIndex.remove(song);
+            songPrefixIndex.add(song);
+        });
+        songRatingTree.addListener((song, oldRating, newRating) -> currentPlaylist.invalidateSortedViews(SortKey.RATING));
+        CSVTailLoader catalogTail = new CSVTailLoader("data/SpotifySongs.csv", catalog);
+        for (int i = 0; i < Math.min(100, songs.size()); i++) {
+            currentPlaylist.addSong(songs.get(i));
         }
 
         Scanner scanner = new Scanner(System.in);
@@ -55,6 +77,10 @@ public class Main {
             System.out.println("12. Pin a Song at Position");
             System.out.println("13. Shuffle Playlist (Keep Pinned Songs Fixed)");
             System.out.println("14. Generate Playlist Summary");
+            System.out.println("15. Refresh Catalog (Ingest Appended CSV Rows)");
+            System.out.println("16. Autocomplete Search (Title/Artist Prefix)");
+            System.out.println("17. Top Songs by Popularity");
+            System.out.println("18. Rate a Song");
             System.out.println("0. Exit");
             System.out.print("Enter your choice: ");
             choice = scanner.nextInt();
@@ -76,9 +102,13 @@ public class Main {
                         String artist = scanner.nextLine();
                         System.out.print("Duration (ms): ");
                         long duration = scanner.nextLong();
+                        System.out.print("Rating (1-5): ");
+                        int rating = Math.max(1, Math.min(5, scanner.nextInt())); // Out-of-range input is clamped
                         scanner.nextLine();
-                        songToAdd = new Song(title + artist + System.currentTimeMillis(), title, artist, duration, 0);
+                        int ordinal = catalog.getStore().add(title + artist + System.currentTimeMillis(), title, artist, duration, rating);
+                        songToAdd = catalog.getStore().view(ordinal);
                         songLookup.addSong(songToAdd);
+                        songRatingTree.insertSong(songToAdd, rating); // So option 18 can re-rate it
                     }
                     currentPlaylist.addSong(songToAdd);
                     System.out.println("Song added.");
@@ -133,43 +163,66 @@ public class Main {
                     System.out.print("Enter title or ID: ");
                     String query = scanner.nextLine();
                     Song found = songLookup.searchSong(query);
-                    System.out.println(found != null ? "Found: " + found : "Not found.");
+                    if (found != null) {
+                        System.out.println("Found: " + found);
+                    } else {
+                        // No exact match: fall back to typo-tolerant search
+                        List<Song> suggestions = songFuzzyIndex.search(query, 5);
+                        if (!suggestions.isEmpty()) {
+                            System.out.println("Not found. Did you mean:");
+                            suggestions.forEach(s -> System.out.println("  " + s));
+                        } else {
+                            System.out.println("Not found.");
+                        }
+                    }
                     break;
                 case 9:
-                    System.out.print("Enter rating (1-5): ");
-                    int rate = scanner.nextInt();
-                    scanner.nextLine();
-                    List<Song> rated = songRatingTree.searchByRating(rate);
+                    System.out.print("Enter rating (1-5) or range (e.g. 4-5): ");
+                    String rateInput = scanner.nextLine().trim();
+                    int dash = rateInput.indexOf('-');
+                    List<Song> rated;
+                    try {
+                        rated = (dash < 0)
+                                ? songRatingTree.searchByRating(Integer.parseInt(rateInput))
+                                : songRatingTree.searchByRatingRange(Integer.parseInt(rateInput.substring(0, dash).trim()),
+                                        Integer.parseInt(rateInput.substring(dash + 1).trim()));
+                    } catch (NumberFormatException e) {
+                        System.out.println("Invalid rating.");
+                        break;
+                    }
                     if (!rated.isEmpty()) {
                         rated.forEach(System.out::println);
                     } else {
-                        System.out.println("No songs found with rating " + rate);
+                        System.out.println("No songs found with rating " + rateInput);
                     }
                     break;
                 case 10:
-                    System.out.println("Sort by: 1. Title 2. Duration Asc 3. Duration Desc");
+                    System.out.println("Sort by: 1. Title 2. Duration Asc 3. Duration Desc 4. Rating 5. Popularity"
+                            + " 6. Recently Added 7. Artist, then Rating, then Title");
                     int sortChoice = scanner.nextInt();
                     scanner.nextLine();
-                    List<Song> toSort = currentPlaylist.getAllSongsAsList();
-                    MergeSort ms = new MergeSort();
+                    SortSpec spec;
                     switch (sortChoice) {
-                        case 1: ms.sort(toSort, "title"); break;
-                        case 2: ms.sort(toSort, "duration_asc"); break;
-                        case 3: ms.sort(toSort, "duration_desc"); break;
+                        case 1: spec = SortSpec.parse("title"); break;
+                        case 2: spec = SortSpec.parse("duration_asc"); break;
+                        case 3: spec = SortSpec.parse("duration_desc"); break;
+                        case 4: spec = SortSpec.parse("rating_desc,title"); break;
+                        case 5: spec = SortSpec.parse("popularity_desc"); break;
+                        case 6: spec = SortSpec.parse("recently_added"); break;
+                        case 7: spec = SortSpec.by(SortKey.ARTIST).thenDescending(SortKey.RATING).then(SortKey.TITLE); break;
                         default: System.out.println("Invalid."); return;
                     }
-                    currentPlaylist.clear();
-                    for (Song s : toSort) currentPlaylist.addSong(s);
+                    currentPlaylist.sortBy(spec); // Reuses the cached sorted view when there is one
                     System.out.println("Playlist sorted.");
                     currentPlaylist.displayPlaylist();
                     break;
                 case 11:
                     System.out.println("\n--- System Snapshot ---");
-                    List<Song> all = currentPlaylist.getAllSongsAsList();
-                    new MergeSort().sort(all, "duration_desc");
+                    // Sliced from a cached longest-first view if there is one, else picked with a bounded heap (no full sort)
+                    List<Song> longest = currentPlaylist.getTopSongs(LONGEST_FIRST, 5);
                     System.out.println("Top 5 Longest Songs:");
-                    for (int i = 0; i < Math.min(5, all.size()); i++) {
-                        Song s = all.get(i);
+                    for (int i = 0; i < longest.size(); i++) {
+                        Song s = longest.get(i);
                         System.out.println((i + 1) + ". " + s.getTitle() + " (" + s.getDurationMs() + "ms)");
                     }
 
@@ -180,8 +233,12 @@ public class Main {
                     }
 
                     System.out.println("\nRating Counts:");
-                    songRatingTree.getSongCountByRating().forEach((r, c) ->
-                            System.out.println("Rating " + r + ": " + c + " songs"));
+                    for (int r = 1; r <= 5; r++) {
+                        long count = songRatingTree.getSongCount(r); // Live counter, no traversal
+                        if (count > 0) {
+                            System.out.println("Rating " + r + ": " + count + " songs");
+                        }
+                    }
                     break;
                 case 12:
                     System.out.print("Enter index to pin: ");
@@ -198,6 +255,50 @@ public class Main {
                 case 14:
                     currentPlaylist.generateSummary();
                     break;
+                case 15:
+                    List<Song> newSongs = catalogTail.refresh();
+                    System.out.println("Ingested " + newSongs.size() + " new songs (catalog now has " + songLookup.size() + ").");
+                    break;
+                case 16:
+                    System.out.print("Enter prefix: ");
+                    String prefix = scanner.nextLine();
+                    List<Song> completions = songPrefixIndex.complete(prefix, 10);
+                    if (!completions.isEmpty()) {
+                        for (int i = 0; i < completions.size(); i++) {
+                            Song s = completions.get(i);
+                            System.out.println((i + 1) + ". " + s.getTitle() + " by " + s.getArtist() + " (" + s.getRating() + " stars)");
+                        }
+                    } else {
+                        System.out.println("No songs start with \"" + prefix + "\".");
+                    }
+                    break;
+                case 17:
+                    System.out.print("How many songs? ");
+                    int topCount = scanner.nextInt();
+                    scanner.nextLine();
+                    List<Song> top = songScoreIndex.topK(topCount);
+                    for (int i = 0; i < top.size(); i++) {
+                        Song s = top.get(i);
+                        System.out.println((i + 1) + ". " + s.getTitle() + " by " + s.getArtist()
+                                + " (popularity " + songScoreIndex.getScore(s) + ")");
+                    }
+                    break;
+                case 18:
+                    System.out.print("Enter title or ID: ");
+                    Song toRate = songLookup.searchSong(scanner.nextLine());
+                    if (toRate == null) {
+                        System.out.println("Not found.");
+                        break;
+                    }
+                    System.out.print("Enter new rating (1-5): ");
+                    int newRating = scanner.nextInt();
+                    scanner.nextLine();
+                    if (songRatingTree.updateRating(toRate.getId(), newRating)) {
+                        System.out.println("Rated " + toRate.getTitle() + " " + newRating + " stars.");
+                    } else {
+                        System.out.println("Rating not changed.");
+                    }
+                    break;
                 case 0:
                     System.out.println("Exiting PlayWise. Goodbye!");
                     break;
@@ -0,0 +1,110 @@
+package utils;
+
+import models.Song;
+import models.SongStore;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads song data by memory-mapping the CSV file and scanning its bytes directly.
+ * Produces the same songs (and song IDs) as CSVLoader, but avoids per-line String copies,
+ * String.split and regex-based ID building, and correctly handles quoted fields
+ * (e.g. titles containing commas).
+ * The file is mapped as a sequence of windows, so files larger than one mapping (2 GB) are read the same way.
+ */
+public class MappedCSVLoader {
+    private static final long WINDOW_BYTES = 1L << 30; // Well under the 2 GB a MappedByteBuffer can address
+
+    /**
+     * Loads songs from a CSV file using a read-only memory mapping.
+     * Columns used: "SongName", "ArtistName", "Duration_ms", "Popularity"; all others are skipped
+     * without being materialized.
+     * The file is scanned through 1 GB windows; a row cut off by the end of a window is read again from
+     * the start of the next one.
+     *
+     * @param filePath The path to the CSV file (e.g., "data/SpotifySongs.csv").
+     * @return A list of Song objects.
+     * Time Complexity: O(B) where B is the file size in bytes.
+     * Space Complexity: O(R) for storing all Song objects; the file itself is mapped, not copied.
+     */
+    public static List<Song> loadSongs(String filePath) {
+        return loadSongs(filePath, WINDOW_BYTES);
+    }
+
+    /**
+     * Loads songs as loadSongs does, mapping windows of the given size (rows must fit in one window).
+     * Time Complexity: O(B) where B is the file size in bytes.
+     * Space Complexity: O(R) for storing all Song objects.
+     */
+    static List<Song> loadSongs(String filePath, long windowBytes) {
+        List<Song> songs = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize == 0) {
+                System.err.println("CSV file is empty: " + filePath);
+                return songs;
+            }
+
+            MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, Integer.MAX_VALUE));
+            CSVByteScanner.Layout layout = CSVByteScanner.readHeader(head);
+            if (layout == null) {
+                System.err.println("CSV file missing one or more required columns for Song object: SongName, ArtistName, Duration_ms, Popularity.");
+                return songs;
+            }
+
+            long idCounter = 1;
+            long pos = layout.dataStart;
+            while (pos < fileSize) {
+                long windowEnd = Math.min(fileSize, pos + windowBytes);
+                boolean last = (windowEnd == fileSize);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, windowEnd - pos);
+                CSVByteScanner.RowBatch batch = new CSVByteScanner.RowBatch();
+                int stop = CSVByteScanner.scanRows(window, 0, (int) (windowEnd - pos), layout, batch, last);
+                for (int i = 0; i < batch.size; i++) {
+                    songs.add(toSong(batch, i, idCounter++));
+                }
+                if (stop == 0 && !last) {
+                    System.err.println("Row at byte " + pos + " does not end within " + windowBytes
+                            + " bytes (unterminated quote?); skipping the rest of " + filePath);
+                    break;
+                }
+                pos += stop;
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading CSV file at " + filePath + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        return songs;
+    }
+
+    /**
+     * Builds the Song for row i of a parsed batch.
+     * Time Complexity: O(T + A) for building the ID.
+     * Space Complexity: O(T + A).
+     */
+    static Song toSong(CSVByteScanner.RowBatch batch, int i, long idCounter) {
+        String title = batch.titles[i];
+        String artist = batch.artistName(i);
+        int rating = CSVLoader.popularityToRating(batch.popularity[i]);
+        String songId = CSVByteScanner.buildSongId(title, artist, idCounter);
+        return new Song(songId, title, artist, batch.durations[i], rating, batch.popularity[i]);
+    }
+
+    /**
+     * Appends row i of a parsed batch to a columnar store.
+     * Time Complexity: O(T + A) for building the ID and copying text into the store.
+     * Space Complexity: O(T + A) arena bytes.
+     * @return The ordinal of the appended song.
+     */
+    static int appendTo(SongStore store, CSVByteScanner.RowBatch batch, int i, long idCounter) {
+        String title = batch.titles[i];
+        int rating = CSVLoader.popularityToRating(batch.popularity[i]);
+        String songId = CSVByteScanner.buildSongId(title, batch.artistName(i), idCounter);
+        return store.add(songId, title, batch.globalArtistId(i), batch.durations[i], rating, batch.popularity[i]);
+    }
+}
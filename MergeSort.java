@@ -1,6 +1,7 @@
 package sorting;
 
 import models.Song;
+import models.SongStore;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -8,6 +9,7 @@ import java.util.List;
 /**
  * [cite_start]Implements the Merge Sort algorithm for sorting a list of Songs. [cite: 56]
  * [cite_start]Allows sorting based on song title (alphabetical), duration (ascending/descending). [cite: 51, 52]
+ * Any SortSpec works too, including composite keys, rating, popularity and recently added.
  * Time and Space complexities are annotated.
  */
 public class MergeSort implements Sorter {
@@ -17,26 +19,66 @@ public class MergeSort implements Sorter {
      * Time Complexity: O(N log N)
      * Space Complexity: O(N) due to temporary lists created during merge.
      * @param songs The list of songs to sort.
-     * @param criteria The sorting criteria: "title", "duration_asc", "duration_desc".
+     * @param spec The sort order; the comparator is built once per sort, not per merge.
      */
     @Override
-    public void sort(List<Song> songs, String criteria) {
+    public void sort(List<Song> songs, SortSpec spec) {
         if (songs == null || songs.size() <= 1) {
             return;
         }
-        mergeSort(songs, 0, songs.size() - 1, criteria);
+        mergeSort(songs, 0, songs.size() - 1, spec.comparator());
     }
 
-    private void mergeSort(List<Song> songs, int left, int right, String criteria) {
+    /**
+     * Sorts song ordinals of a columnar SongStore in place, comparing column values directly
+     * instead of going through Song objects. Uses a single scratch buffer for all merges.
+     * Time Complexity: O(N log N)
+     * Space Complexity: O(N) for the scratch buffer.
+     * @param ordinals The ordinals to sort.
+     * @param store The store the ordinals refer to.
+     * @param spec The sort order.
+     */
+    public void sortOrdinals(int[] ordinals, SongStore store, SortSpec spec) {
+        if (ordinals == null || ordinals.length <= 1) {
+            return;
+        }
+        SortSpec.OrdinalComparator comparator = spec.ordinalComparator(store);
+        int[] scratch = new int[ordinals.length];
+        mergeSortOrdinals(ordinals, scratch, 0, ordinals.length - 1, comparator);
+    }
+
+    private void mergeSortOrdinals(int[] a, int[] scratch, int left, int right, SortSpec.OrdinalComparator comparator) {
+        if (left < right) {
+            int mid = (left + right) >>> 1;
+            mergeSortOrdinals(a, scratch, left, mid, comparator);
+            mergeSortOrdinals(a, scratch, mid + 1, right, comparator);
+            if (comparator.compare(a[mid], a[mid + 1]) <= 0) {
+                return; // Halves are already in order
+            }
+            System.arraycopy(a, left, scratch, left, right - left + 1);
+            int i = left, j = mid + 1, k = left;
+            while (i <= mid && j <= right) {
+                a[k++] = (comparator.compare(scratch[i], scratch[j]) <= 0) ? scratch[i++] : scratch[j++];
+            }
+            while (i <= mid) {
+                a[k++] = scratch[i++];
+            }
+            while (j <= right) {
+                a[k++] = scratch[j++];
+            }
+        }
+    }
+
+    private void mergeSort(List<Song> songs, int left, int right, Comparator<Song> comparator) {
         if (left < right) {
             int mid = (left + right) / 2;
-            mergeSort(songs, left, mid, criteria);
-            mergeSort(songs, mid + 1, right, criteria);
-            merge(songs, left, mid, right, criteria);
+            mergeSort(songs, left, mid, comparator);
+            mergeSort(songs, mid + 1, right, comparator);
+            merge(songs, left, mid, right, comparator);
         }
     }
 
-    private void merge(List<Song> songs, int left, int mid, int right, String criteria) {
+    private void merge(List<Song> songs, int left, int mid, int right, Comparator<Song> comparator) {
         int n1 = mid - left + 1;
         int n2 = right - mid;
 
@@ -53,8 +95,6 @@ public class MergeSort implements Sorter {
         int i = 0, j = 0;
         int k = left;
 
-        Comparator<Song> comparator = getComparator(criteria);
-
         while (i < n1 && j < n2) {
             if (comparator.compare(L.get(i), R.get(j)) <= 0) {
                 songs.set(k, L.get(i));
@@ -78,25 +118,4 @@ public class MergeSort implements Sorter {
             k++;
         }
     }
-
-    /**
-     * Returns a Comparator based on the given criteria.
-     * Time Complexity: O(1)
-     * Space Complexity: O(1)
-     * @param criteria The sorting criterion.
-     * @return A Comparator for Song objects.
-     */
-    private Comparator<Song> getComparator(String criteria) {
-        switch (criteria) {
-            case "title":
-                return Comparator.comparing(Song::getTitle, String.CASE_INSENSITIVE_ORDER);
-            case "duration_asc":
-                return Comparator.comparingLong(Song::getDurationMs);
-            case "duration_desc":
-                return Comparator.comparingLong(Song::getDurationMs).reversed();
-            // Add more criteria if needed, e.g., "recently_added" would require an "addedTimestamp" in Song.java
-            default:
-                throw new IllegalArgumentException("Unsupported sorting criteria: " + criteria);
-        }
-    }
 }
\ No newline at end of file
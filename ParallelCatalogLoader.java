@@ -0,0 +1,292 @@
+package utils;
+
+import models.Song;
+import models.SongStore;
+import ratings.SongRatingTree;
+import search.PrimitiveSongHashMap;
+import search.SongHashMap;
+import search.SongLookup;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Loads the song catalog and builds its indexes in parallel.
+ * The CSV is split into newline-aligned byte ranges, each mapped as its own region and parsed on a ForkJoinPool,
+ * so files of any size are read without one mapping having to cover the whole file.
+ * Once every chunk's row count is known, song IDs are assigned from the same running counter as
+ * the sequential loaders, so the result is identical to loading on one thread.
+ * Each chunk fills its own columnar SongStore in parallel; the parts are then concatenated with bulk copies
+ * in ID order (ordinal = ID - 1), and the lookup and rating tree are built in bulk from the whole array of views.
+ * With the PRIMITIVE lookup type, the lookup is a PrimitiveSongHashMap filled straight from the store's ordinals.
+ */
+public class ParallelCatalogLoader {
+    private static final int MIN_CHUNK_BYTES = 1 << 20;   // Below this, splitting costs more than it saves
+    private static final long MAX_CHUNK_BYTES = 1L << 28; // Keeps every mapped region well under 2 GB
+    private static final long ROW_SLACK_BYTES = 1L << 24; // Mapped past a chunk's end so its last row can finish
+    private static final long MAX_WINDOW_BYTES = Integer.MAX_VALUE; // Largest region a MappedByteBuffer can address
+    private static final int CHUNKS_PER_THREAD = 4;       // Extra chunks to balance uneven rows
+
+    /**
+     * Loads the catalog using the common ForkJoinPool.
+     * @param filePath The path to the CSV file.
+     * @return The loaded catalog, empty if the file could not be read.
+     */
+    public static Catalog load(String filePath) {
+        return load(filePath, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Loads the catalog with a SongHashMap lookup, parsing and indexing on the given pool.
+     * @param filePath The path to the CSV file.
+     * @param pool The pool to run parsing and partial indexing on.
+     * @return The loaded catalog, empty if the file could not be read.
+     */
+    public static Catalog load(String filePath, ForkJoinPool pool) {
+        return load(filePath, pool, Catalog.LookupType.HASH_MAP);
+    }
+
+    /**
+     * Loads the catalog, parsing and indexing on the given pool.
+     * Time Complexity: O((B + N) / P + K) where B is the file size, N the number of songs, P the parallelism
+     * and K the number of chunks.
+     * Space Complexity: O(N) for the songs and indexes.
+     * @param filePath The path to the CSV file.
+     * @param pool The pool to run parsing and indexing on.
+     * @param lookupType The lookup backend to build.
+     * @return The loaded catalog, empty if the file could not be read.
+     */
+    public static Catalog load(String filePath, ForkJoinPool pool, Catalog.LookupType lookupType) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize == 0) {
+                System.err.println("CSV file is empty: " + filePath);
+                return emptyCatalog(lookupType);
+            }
+
+            MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, MAX_WINDOW_BYTES));
+            CSVByteScanner.Layout layout = CSVByteScanner.readHeader(head);
+            if (layout == null) {
+                System.err.println("CSV file missing one or more required columns for Song object: SongName, ArtistName, Duration_ms, Popularity.");
+                return emptyCatalog(lookupType);
+            }
+
+            Chunk[] chunks = split(channel, layout.dataStart, fileSize, pool.getParallelism());
+
+            // Phase 1: map and parse every chunk in parallel
+            pool.invoke(new ForEachChunk(chunks, 0, chunks.length, chunk -> chunk.parse(channel, fileSize, layout)));
+
+            // A quoted field spanning a chunk boundary makes the next chunk start mid-row, and a row cut off by the
+            // end of a chunk's region is left for the next one. Either way the next chunk does not start where this
+            // one stopped, so it is re-parsed from there.
+            long expectedStart = layout.dataStart;
+            long nextId = 1;
+            long consumedBytes = fileSize;
+            List<Chunk> parsed = new ArrayList<>(chunks.length);
+            for (Chunk chunk : chunks) {
+                if (chunk.start != expectedStart) {
+                    chunk.start = expectedStart;
+                    chunk.parse(channel, fileSize, layout);
+                }
+                if (chunk.stalled) {
+                    System.err.println("Row at byte " + chunk.start + " does not end within "
+                            + (MAX_WINDOW_BYTES >> 20) + " MB (unterminated quote?); skipping the rest of " + filePath);
+                    consumedBytes = chunk.start;
+                    break;
+                }
+                expectedStart = Math.max(chunk.consumedTo, expectedStart);
+                chunk.firstId = nextId;
+                chunk.rowCount = chunk.rows.size;
+                nextId += chunk.rows.size;
+                for (int i = 0; i < chunk.rows.size; i++) {
+                    chunk.rows.globalArtistId(i); // Interns artists in file order, as the sequential loaders do
+                }
+                parsed.add(chunk);
+            }
+            Chunk[] used = parsed.toArray(new Chunk[0]);
+
+            // Phase 2: each chunk builds IDs and encodes its rows into its own store; the parts are then bulk-copied
+            pool.invoke(new ForEachChunk(used, 0, used.length, Chunk::fill));
+            List<SongStore> parts = new ArrayList<>(used.length);
+            for (Chunk chunk : used) {
+                parts.add(chunk.part);
+                chunk.part = null;
+            }
+            SongStore store = SongStore.concat(parts, pool);
+            int total = store.size();
+
+            // Phase 3: flyweight views in ID order, then the indexes in bulk from the whole array
+            Song[] all = new Song[total];
+            pool.invoke(new ForEachChunk(used, 0, used.length, chunk -> chunk.views(store, all)));
+            SongLookup lookup;
+            if (lookupType == Catalog.LookupType.PRIMITIVE) {
+                PrimitiveSongHashMap primitive = new PrimitiveSongHashMap(store, total);
+                primitive.addRange(0, total); // Ordinals are in ID order, so titles keep their first-loaded song
+                lookup = primitive;
+            } else {
+                lookup = SongHashMap.build(all, pool);
+            }
+            SongRatingTree ratings = SongRatingTree.build(all, pool);
+            List<Song> songs = new ArrayList<>(Arrays.asList(all));
+            return new Catalog(store, songs, lookup, ratings, consumedBytes, nextId);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading CSV file at " + filePath + ": " + e.getMessage());
+            e.printStackTrace();
+            return emptyCatalog(lookupType);
+        }
+    }
+
+    /**
+     * Splits [from, to) into ranges of at most MAX_CHUNK_BYTES that each start right after a newline.
+     * Only the bytes between each nominal boundary and the next newline are read.
+     * Time Complexity: O(K * L) where K is the number of chunks and L the average row length.
+     * Space Complexity: O(K).
+     */
+    private static Chunk[] split(FileChannel channel, long from, long to, int parallelism) throws IOException {
+        long length = to - from;
+        long chunkCount = Math.max(1, Math.min(parallelism * CHUNKS_PER_THREAD, length / MIN_CHUNK_BYTES));
+        chunkCount = Math.max(chunkCount, (length + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        List<Chunk> chunks = new ArrayList<>((int) chunkCount);
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        long start = from;
+        for (long i = 1; i <= chunkCount && start < to; i++) {
+            long end = (i == chunkCount) ? to : Math.max(start, from + length / chunkCount * i);
+            end = nextRowStart(channel, end, to, probe);
+            if (end > start) {
+                chunks.add(new Chunk(start, end));
+                start = end;
+            }
+        }
+        return chunks.toArray(new Chunk[0]);
+    }
+
+    // Returns the first offset at or after pos that follows a newline (or to, if none does)
+    private static long nextRowStart(FileChannel channel, long pos, long to, ByteBuffer probe) throws IOException {
+        if (pos >= to || pos == 0) {
+            return Math.min(pos, to);
+        }
+        long at = pos - 1; // The byte before pos decides whether pos already starts a row
+        while (at < to) {
+            probe.clear();
+            int read = channel.read(probe, at);
+            if (read <= 0) {
+                return to;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return at + i + 1;
+                }
+            }
+            at += read;
+        }
+        return to;
+    }
+
+    private static Catalog emptyCatalog(Catalog.LookupType lookupType) {
+        SongStore store = new SongStore();
+        return new Catalog(store, new ArrayList<>(), newLookup(store, 0, lookupType), new SongRatingTree(), 0, 1);
+    }
+
+    private static SongLookup newLookup(SongStore store, int expectedSize, Catalog.LookupType lookupType) {
+        return (lookupType == Catalog.LookupType.PRIMITIVE)
+                ? new PrimitiveSongHashMap(store, expectedSize) : new SongHashMap(expectedSize);
+    }
+
+    /**
+     * One byte range of the file and everything built from it.
+     */
+    private static final class Chunk {
+        long start;
+        final long end;
+        long consumedTo;
+        boolean stalled; // The row at start did not end within the largest region that can be mapped
+        CSVByteScanner.RowBatch rows;
+        long firstId; // ID of the chunk's first row; its ordinal in the store is firstId - 1
+        int rowCount;
+        SongStore part;
+
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        // Maps [start, end) plus some slack for the last row, and parses the rows starting before end
+        void parse(FileChannel channel, long fileSize, CSVByteScanner.Layout layout) {
+            rows = new CSVByteScanner.RowBatch();
+            stalled = false;
+            if (start >= end) {
+                consumedTo = start;
+                return;
+            }
+            long windowEnd = Math.min(fileSize, Math.min(end + ROW_SLACK_BYTES, start + MAX_WINDOW_BYTES));
+            try {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, start, windowEnd - start);
+                int to = (int) (Math.min(end, windowEnd) - start);
+                int stop = CSVByteScanner.scanRows(window, 0, to, layout, rows, windowEnd == fileSize);
+                consumedTo = start + stop;
+                stalled = (stop == 0 && windowEnd - start == MAX_WINDOW_BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void fill() {
+            part = new SongStore(rows.size);
+            for (int i = 0; i < rows.size; i++) {
+                MappedCSVLoader.appendTo(part, rows, i, firstId + i);
+            }
+            rows = null; // Parsed columns are no longer needed
+        }
+
+        void views(SongStore store, Song[] out) {
+            int first = (int) (firstId - 1);
+            for (int i = first; i < first + rowCount; i++) {
+                out[i] = store.view(i);
+            }
+        }
+    }
+
+    private interface ChunkTask {
+        void run(Chunk chunk);
+    }
+
+    /**
+     * Runs a task over a range of chunks, splitting the range in half until one chunk remains.
+     */
+    private static final class ForEachChunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk[] chunks;
+        private final int lo;
+        private final int hi;
+        private final ChunkTask task;
+
+        ForEachChunk(Chunk[] chunks, int lo, int hi, ChunkTask task) {
+            this.chunks = chunks;
+            this.lo = lo;
+            this.hi = hi;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= 1) {
+                if (lo < hi) {
+                    task.run(chunks[lo]);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ForEachChunk(chunks, lo, mid, task), new ForEachChunk(chunks, mid, hi, task));
+        }
+    }
+}
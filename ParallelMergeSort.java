@@ -0,0 +1,188 @@
+package sorting;
+
+import models.Song;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stable merge sort that runs on a ForkJoinPool, for catalog-sized lists.
+ * Both halves are sorted in parallel, and the merge itself is split in parallel by cutting the larger
+ * run at its midpoint and binary searching the matching cut in the other run. Ranges below a threshold
+ * fall back to the JDK's sequential stable merge sort. The two arrays are used ping-pong, so each level
+ * merges from one into the other without copying back. Same ordering and stability as MergeSort.
+ * Time and Space complexities are annotated.
+ */
+public class ParallelMergeSort implements Sorter {
+    static final int SEQUENTIAL_THRESHOLD = 1 << 13; // Below this, forking costs more than it saves
+
+    private final ForkJoinPool pool;
+
+    public ParallelMergeSort() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a sorter that runs its tasks on the given pool.
+     * @param pool The pool to sort on.
+     */
+    public ParallelMergeSort(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sorts the songs by the spec.
+     * Time Complexity: O(N log N) work, O(log^3 N) span, so roughly O(N log N / P) on P cores.
+     * Space Complexity: O(N) for the two working arrays.
+     * @param songs The list of songs to sort.
+     * @param spec The sort order.
+     */
+    @Override
+    public void sort(List<Song> songs, SortSpec spec) {
+        if (songs == null || songs.size() <= 1) {
+            return;
+        }
+        Comparator<Song> comparator = spec.comparator();
+        Song[] a = songs.toArray(new Song[0]);
+        if (a.length <= SEQUENTIAL_THRESHOLD) {
+            Arrays.sort(a, comparator);
+        } else {
+            Song[] b = new Song[a.length];
+            pool.invoke(new SortTask(a, b, 0, a.length, false, comparator));
+        }
+        ListIterator<Song> it = songs.listIterator();
+        for (Song song : a) {
+            it.next();
+            it.set(song);
+        }
+    }
+
+    /**
+     * Sorts a[lo, hi); the result ends up in b if intoB, otherwise in a.
+     */
+    private static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Song[] a;
+        private final Song[] b;
+        private final int lo;
+        private final int hi;
+        private final boolean intoB;
+        private final Comparator<Song> comparator;
+
+        SortTask(Song[] a, Song[] b, int lo, int hi, boolean intoB, Comparator<Song> comparator) {
+            this.a = a;
+            this.b = b;
+            this.lo = lo;
+            this.hi = hi;
+            this.intoB = intoB;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= SEQUENTIAL_THRESHOLD) {
+                Arrays.sort(a, lo, hi, comparator);
+                if (intoB) {
+                    System.arraycopy(a, lo, b, lo, hi - lo);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            // Sort both halves into the other array, then merge them into the target
+            invokeAll(new SortTask(a, b, lo, mid, !intoB, comparator),
+                    new SortTask(a, b, mid, hi, !intoB, comparator));
+            Song[] src = intoB ? a : b;
+            Song[] dst = intoB ? b : a;
+            new MergeTask(src, lo, mid, mid, hi, dst, lo, comparator).compute();
+        }
+    }
+
+    /**
+     * Merges the sorted runs src[lo1, hi1) and src[lo2, hi2) into dst starting at out.
+     * Ties go to the first run, which keeps the sort stable.
+     */
+    private static final class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Song[] src;
+        private final int lo1, hi1, lo2, hi2;
+        private final Song[] dst;
+        private final int out;
+        private final Comparator<Song> comparator;
+
+        MergeTask(Song[] src, int lo1, int hi1, int lo2, int hi2, Song[] dst, int out, Comparator<Song> comparator) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.out = out;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1;
+            int n2 = hi2 - lo2;
+            if (n1 + n2 <= SEQUENTIAL_THRESHOLD) {
+                mergeSequential();
+                return;
+            }
+            int cut1, cut2;
+            if (n1 >= n2) {
+                cut1 = (lo1 + hi1) >>> 1;
+                cut2 = lowerBound(src, lo2, hi2, src[cut1]); // Second-run songs equal to the pivot stay after it
+            } else {
+                cut2 = (lo2 + hi2) >>> 1;
+                cut1 = upperBound(src, lo1, hi1, src[cut2]); // First-run songs equal to the pivot stay before it
+            }
+            int split = out + (cut1 - lo1) + (cut2 - lo2);
+            invokeAll(new MergeTask(src, lo1, cut1, lo2, cut2, dst, out, comparator),
+                    new MergeTask(src, cut1, hi1, cut2, hi2, dst, split, comparator));
+        }
+
+        private void mergeSequential() {
+            int i = lo1, j = lo2, k = out;
+            while (i < hi1 && j < hi2) {
+                dst[k++] = (comparator.compare(src[i], src[j]) <= 0) ? src[i++] : src[j++];
+            }
+            while (i < hi1) {
+                dst[k++] = src[i++];
+            }
+            while (j < hi2) {
+                dst[k++] = src[j++];
+            }
+        }
+
+        // First index in [lo, hi) whose song is not less than the key
+        private int lowerBound(Song[] a, int lo, int hi, Song key) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (comparator.compare(a[mid], key) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // First index in [lo, hi) whose song is greater than the key
+        private int upperBound(Song[] a, int lo, int hi, Song key) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (comparator.compare(a[mid], key) <= 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
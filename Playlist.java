@@ -1,19 +1,46 @@
 package playlist;
 
 import models.Song;
+import sorting.ParallelMergeSort;
+import sorting.PrimitiveKeySort;
+import sorting.SortKey;
+import sorting.SortSpec;
+import sorting.Sorter;
+import sorting.TopKSelector;
 import java.util.*;
+import java.util.stream.StreamSupport;
 
 public class Playlist {
-    private DoublyLinkedList<Song> songs;
+    private TreapList<Song> songs; // Indexed by position: get/delete/move are O(log N)
     private Map<Integer, Song> pinnedPositions; // position -> Song
+    // Sorted copies of the playlist, each equal to a stable sort of the current order; least recently used dropped first
+    private Map<SortSpec, List<Song>> sortedViews;
+    private final Sorter sorter = new PrimitiveKeySort(); // Reuses its key buffers across sorts
+    private final Sorter parallelSorter = new ParallelMergeSort(); // For playlists large enough to pay for forking
+    private final TopKSelector topKSelector = new TopKSelector();
+
+    private static final int MAX_SORTED_VIEWS = 4;
+    private static final int PARALLEL_SUMMARY_THRESHOLD = 1 << 14; // Smaller playlists summarize faster on one thread
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 16; // Smaller playlists sort faster on primitive keys
 
     public Playlist() {
-        this.songs = new DoublyLinkedList<>();
+        this.songs = new TreapList<>();
         this.pinnedPositions = new HashMap<>();
+        this.sortedViews = new LinkedHashMap<SortSpec, List<Song>>(8, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SortSpec, List<Song>> eldest) {
+                return size() > MAX_SORTED_VIEWS;
+            }
+        };
     }
 
     public void addSong(Song song) {
         songs.addLast(song);
+        for (Map.Entry<SortSpec, List<Song>> view : sortedViews.entrySet()) {
+            List<Song> sorted = view.getValue();
+            // The new song is last in playlist order, so it goes after every equal song
+            sorted.add(upperBound(sorted, song, view.getKey().comparator()), song);
+        }
     }
 
     public void deleteSong(int index) {
@@ -21,6 +48,13 @@ public class Playlist {
             Song removed = songs.get(index);
             pinnedPositions.values().remove(removed); // Remove from pinned if present
             songs.delete(index);
+            Iterator<Map.Entry<SortSpec, List<Song>>> views = sortedViews.entrySet().iterator();
+            while (views.hasNext()) {
+                Map.Entry<SortSpec, List<Song>> view = views.next();
+                if (!removeFromView(view.getValue(), removed, index, view.getKey().comparator())) {
+                    views.remove(); // Key changed without notice; rebuild on next read
+                }
+            }
         } else {
             System.out.println("Invalid index for deletion.");
         }
@@ -30,6 +64,7 @@ public class Playlist {
         if (fromIndex >= 0 && fromIndex < songs.getSize() &&
             toIndex >= 0 && toIndex < songs.getSize()) {
             songs.move(fromIndex, toIndex);
+            sortedViews.clear(); // Ties keep playlist order, which just changed
         } else {
             System.out.println("Invalid indices for move operation.");
         }
@@ -37,6 +72,7 @@ public class Playlist {
 
     public void reversePlaylist() {
         songs.reverse();
+        sortedViews.clear();
     }
 
     public void displayPlaylist() {
@@ -45,10 +81,11 @@ public class Playlist {
             return;
         }
         System.out.println("\n--- Current Playlist ---");
-        for (int i = 0; i < songs.getSize(); i++) {
-            Song song = songs.get(i);
+        int i = 0;
+        for (Song song : songs) { // In-order walk, not get(i) per row
             String pinInfo = pinnedPositions.containsKey(i) ? " (Pinned)" : "";
             System.out.println((i + 1) + ". " + song.getTitle() + " by " + song.getArtist() + pinInfo);
+            i++;
         }
         System.out.println("------------------------");
     }
@@ -71,6 +108,139 @@ public class Playlist {
     public void clear() {
         songs.clear();
         pinnedPositions.clear();
+        sortedViews.clear();
+    }
+
+    /**
+     * Returns the playlist sorted by the spec, as a read-only view. The view is cached and kept up to date
+     * by addSong and deleteSong, so repeated reads cost nothing after the first sort; moves, reversals and
+     * shuffles drop it. Ties keep playlist order. Large playlists are sorted on the common fork-join pool.
+     * Time Complexity: O(1) if cached, otherwise O(N log N).
+     * Space Complexity: O(N) per cached spec, for at most a few specs.
+     * @param spec The sort order.
+     * @return The sorted songs, valid until the playlist next changes.
+     */
+    public List<Song> getSortedView(SortSpec spec) {
+        List<Song> sorted = sortedViews.get(spec);
+        if (sorted == null) {
+            sorted = songs.toList();
+            (sorted.size() >= PARALLEL_SORT_THRESHOLD ? parallelSorter : sorter).sort(sorted, spec);
+            sortedViews.put(spec, sorted);
+        }
+        return Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * Returns the first k songs in spec order. A cached view is sliced; otherwise the songs are selected
+     * with a bounded heap in one pass, without sorting the playlist or caching a view for the spec.
+     * Time Complexity: O(k) if the spec's view is cached, otherwise O(N log k).
+     * Space Complexity: O(k).
+     * @param spec The sort order.
+     * @param k The number of songs.
+     * @return Up to k songs, in spec order.
+     */
+    public List<Song> getTopSongs(SortSpec spec, int k) {
+        List<Song> sorted = sortedViews.get(spec);
+        if (sorted == null) {
+            return topKSelector.select(songs, spec, k);
+        }
+        return new ArrayList<>(sorted.subList(0, Math.max(0, Math.min(k, sorted.size()))));
+    }
+
+    /**
+     * Reorders the playlist by the spec. Pins are cleared, since their positions no longer hold the same songs.
+     * The spec's view stays cached (the new order is already sorted); views for other specs are dropped.
+     * Time Complexity: O(N) if the spec's view is cached, otherwise O(N log N).
+     * Space Complexity: O(N).
+     * @param spec The sort order.
+     */
+    public void sortBy(SortSpec spec) {
+        List<Song> sorted = new ArrayList<>(getSortedView(spec));
+        songs.clear();
+        for (Song song : sorted) {
+            songs.addLast(song);
+        }
+        pinnedPositions.clear();
+        sortedViews.clear();
+        sortedViews.put(spec, sorted);
+    }
+
+    /**
+     * Drops cached views ordered by a key whose value changed for some song, e.g. after a rating update.
+     * Time Complexity: O(V * K) for V cached views of K keys.
+     * Space Complexity: O(1).
+     * @param key The key that changed.
+     */
+    public void invalidateSortedViews(SortKey key) {
+        Iterator<SortSpec> specs = sortedViews.keySet().iterator();
+        while (specs.hasNext()) {
+            SortSpec spec = specs.next();
+            for (int i = 0; i < spec.size(); i++) {
+                if (spec.key(i) == key) {
+                    specs.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    // First position in the sorted list whose song is greater than the given one
+    private static int upperBound(List<Song> sorted, Song song, Comparator<Song> comparator) {
+        int lo = 0, hi = sorted.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparator.compare(sorted.get(mid), song) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Removes the song deleted from playlist position index out of its run of equal songs;
+    // false if it is not where its key says it should be
+    private boolean removeFromView(List<Song> sorted, Song song, int index, Comparator<Song> comparator) {
+        int lo = 0, hi = sorted.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparator.compare(sorted.get(mid), song) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        int first = -1;
+        int copies = 0;
+        for (int i = lo; i < sorted.size() && comparator.compare(sorted.get(i), song) == 0; i++) {
+            if (sorted.get(i) == song) {
+                if (first < 0) {
+                    first = i;
+                }
+                copies++;
+            }
+        }
+        if (copies == 0) {
+            return false;
+        }
+        if (copies > 1) {
+            // The same song is queued more than once; copies keep playlist order, so skip the ones before index
+            int skip = 0;
+            Iterator<Song> before = songs.iterator();
+            for (int i = 0; i < index; i++) {
+                if (before.next() == song) {
+                    skip++;
+                }
+            }
+            while (skip > 0) {
+                first++;
+                if (sorted.get(first) == song) {
+                    skip--;
+                }
+            }
+        }
+        sorted.remove(first);
+        return true;
     }
 
     // ✅ Feature 1: Shuffle with Pinned Positions
@@ -83,20 +253,23 @@ public class Playlist {
     }
 
     public void shuffleWithPinned() {
-        List<Song> current = songs.toList();
-        List<Song> unpinned = new ArrayList<>();
+        int size = songs.getSize();
+        List<Song> unpinned = new ArrayList<>(size);
 
-        for (int i = 0; i < current.size(); i++) {
-            if (!pinnedPositions.containsKey(i)) {
-                unpinned.add(current.get(i));
+        int index = 0;
+        for (Song song : songs) {
+            if (!pinnedPositions.containsKey(index)) {
+                unpinned.add(song);
             }
+            index++;
         }
 
         Collections.shuffle(unpinned);
 
         songs.clear();
+        sortedViews.clear();
         int upIndex = 0;
-        for (int i = 0; i < current.size(); i++) {
+        for (int i = 0; i < size; i++) {
             if (pinnedPositions.containsKey(i)) {
                 songs.addLast(pinnedPositions.get(i));
             } else {
@@ -107,19 +280,33 @@ public class Playlist {
 
     // ✅ Feature 2: Playlist Summary Generator
     public void generateSummary() {
-        List<Song> list = songs.toList();
-        int totalDuration = 0;
-        Set<String> artists = new HashSet<>();
-
-        for (Song s : list) {
-            totalDuration += s.getDurationMs();
-            artists.add(s.getArtist());
-        }
+        // Streams straight off the list's spliterator; large playlists are summed in parallel
+        Summary summary = StreamSupport.stream(songs.spliterator(), songs.getSize() >= PARALLEL_SUMMARY_THRESHOLD)
+                .collect(Summary::new, Summary::add, Summary::combine);
 
         System.out.println("\n--- Playlist Summary ---");
-        System.out.println("Total Songs: " + list.size());
-        System.out.printf("Total Playtime: %.2f minutes\n", totalDuration / 60000.0);
-        System.out.println("Unique Artists: " + artists.size());
+        System.out.println("Total Songs: " + summary.songCount);
+        System.out.printf("Total Playtime: %.2f minutes\n", summary.totalDurationMs / 60000.0);
+        System.out.println("Unique Artists: " + summary.artists.cardinality());
         System.out.println("Genre information not available.\n--------------------------");
     }
+
+    // Running totals for generateSummary; one per stream partition, combined at the end
+    private static final class Summary {
+        long songCount;
+        long totalDurationMs;
+        final BitSet artists = new BitSet(); // Distinct artist IDs
+
+        void add(Song song) {
+            songCount++;
+            totalDurationMs += song.getDurationMs();
+            artists.set(song.getArtistId());
+        }
+
+        void combine(Summary other) {
+            songCount += other.songCount;
+            totalDurationMs += other.totalDurationMs;
+            artists.or(other.artists);
+        }
+    }
 }
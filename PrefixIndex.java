@@ -0,0 +1,302 @@
+package search;
+
+import models.Song;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prefix (autocomplete) index over normalized song titles and artist names, built as a compressed radix trie.
+ * Every node caches the best few songs of its subtree (highest rating first), so the top completions
+ * for a prefix are found by walking the prefix and reading that cache.
+ * Kept in sync with a SongHashMap by attaching it as a SecondaryIndex.
+ * Space Complexity: O(K) nodes for K distinct key characters after compression, plus O(CACHE_K) per node.
+ */
+public class PrefixIndex implements SecondaryIndex {
+    static final int CACHE_K = 10; // Completions served straight from node caches
+
+    // Highest rating first, then title, so equally rated songs come out alphabetically
+    private static final Comparator<Song> RANKING = Comparator.comparingInt(Song::getRating).reversed()
+            .thenComparing(Song::getTitle, String.CASE_INSENSITIVE_ORDER);
+
+    private final Node root = new Node("");
+
+    /**
+     * Indexes a song under its title and its artist name.
+     * Time Complexity: O(L * log CACHE_K) for key length L (cache updates along the path).
+     * Space Complexity: O(L) in the worst case for new nodes.
+     * @param song The song to index.
+     */
+    @Override
+    public void add(Song song) {
+        String title = normalize(song.getTitle());
+        String artist = normalize(song.getArtist());
+        insert(title, song);
+        if (!artist.equals(title)) {
+            insert(artist, song);
+        }
+    }
+
+    /**
+     * Removes a song from the index. Songs are matched by ID (Song.equals), so any object for the song removes
+     * the indexed one, e.g. a view passed by a rating listener for a song indexed as another object.
+     * Caches holding it are recomputed lazily on the next query.
+     * Time Complexity: O(L + S) for key length L and S songs sharing the exact key.
+     * Space Complexity: O(1).
+     * @param song The song to remove.
+     */
+    @Override
+    public void remove(Song song) {
+        String title = normalize(song.getTitle());
+        String artist = normalize(song.getArtist());
+        delete(title, song);
+        if (!artist.equals(title)) {
+            delete(artist, song);
+        }
+    }
+
+    /**
+     * Returns the top-k songs whose normalized title or artist starts with the prefix, highest rating first.
+     * Time Complexity: O(P + k) for prefix length P when k <= CACHE_K (plus lazy cache repair after removals),
+     * O(P + S log S) for a larger k where S is the number of songs under the prefix.
+     * Space Complexity: O(k), or O(S) for a larger k.
+     * @param prefix The typed prefix (case-insensitive).
+     * @param k The maximum number of completions.
+     * @return The completions, best first.
+     */
+    public List<Song> complete(String prefix, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        Node node = find(normalize(prefix));
+        if (node == null) {
+            return new ArrayList<>();
+        }
+        if (k <= CACHE_K) {
+            ensureClean(node);
+            List<Song> result = new ArrayList<>(Math.min(k, node.topSize));
+            for (int i = 0; i < node.topSize && i < k; i++) {
+                result.add(node.top[i]);
+            }
+            return result;
+        }
+        Map<Song, Boolean> seen = new HashMap<>(); // By ID: a song is indexed under its title and its artist
+        collect(node, seen);
+        List<Song> all = new ArrayList<>(seen.keySet());
+        all.sort(RANKING);
+        return all.size() > k ? new ArrayList<>(all.subList(0, k)) : all;
+    }
+
+    private void insert(String key, Song song) {
+        Node node = root;
+        int i = 0;
+        while (true) {
+            offerTop(node, song);
+            if (i == key.length()) {
+                if (node.terminals == null) {
+                    node.terminals = new ArrayList<>(1);
+                }
+                node.terminals.add(song);
+                return;
+            }
+            char c = key.charAt(i);
+            Node child = node.child(c);
+            if (child == null) {
+                Node leaf = new Node(key.substring(i));
+                leaf.terminals = new ArrayList<>(1);
+                leaf.terminals.add(song);
+                offerTop(leaf, song);
+                node.addChild(leaf);
+                return;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge: node -> mid(label[0, common)) -> child(label[common, ...))
+                Node mid = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                mid.addChild(child);
+                mid.top = Arrays.copyOf(child.top, CACHE_K);
+                mid.topSize = child.topSize;
+                mid.dirty = child.dirty;
+                node.replaceChild(c, mid);
+                child = mid;
+            }
+            node = child;
+            i += common;
+        }
+    }
+
+    private void delete(String key, Song song) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int i = 0;
+        path.add(node);
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return;
+            }
+            i += child.label.length();
+            node = child;
+            path.add(node);
+        }
+        if (node.terminals == null || !removeById(node.terminals, song)) {
+            return;
+        }
+        for (Node n : path) {
+            if (!n.dirty && n.topIndexOf(song) >= 0) {
+                n.dirty = true;
+            }
+        }
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.child(prefix.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefix(child.label, prefix, i);
+            if (i + common == prefix.length()) {
+                return child; // Prefix ends on (or inside) this edge
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    private void offerTop(Node node, Song song) {
+        if (node.dirty || node.topIndexOf(song) >= 0) {
+            return;
+        }
+        if (node.topSize == CACHE_K && RANKING.compare(song, node.top[CACHE_K - 1]) >= 0) {
+            return;
+        }
+        int pos = node.topSize < CACHE_K ? node.topSize++ : CACHE_K - 1;
+        while (pos > 0 && RANKING.compare(song, node.top[pos - 1]) < 0) {
+            node.top[pos] = node.top[pos - 1];
+            pos--;
+        }
+        node.top[pos] = song;
+    }
+
+    // Rebuilds a dirty cache from the node's own songs and its children's (clean) caches
+    private void ensureClean(Node node) {
+        if (!node.dirty) {
+            return;
+        }
+        node.topSize = 0;
+        node.dirty = false;
+        if (node.terminals != null) {
+            for (Song song : node.terminals) {
+                offerTop(node, song);
+            }
+        }
+        for (int c = 0; c < node.childCount; c++) {
+            Node child = node.children[c];
+            ensureClean(child);
+            for (int i = 0; i < child.topSize; i++) {
+                offerTop(node, child.top[i]);
+            }
+        }
+        Arrays.fill(node.top, node.topSize, CACHE_K, null);
+    }
+
+    private void collect(Node node, Map<Song, Boolean> seen) {
+        if (node.terminals != null) {
+            for (Song song : node.terminals) {
+                seen.put(song, Boolean.TRUE);
+            }
+        }
+        for (int c = 0; c < node.childCount; c++) {
+            collect(node.children[c], seen);
+        }
+    }
+
+    private static boolean removeById(List<Song> songs, Song song) {
+        for (int i = 0; i < songs.size(); i++) {
+            if (songs.get(i).equals(song)) { // Same ID, compared without decoding
+                songs.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int n = 0;
+        while (n < max && label.charAt(n) == key.charAt(offset + n)) {
+            n++;
+        }
+        return n;
+    }
+
+    static String normalize(String s) {
+        return s.trim().toLowerCase();
+    }
+
+    /**
+     * Trie node. The label is the compressed edge leading into the node; children are kept sorted
+     * by their label's first character for binary search.
+     */
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        String label;
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        int childCount;
+        List<Song> terminals; // Songs whose key ends exactly here, null if none
+        Song[] top = new Song[CACHE_K]; // Best songs in this subtree, best first
+        int topSize;
+        boolean dirty; // top must be rebuilt before use
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, 0, childCount, c);
+            return (i >= 0) ? children[i] : null;
+        }
+
+        void addChild(Node child) {
+            char c = child.label.charAt(0);
+            int i = -(Arrays.binarySearch(keys, 0, childCount, c) + 1);
+            if (childCount == keys.length) {
+                int newCapacity = Math.max(2, childCount * 2);
+                keys = Arrays.copyOf(keys, newCapacity);
+                children = Arrays.copyOf(children, newCapacity);
+            }
+            System.arraycopy(keys, i, keys, i + 1, childCount - i);
+            System.arraycopy(children, i, children, i + 1, childCount - i);
+            keys[i] = c;
+            children[i] = child;
+            childCount++;
+        }
+
+        void replaceChild(char c, Node child) {
+            children[Arrays.binarySearch(keys, 0, childCount, c)] = child;
+        }
+
+        int topIndexOf(Song song) {
+            for (int i = 0; i < topSize; i++) {
+                if (top[i].equals(song)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package sorting;
+
+import models.ArtistDictionary;
+import models.Song;
+import models.SongStore;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorter that extracts each song's sort key once into primitive arrays and then merge sorts
+ * an int[] of positions, instead of calling getters and a Comparator on every comparison.
+ * Keys are grouped into segments that are compared in order:
+ * - consecutive numeric keys (duration, rating, popularity, added, and artist via its collation rank)
+ *   are offset to their minimum and bit-packed into one long, so e.g. "artist, rating desc" costs
+ *   a single long comparison; artists use the collation ranks cached by the ArtistDictionary;
+ * - a title becomes a case-folded collation key (the first four folded characters packed into a long,
+ *   with the full folded text in a shared char[] for ties). Titles of SongStore views are read
+ *   straight from the store's bytes when they are ASCII.
+ * Same ordering and stability as MergeSort. All buffers are kept and reused between sorts,
+ * so a sort allocates little once they are large enough. Not thread-safe.
+ * Time and Space complexities are annotated.
+ */
+public class PrimitiveKeySort implements Sorter {
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    // Segment s compares segmentKeys[s] unsigned, then (for text) the folded titles
+    private long[][] segmentKeys = new long[0][];
+    private boolean[] segmentText = new boolean[0];
+    private boolean[] segmentDescending = new boolean[0]; // Only used by text segments
+    private char[][] segmentChars = new char[0][]; // Folded titles, back to back
+    private int[][] segmentOffsets = new int[0][]; // Title of position i spans [offsets[i], offsets[i + 1])
+    private int segmentCount;
+
+    private long[] raw = new long[0];
+    private int[] order = new int[0];
+    private int[] scratch = new int[0];
+    private Song[] buffer = new Song[0];
+
+    /**
+     * Sorts the songs by the spec.
+     * Time Complexity: O(N log N) comparisons of primitive keys, plus O(C) to fold C title characters
+     * and, when sorting by artist after new artists were added, O(A log A) to re-rank the A artists.
+     * Space Complexity: O(K * N + C) in reused buffers for K segments.
+     * @param songs The list of songs to sort.
+     * @param spec The sort order.
+     */
+    @Override
+    public void sort(List<Song> songs, SortSpec spec) {
+        if (songs == null || songs.size() <= 1) {
+            return;
+        }
+        int n = songs.size();
+        ensureCapacity(n);
+        extractKeys(songs, spec, n);
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        mergeSort(0, n - 1);
+
+        for (int i = 0; i < n; i++) {
+            buffer[i] = songs.get(i);
+        }
+        for (int i = 0; i < n; i++) {
+            songs.set(i, buffer[order[i]]);
+        }
+        Arrays.fill(buffer, 0, n, null); // Do not keep songs reachable between sorts
+    }
+
+    private void extractKeys(List<Song> songs, SortSpec spec, int n) {
+        segmentCount = 0;
+        int bitsUsed = 64; // Bits filled in the current numeric segment; 64 forces a new one
+        int[] artistRanks = null;
+        for (int k = 0; k < spec.size(); k++) {
+            SortKey key = spec.key(k);
+            boolean desc = spec.isDescending(k);
+            if (key == SortKey.TITLE) {
+                extractTitles(songs, n, desc);
+                bitsUsed = 64;
+                continue;
+            }
+            if (key == SortKey.ARTIST && artistRanks == null) {
+                artistRanks = ArtistDictionary.global().collationRanks();
+            }
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                long v = numericKey(songs.get(i), key, artistRanks);
+                raw[i] = v;
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+            int bits = 64 - Long.numberOfLeadingZeros(max - min); // Range as unsigned
+            if (bits == 0) {
+                continue; // Every song has the same value, nothing to compare
+            }
+            if (bitsUsed + bits > 64) {
+                newSegment(false, false, n);
+                bitsUsed = 0;
+            }
+            long[] keys = segmentKeys[segmentCount - 1];
+            for (int i = 0; i < n; i++) {
+                long v = desc ? max - raw[i] : raw[i] - min;
+                keys[i] = (bitsUsed == 0) ? v : (keys[i] << bits) | v;
+            }
+            bitsUsed += bits;
+        }
+    }
+
+    private void extractTitles(List<Song> songs, int n, boolean desc) {
+        newSegment(true, desc, n);
+        int s = segmentCount - 1;
+        long[] keys = segmentKeys[s];
+        int[] offsets = segmentOffsets[s];
+        char[] text = segmentChars[s];
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            Song song = songs.get(i);
+            SongStore store = song.getStore();
+            int titleLength = -1;
+            if (store != null) {
+                text = ensureChars(text, length + store.getTitleByteLength(song.getOrdinal()));
+                titleLength = store.copyAsciiTitle(song.getOrdinal(), text, length);
+            }
+            if (titleLength < 0) {
+                String title = song.getTitle(); // Standalone song, or a non-ASCII title
+                text = ensureChars(text, length + title.length());
+                title.getChars(0, title.length(), text, length);
+                titleLength = title.length();
+            }
+            long prefix = 0;
+            for (int c = 0; c < titleLength; c++) {
+                char folded = fold(text[length + c]);
+                text[length + c] = folded;
+                if (c < 4) {
+                    prefix |= (long) folded << (48 - 16 * c);
+                }
+            }
+            keys[i] = prefix;
+            length += titleLength;
+            offsets[i + 1] = length;
+        }
+        segmentChars[s] = text;
+    }
+
+    private static long numericKey(Song song, SortKey key, int[] artistRanks) {
+        switch (key) {
+            case ARTIST:
+                return artistRanks[song.getArtistId()];
+            case DURATION:
+                return song.getDurationMs();
+            case RATING:
+                return song.getRating();
+            case POPULARITY:
+                return song.getPopularity();
+            case ADDED:
+                return song.getAddedSeq();
+            default:
+                throw new IllegalArgumentException("Unsupported sort key: " + key);
+        }
+    }
+
+    private static char[] ensureChars(char[] text, int required) {
+        return (required <= text.length) ? text : Arrays.copyOf(text, Math.max(text.length * 2, required));
+    }
+
+    private void mergeSort(int left, int right) {
+        if (right - left < INSERTION_SORT_THRESHOLD) {
+            insertionSort(left, right);
+            return;
+        }
+        int mid = (left + right) >>> 1;
+        mergeSort(left, mid);
+        mergeSort(mid + 1, right);
+        if (compare(order[mid], order[mid + 1]) <= 0) {
+            return; // Halves are already in order
+        }
+        System.arraycopy(order, left, scratch, left, right - left + 1);
+        int i = left, j = mid + 1, k = left;
+        while (i <= mid && j <= right) {
+            order[k++] = (compare(scratch[i], scratch[j]) <= 0) ? scratch[i++] : scratch[j++];
+        }
+        while (i <= mid) {
+            order[k++] = scratch[i++];
+        }
+        while (j <= right) {
+            order[k++] = scratch[j++];
+        }
+    }
+
+    private void insertionSort(int left, int right) {
+        for (int i = left + 1; i <= right; i++) {
+            int current = order[i];
+            int j = i - 1;
+            while (j >= left && compare(order[j], current) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+    }
+
+    private int compare(int a, int b) {
+        for (int s = 0; s < segmentCount; s++) {
+            long[] keys = segmentKeys[s];
+            int c = Long.compareUnsigned(keys[a], keys[b]);
+            if (segmentText[s]) {
+                if (c == 0) {
+                    c = compareText(s, a, b); // Same first four characters: compare the rest
+                }
+                if (segmentDescending[s]) {
+                    c = -c;
+                }
+            }
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    private int compareText(int s, int a, int b) {
+        char[] text = segmentChars[s];
+        int[] offsets = segmentOffsets[s];
+        int i = offsets[a], endA = offsets[a + 1];
+        int j = offsets[b], endB = offsets[b + 1];
+        for (; i < endA && j < endB; i++, j++) {
+            if (text[i] != text[j]) {
+                return text[i] - text[j];
+            }
+        }
+        return (endA - offsets[a]) - (endB - offsets[b]);
+    }
+
+    // Same folding as String.CASE_INSENSITIVE_ORDER, so titles order identically
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private void newSegment(boolean text, boolean descending, int n) {
+        int s = segmentCount++;
+        if (s == segmentKeys.length) {
+            segmentKeys = Arrays.copyOf(segmentKeys, s + 1);
+            segmentText = Arrays.copyOf(segmentText, s + 1);
+            segmentDescending = Arrays.copyOf(segmentDescending, s + 1);
+            segmentChars = Arrays.copyOf(segmentChars, s + 1);
+            segmentOffsets = Arrays.copyOf(segmentOffsets, s + 1);
+        }
+        if (segmentKeys[s] == null || segmentKeys[s].length < n) {
+            segmentKeys[s] = new long[n];
+        }
+        if (text) {
+            if (segmentOffsets[s] == null || segmentOffsets[s].length < n + 1) {
+                segmentOffsets[s] = new int[n + 1];
+            }
+            if (segmentChars[s] == null) {
+                segmentChars[s] = new char[0];
+            }
+        }
+        segmentText[s] = text;
+        segmentDescending[s] = descending;
+    }
+
+    private void ensureCapacity(int n) {
+        if (raw.length < n) {
+            raw = new long[n];
+            order = new int[n];
+            scratch = new int[n];
+            buffer = new Song[n];
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package search;
+
+import models.Song;
+import models.SongStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SongLookup over the ordinals of one columnar SongStore, backed by open-addressing hash tables over primitive arrays.
+ * The ID table holds each song's ID hash (the store's idHash column) next to its ordinal; the title table holds a
+ * case-folded title hash next to the first and last ordinal of that title's posting chain, and the chains are linked
+ * through an int[] indexed by ordinal. Both tables use linear probing with backward-shift deletion and stay at most
+ * half full, so a lookup scans contiguous int[] memory and compares the stored UTF-8 bytes only on a hash match.
+ * No per-entry objects or decoded Strings are kept; Song views are created when a lookup returns them, so repeated
+ * lookups return equal (same ID) but not identical objects.
+ * Songs from another store are appended to this store when added.
+ * Space Complexity: O(N) for N songs, about seven ints per song.
+ */
+public class PrimitiveSongHashMap implements SongLookup {
+    private static final int EMPTY = -1;
+
+    private final SongStore store;
+    private final BitSet indexed = new BitSet(); // Ordinals currently in the lookup
+    private int[] nextSameTitle; // Ordinal -> next ordinal with the same title, in insertion order
+    private final Table idTable;
+    private final Table titleTable;
+    private int size;
+    // Indexes kept in sync with every add and remove (e.g. prefix search)
+    private final List<SecondaryIndex> secondaryIndexes = new ArrayList<>();
+
+    /**
+     * Creates an empty lookup over a store.
+     * @param store The store whose songs are indexed.
+     */
+    public PrimitiveSongHashMap(SongStore store) {
+        this(store, 16);
+    }
+
+    /**
+     * Creates an empty lookup over a store, presized for the expected number of songs.
+     * @param store The store whose songs are indexed.
+     * @param expectedSize The number of songs expected to be added.
+     */
+    public PrimitiveSongHashMap(SongStore store, int expectedSize) {
+        this.store = store;
+        int capacity = Math.max(16, expectedSize);
+        this.nextSameTitle = new int[capacity];
+        this.idTable = new Table(capacity, false);
+        this.titleTable = new Table(capacity, true);
+    }
+
+    /**
+     * Adds a song. Re-adding an existing ID replaces the song indexed under it, and the new song goes to the end
+     * of its title's postings.
+     * Time Complexity: O(1) on average (O(P) if the ID replaces a song with P same-titled songs).
+     * Space Complexity: O(1) amortized.
+     * @param song The song to add.
+     */
+    @Override
+    public void addSong(Song song) {
+        int ordinal = ordinalOf(song);
+        int replaced = index(ordinal);
+        for (SecondaryIndex secondary : secondaryIndexes) {
+            if (replaced != EMPTY) {
+                secondary.remove(store.view(replaced));
+            }
+            secondary.add(store.view(ordinal));
+        }
+    }
+
+    /**
+     * Adds a batch of songs, with the same result as calling addSong for each in order.
+     * The tables are grown once up front, and secondary indexes are updated once per batch.
+     * Time Complexity: O(B) on average for B songs.
+     * Space Complexity: O(B).
+     * @param songs The songs to add, in order.
+     */
+    @Override
+    public void addAll(Collection<Song> songs) {
+        int[] ordinals = new int[songs.size()];
+        int i = 0;
+        for (Song song : songs) {
+            ordinals[i++] = ordinalOf(song);
+        }
+        addOrdinals(ordinals, 0, ordinals.length);
+    }
+
+    /**
+     * Adds the store's songs with ordinals in [fromOrdinal, toOrdinal), in ordinal order, without creating views
+     * (except for attached secondary indexes).
+     * Time Complexity: O(B) on average for B songs.
+     * Space Complexity: O(1) beyond table growth.
+     * @param fromOrdinal The first ordinal to add.
+     * @param toOrdinal One past the last ordinal to add.
+     */
+    public void addRange(int fromOrdinal, int toOrdinal) {
+        int[] ordinals = new int[toOrdinal - fromOrdinal];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = fromOrdinal + i;
+        }
+        addOrdinals(ordinals, 0, ordinals.length);
+    }
+
+    /**
+     * Removes a song by ID.
+     * Time Complexity: O(1) on average, plus O(P) for P songs sharing the title.
+     * Space Complexity: O(1).
+     * @param songId The ID of the song to remove.
+     * @return A view of the removed song, or null if not found.
+     */
+    @Override
+    public Song removeSong(String songId) {
+        int slot = findId(songId);
+        if (slot == EMPTY) {
+            return null;
+        }
+        int ordinal = idTable.heads[slot];
+        idTable.removeAt(slot);
+        unlinkTitle(ordinal);
+        indexed.clear(ordinal);
+        size--;
+        Song removed = store.view(ordinal);
+        for (SecondaryIndex secondary : secondaryIndexes) {
+            secondary.remove(removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Searches for a song by its ID or title (case-insensitive), ID first; for a title, the earliest added song.
+     * Time Complexity: O(Q) on average to hash a query of length Q.
+     * Space Complexity: O(1) besides the returned view.
+     * @param query The song ID or title to search for.
+     * @return A view of the found song, or null if not found.
+     */
+    @Override
+    public Song searchSong(String query) {
+        int slot = findId(query);
+        if (slot != EMPTY) {
+            return store.view(idTable.heads[slot]);
+        }
+        slot = findTitle(query);
+        return (slot != EMPTY) ? store.view(titleTable.heads[slot]) : null;
+    }
+
+    /**
+     * Returns every song with the given title (case-insensitive), in insertion order.
+     * Time Complexity: O(Q + P) on average for a query of length Q and P matching songs.
+     * Space Complexity: O(P) for the read-only result.
+     * @param title The title to search for.
+     * @return Views of the matching songs, or an empty list.
+     */
+    @Override
+    public List<Song> searchAllByTitle(String title) {
+        int slot = findTitle(title);
+        return (slot != EMPTY) ? chain(titleTable.heads[slot]) : Collections.emptyList();
+    }
+
+    /**
+     * Attaches an index that is kept in sync with this lookup from now on.
+     * The index is first populated with every song already stored, in ordinal order.
+     * Time Complexity: O(N) index insertions for N stored songs.
+     * Space Complexity: O(1) here; the index's own space is its concern.
+     * @param index The index to attach.
+     */
+    @Override
+    public void attachIndex(SecondaryIndex index) {
+        for (int o = indexed.nextSetBit(0); o >= 0; o = indexed.nextSetBit(o + 1)) {
+            index.add(store.view(o));
+        }
+        secondaryIndexes.add(index);
+    }
+
+    /**
+     * Returns every title's posting list.
+     * Time Complexity: O(T + P) for T distinct titles and P posting entries.
+     * Space Complexity: O(T + P) for the lists of views.
+     * @return The songs for each distinct title, in insertion order.
+     */
+    @Override
+    public Collection<List<Song>> getTitlePostings() {
+        List<List<Song>> postings = new ArrayList<>(titleTable.count);
+        for (int slot = 0; slot < titleTable.heads.length; slot++) {
+            if (titleTable.heads[slot] != EMPTY) {
+                postings.add(chain(titleTable.heads[slot]));
+            }
+        }
+        return postings;
+    }
+
+    /**
+     * Returns the number of songs stored.
+     * Time Complexity: O(1).
+     * Space Complexity: O(1).
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the store whose ordinals this lookup indexes.
+     */
+    public SongStore getStore() {
+        return store;
+    }
+
+    // Ordinal of a song in this store, appending songs that belong to another store
+    private int ordinalOf(Song song) {
+        if (song.getStore() == store) {
+            return song.getOrdinal();
+        }
+        return store.add(song.getId(), song.getTitle(), song.getArtistId(), song.getDurationMs(),
+                song.getRating(), song.getPopularity());
+    }
+
+    private void addOrdinals(int[] ordinals, int from, int to) {
+        idTable.reserve(size + (to - from));
+        titleTable.reserve(size + (to - from));
+        if (secondaryIndexes.isEmpty()) {
+            for (int i = from; i < to; i++) {
+                index(ordinals[i]);
+            }
+            return;
+        }
+        List<Song> replacedSongs = new ArrayList<>(); // Songs indexed before the batch that it replaced
+        BitSet added = new BitSet();
+        for (int i = from; i < to; i++) {
+            int replaced = index(ordinals[i]);
+            if (replaced != EMPTY && !added.get(replaced)) {
+                replacedSongs.add(store.view(replaced));
+            }
+            added.set(ordinals[i]);
+        }
+        BitSet notified = new BitSet();
+        for (SecondaryIndex secondary : secondaryIndexes) {
+            for (Song replaced : replacedSongs) {
+                secondary.remove(replaced);
+            }
+            notified.clear();
+            for (int i = from; i < to; i++) {
+                // Skips songs replaced again later in the same batch, and repeats
+                if (indexed.get(ordinals[i]) && !notified.get(ordinals[i])) {
+                    notified.set(ordinals[i]);
+                    secondary.add(store.view(ordinals[i]));
+                }
+            }
+        }
+    }
+
+    // Indexes one ordinal under its ID and title; returns the ordinal it replaced, or EMPTY
+    private int index(int ordinal) {
+        if (ordinal >= nextSameTitle.length) {
+            nextSameTitle = Arrays.copyOf(nextSameTitle, Math.max(ordinal + 1, nextSameTitle.length * 2));
+        }
+        int idHash = store.idHash(ordinal);
+        int slot = idTable.home(idHash);
+        int replaced = EMPTY;
+        for (; idTable.heads[slot] != EMPTY; slot = (slot + 1) & idTable.mask) {
+            int other = idTable.heads[slot];
+            if (idTable.hashes[slot] == idHash && store.idEquals(other, store, ordinal)) {
+                replaced = other;
+                break;
+            }
+        }
+        if (replaced != EMPTY) {
+            unlinkTitle(replaced);
+            indexed.clear(replaced);
+            idTable.heads[slot] = ordinal;
+        } else {
+            idTable.insert(idHash, ordinal, EMPTY);
+            size++;
+        }
+        indexed.set(ordinal);
+        linkTitle(ordinal);
+        return replaced;
+    }
+
+    // Appends an ordinal to its title's chain
+    private void linkTitle(int ordinal) {
+        nextSameTitle[ordinal] = EMPTY;
+        int slot = findTitle(ordinal);
+        if (slot == EMPTY) {
+            titleTable.insert(store.titleHashIgnoreCase(ordinal), ordinal, ordinal);
+        } else {
+            nextSameTitle[titleTable.tails[slot]] = ordinal;
+            titleTable.tails[slot] = ordinal;
+        }
+    }
+
+    // Removes an ordinal from its title's chain, dropping the title once its chain is empty
+    private void unlinkTitle(int ordinal) {
+        int slot = findTitle(ordinal);
+        if (slot == EMPTY) {
+            return;
+        }
+        int previous = EMPTY;
+        int current = titleTable.heads[slot];
+        while (current != ordinal) {
+            if (current == EMPTY) {
+                return;
+            }
+            previous = current;
+            current = nextSameTitle[current];
+        }
+        int next = nextSameTitle[ordinal];
+        if (previous == EMPTY) {
+            titleTable.heads[slot] = next;
+        } else {
+            nextSameTitle[previous] = next;
+        }
+        if (titleTable.tails[slot] == ordinal) {
+            titleTable.tails[slot] = previous;
+        }
+        if (titleTable.heads[slot] == EMPTY) {
+            titleTable.removeAt(slot);
+        }
+    }
+
+    private int findId(String id) {
+        int hash = id.hashCode();
+        for (int slot = idTable.home(hash); idTable.heads[slot] != EMPTY; slot = (slot + 1) & idTable.mask) {
+            if (idTable.hashes[slot] == hash && store.idEquals(idTable.heads[slot], id)) {
+                return slot;
+            }
+        }
+        return EMPTY;
+    }
+
+    private int findTitle(String title) {
+        int hash = SongStore.hashIgnoreCase(title);
+        for (int slot = titleTable.home(hash); titleTable.heads[slot] != EMPTY; slot = (slot + 1) & titleTable.mask) {
+            if (titleTable.hashes[slot] == hash && store.titleEqualsIgnoreCase(titleTable.heads[slot], title)) {
+                return slot;
+            }
+        }
+        return EMPTY;
+    }
+
+    // Slot of the title an ordinal's title belongs to
+    private int findTitle(int ordinal) {
+        int hash = store.titleHashIgnoreCase(ordinal);
+        for (int slot = titleTable.home(hash); titleTable.heads[slot] != EMPTY; slot = (slot + 1) & titleTable.mask) {
+            if (titleTable.hashes[slot] == hash && store.titleEqualsIgnoreCase(titleTable.heads[slot], ordinal)) {
+                return slot;
+            }
+        }
+        return EMPTY;
+    }
+
+    private List<Song> chain(int head) {
+        List<Song> songs = new ArrayList<>();
+        for (int o = head; o != EMPTY; o = nextSameTitle[o]) {
+            songs.add(store.view(o));
+        }
+        return Collections.unmodifiableList(songs);
+    }
+
+    /**
+     * Linear-probing table of (hash, head ordinal[, tail ordinal]) entries, kept at most half full.
+     */
+    private static final class Table {
+        int[] hashes;
+        int[] heads; // Ordinal, or EMPTY for a free slot
+        int[] tails; // Last ordinal of the chain; null for the ID table
+        int mask;
+        int count;
+        private final boolean withTails;
+
+        Table(int expectedSize, boolean withTails) {
+            this.withTails = withTails;
+            allocate(capacityFor(expectedSize));
+        }
+
+        int home(int hash) {
+            int h = hash * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        void reserve(int expectedSize) {
+            int capacity = capacityFor(expectedSize);
+            if (capacity > heads.length) {
+                rehash(capacity);
+            }
+        }
+
+        void insert(int hash, int head, int tail) {
+            if ((count + 1) * 2L > heads.length) {
+                rehash(heads.length * 2);
+            }
+            int slot = home(hash);
+            while (heads[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            heads[slot] = head;
+            if (withTails) {
+                tails[slot] = tail;
+            }
+            count++;
+        }
+
+        void removeAt(int slot) {
+            // Backward-shift deletion keeps probe chains intact without tombstones
+            int hole = slot;
+            for (int next = (hole + 1) & mask; heads[next] != EMPTY; next = (next + 1) & mask) {
+                if (((next - home(hashes[next])) & mask) >= ((next - hole) & mask)) {
+                    hashes[hole] = hashes[next];
+                    heads[hole] = heads[next];
+                    if (withTails) {
+                        tails[hole] = tails[next];
+                    }
+                    hole = next;
+                }
+            }
+            heads[hole] = EMPTY;
+            count--;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldHashes = hashes;
+            int[] oldHeads = heads;
+            int[] oldTails = tails;
+            allocate(capacity);
+            for (int i = 0; i < oldHeads.length; i++) {
+                if (oldHeads[i] != EMPTY) {
+                    int slot = home(oldHashes[i]);
+                    while (heads[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    hashes[slot] = oldHashes[i];
+                    heads[slot] = oldHeads[i];
+                    if (withTails) {
+                        tails[slot] = oldTails[i];
+                    }
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            hashes = new int[capacity];
+            heads = new int[capacity];
+            Arrays.fill(heads, EMPTY);
+            tails = withTails ? new int[capacity] : null;
+            mask = capacity - 1;
+        }
+
+        private static int capacityFor(int expectedSize) {
+            long wanted = Math.max(16L, expectedSize * 2L);
+            return (int) Math.min(1L << 30, Long.highestOneBit(wanted - 1) << 1);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ratings;
+
+import models.Song;
+
+/**
+ * Notified by SongRatingTree whenever a song's rating changes, so derived indexes and views
+ * can patch themselves instead of rescanning the catalog.
+ */
+public interface RatingChangeListener {
+    /**
+     * Called after the song has moved to its new rating bucket.
+     * @param song The song whose rating changed (already carrying the new rating).
+     * @param oldRating The previous rating (1-5).
+     * @param newRating The new rating (1-5).
+     */
+    void ratingChanged(Song song, int oldRating, int newRating);
+}
@@ -0,0 +1,352 @@
+package ratings;
+
+import models.Song;
+import models.SongIdMap;
+import search.SecondaryIndex;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Order-statistic index over fine-grained song scores (e.g. the raw 0-100 popularity, or half stars).
+ * Songs are kept in a treap ordered by score (highest first), where every node knows its subtree size,
+ * so top-k, rank-of-song and percentile queries cost O(log N) (plus k) without sorting the catalog.
+ * Songs with equal scores keep the order in which they were scored.
+ * Kept in sync with a SongHashMap by attaching it as a SecondaryIndex, and with SongRatingTree as a
+ * RatingChangeListener; per-user scores are layered on top with UserScoreOverlay.
+ * Nodes are found by song through a SongIdMap of slots into a node array, so the index keeps no ID Strings.
+ * Space Complexity: O(N) for N songs.
+ */
+public class ScoreIndex implements SecondaryIndex, RatingChangeListener {
+    private final SongIdMap nodeSlots = new SongIdMap(); // Song ID -> slot in nodes
+    private Node[] nodes = new Node[16];
+    private int[] freeSlots = new int[16]; // Stack of slots in nodes freed by removals
+    private int freeCount;
+    private int usedSlots; // Slots of nodes handed out so far
+    private final Random priorities = new Random(0x5EED);
+    private Node root;
+    private long nextSeq; // Tie-breaker: earlier scored songs rank first among equal scores
+
+    /**
+     * Indexes a song under its default score: the raw popularity when known, otherwise rating * 20
+     * (the bottom of the popularity band the star rating stands for).
+     * Time Complexity: O(log N) expected.
+     * Space Complexity: O(1).
+     * @param song The song to index.
+     */
+    @Override
+    public void add(Song song) {
+        put(song, defaultScore(song));
+    }
+
+    /**
+     * Removes a song from the index.
+     * Time Complexity: O(log N) expected.
+     * Space Complexity: O(1).
+     * @param song The song to remove.
+     */
+    @Override
+    public void remove(Song song) {
+        detach(nodeSlots.remove(song));
+    }
+
+    /**
+     * Re-scores a song whose default score comes from its star rating (no raw popularity known).
+     * Time Complexity: O(log N) expected.
+     * Space Complexity: O(1).
+     */
+    @Override
+    public void ratingChanged(Song song, int oldRating, int newRating) {
+        if (song.getPopularity() < 0 && contains(song)) {
+            put(song, defaultScore(song));
+        }
+    }
+
+    /**
+     * Sets a song's score, replacing any score it had.
+     * Time Complexity: O(log N) expected.
+     * Space Complexity: O(1).
+     * @param song The song to score.
+     * @param score The score (higher ranks first).
+     */
+    public void put(Song song, double score) {
+        Node node = new Node(song, score, nextSeq++, priorities.nextInt());
+        int slot = nodeSlots.get(song);
+        if (slot != SongIdMap.ABSENT) {
+            root = delete(root, nodes[slot]);
+        } else {
+            slot = allocateSlot();
+        }
+        nodes[slot] = node;
+        nodeSlots.put(song, slot);
+        Node[] parts = split(root, node.score, node.seq);
+        root = merge(merge(parts[0], node), parts[1]);
+    }
+
+    /**
+     * Removes a song by ID.
+     * Time Complexity: O(log N) expected.
+     * Space Complexity: O(1).
+     * @param songId The ID of the song to remove.
+     * @return true if the song was indexed.
+     */
+    public boolean remove(String songId) {
+        return detach(nodeSlots.remove(songId));
+    }
+
+    /**
+     * Returns the k highest-scored songs, best first.
+     * Time Complexity: O(log N + k).
+     * Space Complexity: O(log N + k).
+     * @param k The number of songs.
+     * @return Up to k songs.
+     */
+    public List<Song> topK(int k) {
+        List<Song> result = new ArrayList<>(Math.max(0, Math.min(k, size())));
+        Cursor cursor = cursor();
+        while (result.size() < k && cursor.hasNext()) {
+            result.add(cursor.next().song);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a song's 0-based rank (0 = highest score).
+     * Time Complexity: O(log N) expected.
+     * Space Complexity: O(1).
+     * @param songId The song ID.
+     * @return The rank, or -1 if the song is not indexed.
+     */
+    public int rank(String songId) {
+        Node target = nodeAt(nodeSlots.get(songId));
+        if (target == null) {
+            return -1;
+        }
+        int rank = 0;
+        Node node = root;
+        while (node != target) {
+            if (precedes(target, node.score, node.seq)) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank + size(node.left);
+    }
+
+    /**
+     * Returns the percentage of the other songs that this song outranks (100 = best, 0 = worst).
+     * Time Complexity: O(log N) expected.
+     * Space Complexity: O(1).
+     * @param songId The song ID.
+     * @return The percentile, or -1 if the song is not indexed.
+     */
+    public double percentile(String songId) {
+        int rank = rank(songId);
+        if (rank < 0) {
+            return -1;
+        }
+        int n = size();
+        return (n <= 1) ? 100.0 : 100.0 * (n - 1 - rank) / (n - 1);
+    }
+
+    /**
+     * Returns a song's score.
+     * Time Complexity: O(1) on average.
+     * Space Complexity: O(1).
+     * @param songId The song ID.
+     * @return The score, or NaN if the song is not indexed.
+     */
+    public double getScore(String songId) {
+        Node node = nodeAt(nodeSlots.get(songId));
+        return (node != null) ? node.score : Double.NaN;
+    }
+
+    /**
+     * Returns a song's score, looked up by the song's stored ID without decoding it.
+     * Time Complexity: O(1) on average.
+     * Space Complexity: O(1).
+     * @param song The song.
+     * @return The score, or NaN if the song is not indexed.
+     */
+    public double getScore(Song song) {
+        Node node = nodeAt(nodeSlots.get(song));
+        return (node != null) ? node.score : Double.NaN;
+    }
+
+    /**
+     * Returns whether a song is indexed.
+     * Time Complexity: O(1) on average.
+     * Space Complexity: O(1).
+     */
+    public boolean contains(String songId) {
+        return nodeSlots.containsKey(songId);
+    }
+
+    /**
+     * Returns whether a song with the same ID as the given one is indexed.
+     * Time Complexity: O(1) on average.
+     * Space Complexity: O(1).
+     */
+    public boolean contains(Song song) {
+        return nodeSlots.containsKey(song);
+    }
+
+    /**
+     * Returns the number of songs indexed.
+     * Time Complexity: O(1).
+     * Space Complexity: O(1).
+     */
+    public int size() {
+        return size(root);
+    }
+
+    static double defaultScore(Song song) {
+        return (song.getPopularity() >= 0) ? song.getPopularity() : song.getRating() * 20.0;
+    }
+
+    private Node nodeAt(int slot) {
+        return (slot != SongIdMap.ABSENT) ? nodes[slot] : null;
+    }
+
+    // Unlinks the node in a slot already removed from nodeSlots and frees the slot
+    private boolean detach(int slot) {
+        if (slot == SongIdMap.ABSENT) {
+            return false;
+        }
+        root = delete(root, nodes[slot]);
+        nodes[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (usedSlots == nodes.length) {
+            nodes = Arrays.copyOf(nodes, usedSlots * 2);
+        }
+        return usedSlots++;
+    }
+
+    // In-order (best first) walk over the nodes
+    Cursor cursor() {
+        return new Cursor(root);
+    }
+
+    // Splits into (songs ranked before the key, songs ranked at or after it)
+    private static Node[] split(Node node, double score, long seq) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (precedes(node, score, seq)) {
+            Node[] parts = split(node.right, score, seq);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+            return parts;
+        }
+        Node[] parts = split(node.left, score, seq);
+        node.left = parts[1];
+        update(node);
+        parts[1] = node;
+        return parts;
+    }
+
+    // Joins two treaps where every node of a ranks before every node of b
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static Node delete(Node node, Node target) {
+        if (node == target) {
+            return merge(node.left, node.right);
+        }
+        if (precedes(target, node.score, node.seq)) {
+            node.left = delete(node.left, target);
+        } else {
+            node.right = delete(node.right, target);
+        }
+        update(node);
+        return node;
+    }
+
+    // Higher score first; equal scores by sequence number
+    private static boolean precedes(Node node, double score, long seq) {
+        int c = Double.compare(score, node.score);
+        return c < 0 || (c == 0 && node.seq < seq);
+    }
+
+    private static int size(Node node) {
+        return (node != null) ? node.size : 0;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    static final class Node {
+        final Song song;
+        final double score;
+        final long seq;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(Song song, double score, long seq, int priority) {
+            this.song = song;
+            this.score = score;
+            this.seq = seq;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Lazy in-order iterator using an explicit stack, so reading the first k nodes costs O(log N + k).
+     */
+    static final class Cursor {
+        private final Deque<Node> stack = new ArrayDeque<>();
+
+        Cursor(Node root) {
+            pushLeft(root);
+        }
+
+        boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        Node peek() {
+            return stack.peek();
+        }
+
+        Node next() {
+            Node node = stack.pop();
+            pushLeft(node.right);
+            return node;
+        }
+
+        private void pushLeft(Node node) {
+            for (; node != null; node = node.left) {
+                stack.push(node);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package search;
+
+import models.Song;
+
+/**
+ * An index maintained alongside a SongLookup. Once attached, it is notified of every
+ * song added to or removed from the lookup, so it never has to rescan the catalog.
+ */
+public interface SecondaryIndex {
+    /**
+     * Called after a song is added to the lookup.
+     * @param song The added song.
+     */
+    void add(Song song);
+
+    /**
+     * Called after a song is removed from (or replaced in) the lookup.
+     * @param song The removed song.
+     */
+    void remove(Song song);
+}
@@ -1,57 +1,135 @@
 package models;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Represents a song with its metadata.
+ * A Song is a flyweight view of one ordinal of a columnar SongStore: it holds only the store and the
+ * ordinal, and every getter reads through to the store's columns. A song created with a constructor
+ * gets a one-row store of its own, so catalog views and standalone songs behave the same.
  */
 public class Song {
-    private String id; // Unique identifier for the song
-    private String title;
-    private String artist;
-    private long durationMs; // Duration in milliseconds
-    private int rating; // Rating from 1 to 5, primarily for BST
+    // Source of "added" sequence numbers, shared with SongStore so every song in the process is comparable
+    private static final AtomicLong ADDED_SEQ = new AtomicLong();
+
+    private final SongStore store; // Backing store holding the song's columns
+    private final int ordinal; // Ordinal in the backing store
 
     public Song(String id, String title, String artist, long durationMs, int rating) {
-        this.id = id;
-        this.title = title;
-        this.artist = artist;
-        this.durationMs = durationMs;
-        this.rating = rating;
+        this(id, title, artist, durationMs, rating, -1);
+    }
+
+    /**
+     * Creates a standalone song backed by a one-row store. The artist is interned into ArtistDictionary.global(),
+     * which never releases entries, so every distinct artist name ever passed here stays in memory for the life
+     * of the process.
+     */
+    public Song(String id, String title, String artist, long durationMs, int rating, int popularity) {
+        this.store = SongStore.single(id, title, ArtistDictionary.global().intern(artist), durationMs, rating, popularity);
+        this.ordinal = 0;
+    }
+
+    // Flyweight view, created through SongStore.view
+    Song(SongStore store, int ordinal) {
+        this.store = store;
+        this.ordinal = ordinal;
     }
 
-    // Getters
+    // Getters; the text getters decode a new String from the store on every call
     public String getId() {
-        return id;
+        return store.getId(ordinal);
     }
 
     public String getTitle() {
-        return title;
+        return store.getTitle(ordinal);
     }
 
     public String getArtist() {
-        return artist;
+        return store.getArtistName(store.getArtistId(ordinal));
+    }
+
+    /**
+     * Returns the dictionary-encoded artist. Equal artist names always have equal IDs,
+     * so distinct-artist logic can work on ints instead of Strings.
+     * @return The artist's ID in ArtistDictionary.global().
+     */
+    public int getArtistId() {
+        return store.getArtistId(ordinal);
     }
 
     public long getDurationMs() {
-        return durationMs;
+        return store.getDurationMs(ordinal);
     }
 
     public int getRating() {
-        return rating;
+        return store.getRating(ordinal);
+    }
+
+    /**
+     * Returns the raw popularity score, which is finer-grained than the 1-5 star rating.
+     * @return The popularity (0-100), or -1 if the song was created without one.
+     */
+    public int getPopularity() {
+        return store.getPopularity(ordinal);
+    }
+
+    /**
+     * Returns when the song was added, as a sequence number: later songs have larger numbers.
+     * @return The added sequence number.
+     */
+    public long getAddedSeq() {
+        return store.getAddedSeq(ordinal);
+    }
+
+    static long nextAddedSeq() {
+        return ADDED_SEQ.getAndIncrement();
+    }
+
+    // Reserves a block of consecutive sequence numbers and returns the first
+    static long reserveAddedSeqs(int count) {
+        return ADDED_SEQ.getAndAdd(count);
+    }
+
+    /**
+     * Returns the store backing this song (a one-row store for a standalone song).
+     * @return The store.
+     */
+    public SongStore getStore() {
+        return store;
+    }
+
+    /**
+     * Returns the ordinal of this song in its store.
+     * @return The ordinal.
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Checks whether this song has the given ID by comparing it with the stored bytes, without decoding.
+     * Time Complexity: O(I) for the ID length.
+     * Space Complexity: O(1) for ASCII IDs.
+     * @param id The ID to compare with.
+     * @return true if the IDs are equal.
+     */
+    public boolean hasId(String id) {
+        return store.idEquals(ordinal, id);
     }
 
     // Setters (if needed, e.g., to update rating)
     public void setRating(int rating) {
-        this.rating = rating;
+        store.setRating(ordinal, rating);
     }
 
     @Override
     public String toString() {
         return "Song{" +
-               "id='" + id + '\'' +
-               ", title='" + title + '\'' +
-               ", artist='" + artist + '\'' +
-               ", durationMs=" + durationMs +
-               ", rating=" + rating +
+               "id='" + getId() + '\'' +
+               ", title='" + getTitle() + '\'' +
+               ", artist='" + getArtist() + '\'' +
+               ", durationMs=" + getDurationMs() +
+               ", rating=" + getRating() +
                '}';
     }
 
@@ -60,11 +138,12 @@ public class Song {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Song song = (Song) o;
-        return id.equals(song.id); // Songs are equal if their IDs are equal
+        // Songs are equal if their IDs are equal, compared as stored bytes instead of decoded Strings
+        return (store == song.store && ordinal == song.ordinal) || store.idEquals(ordinal, song.store, song.ordinal);
     }
 
     @Override
     public int hashCode() {
-        return id.hashCode();
+        return store.idHash(ordinal);
     }
-}
\ No newline at end of file
+}
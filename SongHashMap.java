@@ -1,8 +1,19 @@
 package search;
 
 import models.Song;
+import models.SongIdMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * [cite_start]Provides instant song lookup using a HashMap. [cite: 40, 41]
@@ -10,47 +21,298 @@ import java.util.Map;
  * [cite_start]It should be synced with updates in the playlist engine. [cite: 45]
  * Time and Space complexities are annotated.
  */
-public class SongHashMap {
-    // Maps song ID to Song object
-    private Map<String, Song> songIdMap;
-    // Maps song title to Song object (might have collisions if titles are not unique,
-    // for simplicity, this will store the first encountered song for a title)
-    private Map<String, Song> songTitleMap;
+public class SongHashMap implements SongLookup {
+    private static final int TITLE_SHARDS = 64; // Power of two
+    private static final int PARALLEL_BUILD_THRESHOLD = 1 << 14; // Below this many songs, build adds them on one thread
+
+    // Maps song ID to Song object (values unused), in insertion order, so indexes attached or merged later
+    // see songs in load order; keyed by the songs themselves, so no ID Strings are kept
+    private SongIdMap songIdMap;
+    // Maps lowercased title to every song with that title, in insertion order; split by title hash into shards
+    // that are independent maps, so a bulk build can fill them in parallel
+    private Map<String, TitlePostings>[] titleShards;
+    // Indexes kept in sync with every add and remove (e.g. prefix search)
+    private final List<SecondaryIndex> secondaryIndexes = new ArrayList<>();
 
     public SongHashMap() {
-        this.songIdMap = new HashMap<>();
-        this.songTitleMap = new HashMap<>();
+        this(new SongIdMap(), 0);
     }
 
     /**
-     * Adds a song to the lookup maps.
-     * Time Complexity: O(1) on average.
+     * Creates lookup maps presized for the expected number of songs, avoiding rehashing during bulk loads.
+     * @param expectedSize The number of songs expected to be added.
+     */
+    public SongHashMap(int expectedSize) {
+        this(new SongIdMap(expectedSize), expectedSize);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"}) // Generic array creation for the shards
+    private SongHashMap(SongIdMap songIdMap, int expectedSize) {
+        this.songIdMap = songIdMap;
+        this.titleShards = new Map[TITLE_SHARDS];
+        int perShard = (int) Math.min(1L << 30, (long) (expectedSize / TITLE_SHARDS / 0.75f) + 1);
+        for (int i = 0; i < TITLE_SHARDS; i++) {
+            titleShards[i] = new HashMap<>(perShard);
+        }
+    }
+
+    /**
+     * Builds a lookup holding songs, with the same result as addAll on an empty lookup.
+     * The ID map is built in bulk by SongIdMap.build. Titles are lowercased in parallel ranges, and then every
+     * title shard collects its own titles' postings, in song order, on a task of its own, so no map is merged
+     * or rebuilt on one thread.
+     * Time Complexity: O(N / P) on average for N songs on P threads, plus O(N) per shard to find its songs.
+     * Space Complexity: O(N).
+     * @param songs The songs, in order.
+     * @param pool The pool to build on.
+     * @return The lookup.
+     */
+    public static SongHashMap build(Song[] songs, ForkJoinPool pool) {
+        int n = songs.length;
+        if (n < PARALLEL_BUILD_THRESHOLD) {
+            SongHashMap map = new SongHashMap(n);
+            map.addAll(Arrays.asList(songs));
+            return map;
+        }
+        List<Song> replacedSongs = new ArrayList<>();
+        SongHashMap map = new SongHashMap(SongIdMap.build(songs, null, pool, (replaced, value) -> replacedSongs.add(replaced)), n);
+
+        String[] titles = new String[n];
+        byte[] shards = new byte[n];
+        int ranges = pool.getParallelism() * 4;
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[ranges];
+        for (int r = 0; r < ranges; r++) {
+            int from = (int) ((long) n * r / ranges);
+            int to = (int) ((long) n * (r + 1) / ranges);
+            tasks[r] = pool.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    titles[i] = normalizeTitle(songs[i].getTitle());
+                    shards[i] = (byte) shardOf(titles[i]);
+                }
+            });
+        }
+        joinAll(tasks);
+        tasks = new ForkJoinTask<?>[TITLE_SHARDS];
+        for (int s = 0; s < TITLE_SHARDS; s++) {
+            int shard = s;
+            Map<String, TitlePostings> titleMap = map.titleShards[shard];
+            tasks[s] = pool.submit(() -> {
+                for (int i = 0; i < n; i++) {
+                    if (shards[i] == shard) {
+                        titleMap.computeIfAbsent(titles[i], t -> new TitlePostings()).add(songs[i]);
+                    }
+                }
+            });
+        }
+        joinAll(tasks);
+        for (Song replaced : replacedSongs) {
+            map.removeFromTitlePostings(replaced);
+        }
+        return map;
+    }
+
+    /**
+     * Moves another lookup's songs into this one, as if they had been added after this map's songs,
+     * in the order they were added there. Title postings new to this map are taken over rather than
+     * copied, and shared titles append the other's postings after the ones here, so merging partial
+     * maps in load order keeps first-encountered songs first. The other map is left empty.
+     * ID entries are appended in bulk with their stored hashes, so no ID is decoded or rehashed.
+     * Time Complexity: O(M) on average, where M is the size of the other map.
+     * Space Complexity: O(M) for the added ID entries; posting lists are moved, not copied.
+     * @param other The lookup to merge from; empty afterwards.
+     */
+    public void mergeFrom(SongHashMap other) {
+        List<Song> replacedSongs = new ArrayList<>();
+        songIdMap.putAll(other.songIdMap, value -> value, (replaced, value) -> replacedSongs.add(replaced));
+        for (Song replaced : replacedSongs) {
+            removeFromTitlePostings(replaced);
+        }
+        for (SecondaryIndex index : secondaryIndexes) {
+            for (Song replaced : replacedSongs) {
+                index.remove(replaced);
+            }
+            for (Song song : other.songIdMap.songs()) {
+                index.add(song);
+            }
+        }
+        for (int s = 0; s < TITLE_SHARDS; s++) {
+            for (Map.Entry<String, TitlePostings> entry : other.titleShards[s].entrySet()) {
+                TitlePostings postings = titleShards[s].putIfAbsent(entry.getKey(), entry.getValue());
+                if (postings != null) {
+                    postings.addAll(entry.getValue());
+                }
+            }
+            other.titleShards[s] = new HashMap<>();
+        }
+        other.songIdMap = new SongIdMap();
+    }
+
+    /**
+     * Adds a song to the lookup maps. The title is normalized (lowercased) once here,
+     * and the song is appended to that title's posting list.
+     * Time Complexity: O(1) on average (O(P) if the ID replaces a song with P same-titled songs).
      * Space Complexity: O(1) for adding one element.
      * @param song The song to add.
      */
     public void addSong(Song song) {
-        songIdMap.put(song.getId(), song);
-        // Only put if title doesn't exist, or you could handle multiple songs with same title
-        if (!songTitleMap.containsKey(song.getTitle().toLowerCase())) {
-            songTitleMap.put(song.getTitle().toLowerCase(), song);
+        Song replaced = songIdMap.getSong(song);
+        songIdMap.put(song, 0);
+        if (replaced != null) {
+            removeFromTitlePostings(replaced);
+            for (SecondaryIndex index : secondaryIndexes) {
+                index.remove(replaced);
+            }
+        }
+        String title = normalizeTitle(song.getTitle());
+        titles(title).computeIfAbsent(title, t -> new TitlePostings()).add(song);
+        for (SecondaryIndex index : secondaryIndexes) {
+            index.add(song);
         }
     }
 
     /**
-     * Removes a song from the lookup maps.
-     * Time Complexity: O(1) on average.
+     * Adds a batch of songs, with the same result as calling addSong for each in order.
+     * The ID map is grown once up front, instead of rehashing step by step,
+     * and secondary indexes are updated once per batch.
+     * Time Complexity: O(B) on average for B songs (plus one O(N) resize if the map has to grow).
+     * Space Complexity: O(B) for the added entries.
+     * @param songs The songs to add, in order.
+     */
+    public void addAll(Collection<Song> songs) {
+        songIdMap.reserve(songs.size());
+        List<Song> replacedSongs = new ArrayList<>();
+        for (Song song : songs) {
+            Song replaced = songIdMap.getSong(song);
+            songIdMap.put(song, 0);
+            if (replaced != null) {
+                removeFromTitlePostings(replaced);
+                replacedSongs.add(replaced);
+            }
+            String title = normalizeTitle(song.getTitle());
+            titles(title).computeIfAbsent(title, t -> new TitlePostings()).add(song);
+        }
+        for (SecondaryIndex index : secondaryIndexes) {
+            for (Song replaced : replacedSongs) {
+                index.remove(replaced);
+            }
+            Set<Song> indexed = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Song song : songs) {
+                // Skips songs replaced again later in the same batch, and repeats
+                if (songIdMap.getSong(song) == song && indexed.add(song)) {
+                    index.add(song);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a batch of songs by ID. Each affected title's posting list is compacted in a single pass,
+     * rather than shifted once per removed song.
+     * Time Complexity: O(B + P) on average for B IDs and P postings under the affected titles.
+     * Space Complexity: O(B) for the removed songs.
+     * @param songIds The IDs of the songs to remove.
+     * @return The removed songs, in the order their IDs were given.
+     */
+    public List<Song> removeAll(Collection<String> songIds) {
+        List<Song> removedSongs = new ArrayList<>();
+        Map<String, Set<Song>> removedByTitle = new HashMap<>();
+        for (String songId : songIds) {
+            Song removed = songIdMap.getSong(songId);
+            if (removed != null) {
+                songIdMap.remove(songId);
+                removedSongs.add(removed);
+                removedByTitle.computeIfAbsent(normalizeTitle(removed.getTitle()), t -> new HashSet<>()).add(removed);
+            }
+        }
+        for (Map.Entry<String, Set<Song>> entry : removedByTitle.entrySet()) {
+            TitlePostings postings = titles(entry.getKey()).get(entry.getKey());
+            if (postings != null && postings.removeAll(entry.getValue()) && postings.size == 0) {
+                titles(entry.getKey()).remove(entry.getKey());
+            }
+        }
+        for (SecondaryIndex index : secondaryIndexes) {
+            for (Song removed : removedSongs) {
+                index.remove(removed);
+            }
+        }
+        return removedSongs;
+    }
+
+    /**
+     * Attaches an index that is kept in sync with this lookup from now on.
+     * The index is first populated with every song already stored.
+     * Time Complexity: O(N) index insertions for N stored songs.
+     * Space Complexity: O(1) here; the index's own space is its concern.
+     * @param index The index to attach.
+     */
+    public void attachIndex(SecondaryIndex index) {
+        for (Song song : songIdMap.songs()) {
+            index.add(song);
+        }
+        secondaryIndexes.add(index);
+    }
+
+    /**
+     * Returns a read-only copy of every title's posting list.
+     * Time Complexity: O(T + P) for T distinct titles and P posting entries.
+     * Space Complexity: O(T + P) for the copied lists.
+     * @return The songs for each distinct lowercased title, in insertion order.
+     */
+    public Collection<List<Song>> getTitlePostings() {
+        List<List<Song>> postings = new ArrayList<>();
+        for (Map<String, TitlePostings> shard : titleShards) {
+            for (TitlePostings p : shard.values()) {
+                postings.add(p.asList());
+            }
+        }
+        return postings;
+    }
+
+    /**
+     * Restores a lookup from previously captured tables, e.g. a catalog snapshot, without replaying adds.
+     * The ID map is built in bulk by SongIdMap.build, and each posting array is taken over as it is,
+     * so only one title per posting list is lowercased.
+     * Time Complexity: O(N / P + T) on average for N songs on P threads and T posting lists.
+     * Space Complexity: O(N + T); the posting arrays are adopted, not copied.
+     * @param songs The songs for the ID map, in the order they were added.
+     * @param titlePostings The posting lists for the title map, as returned by getTitlePostings();
+     *                      the arrays belong to the lookup afterwards.
+     * @param pool The pool to build the ID map on.
+     * @return The lookup.
+     */
+    public static SongHashMap restore(Song[] songs, List<Song[]> titlePostings, ForkJoinPool pool) {
+        SongHashMap map = new SongHashMap(SongIdMap.build(songs, null, pool, (replaced, value) -> { }), titlePostings.size());
+        for (Song[] posting : titlePostings) {
+            if (posting.length > 0) {
+                String title = normalizeTitle(posting[0].getTitle());
+                TitlePostings p = map.titles(title).computeIfAbsent(title, t -> new TitlePostings());
+                if (p.size == 0) {
+                    p.songs = posting;
+                    p.size = posting.length;
+                } else {
+                    for (Song song : posting) {
+                        p.add(song);
+                    }
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Removes a song from the lookup maps. Other songs with the same title stay reachable.
+     * Time Complexity: O(1) on average, plus O(P) for P songs sharing the title.
      * Space Complexity: O(1).
      * @param songId The ID of the song to remove.
      * @return The removed Song object, or null if not found.
      */
     public Song removeSong(String songId) {
-        Song removedSong = songIdMap.remove(songId);
+        Song removedSong = songIdMap.getSong(songId);
         if (removedSong != null) {
-            // Remove from title map only if it's the specific song we removed
-            // This logic assumes a single song per title in the title map.
-            if (songTitleMap.containsKey(removedSong.getTitle().toLowerCase()) &&
-                songTitleMap.get(removedSong.getTitle().toLowerCase()).getId().equals(songId)) {
-                songTitleMap.remove(removedSong.getTitle().toLowerCase());
+            songIdMap.remove(songId);
+            removeFromTitlePostings(removedSong);
+            for (SecondaryIndex index : secondaryIndexes) {
+                index.remove(removedSong);
             }
         }
         return removedSong;
@@ -58,22 +320,64 @@ public class SongHashMap {
 
     /**
      * Searches for a song by its ID or title.
-     * Priority given to ID search for uniqueness.
-     * [cite_start]Time Complexity: O(1) on average. [cite: 42]
-     * Space Complexity: O(1).
+     * Priority given to ID search for uniqueness; for a title, the earliest added song is returned.
+     * Time Complexity: O(1) on average.
+     * Space Complexity: O(Q) for the single lowercased copy of the query.
      * @param query The song ID or title to search for.
      * @return The found Song object, or null if not found.
      */
     public Song searchSong(String query) {
         // Try searching by ID first (assuming IDs are unique)
-        if (songIdMap.containsKey(query)) {
-            return songIdMap.get(query);
+        Song byId = songIdMap.getSong(query);
+        if (byId != null) {
+            return byId;
         }
         // Then try searching by title (case-insensitive)
-        if (songTitleMap.containsKey(query.toLowerCase())) {
-            return songTitleMap.get(query.toLowerCase());
+        String title = normalizeTitle(query);
+        TitlePostings postings = titles(title).get(title);
+        return (postings != null) ? postings.first() : null;
+    }
+
+    /**
+     * Returns every song with the given title (case-insensitive), e.g. covers and remasters.
+     * Time Complexity: O(1) on average to find the posting list, plus O(P) to copy its P songs.
+     * Space Complexity: O(P) for the read-only result.
+     * @param title The title to search for.
+     * @return The matching songs in insertion order, or an empty list.
+     */
+    @Override
+    public List<Song> searchAllByTitle(String title) {
+        String key = normalizeTitle(title);
+        TitlePostings postings = titles(key).get(key);
+        return (postings != null) ? postings.asList() : Collections.emptyList();
+    }
+
+    private void removeFromTitlePostings(Song song) {
+        String key = normalizeTitle(song.getTitle());
+        TitlePostings postings = titles(key).get(key);
+        if (postings != null && postings.remove(song) && postings.size == 0) {
+            titles(key).remove(key);
+        }
+    }
+
+    // The shard holding a lowercased title
+    private Map<String, TitlePostings> titles(String normalizedTitle) {
+        return titleShards[shardOf(normalizedTitle)];
+    }
+
+    // Top bits of a multiplicative hash, so keys of one shard still spread over HashMap's low-bit buckets
+    private static int shardOf(String normalizedTitle) {
+        return (normalizedTitle.hashCode() * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(TITLE_SHARDS));
+    }
+
+    private static void joinAll(ForkJoinTask<?>[] tasks) {
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
         }
-        return null;
+    }
+
+    private static String normalizeTitle(String title) {
+        return title.toLowerCase();
     }
 
     /**
@@ -85,4 +389,59 @@ public class SongHashMap {
     public int size() {
         return songIdMap.size();
     }
+
+    /**
+     * Compact posting list: the songs sharing one normalized title, in insertion order.
+     */
+    private static final class TitlePostings {
+        Song[] songs = new Song[1]; // Most titles are unique, so start with a single slot
+        int size;
+
+        void add(Song song) {
+            if (size == songs.length) {
+                songs = Arrays.copyOf(songs, size * 2);
+            }
+            songs[size++] = song;
+        }
+
+        void addAll(TitlePostings other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.songs[i]);
+            }
+        }
+
+        boolean remove(Song song) {
+            for (int i = 0; i < size; i++) {
+                if (songs[i].equals(song)) { // Same ID, compared without decoding
+                    System.arraycopy(songs, i + 1, songs, i, size - i - 1); // Keep insertion order
+                    songs[--size] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Drops every song whose ID is in the set, keeping the others in order
+        boolean removeAll(Set<Song> removed) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!removed.contains(songs[i])) {
+                    songs[kept++] = songs[i];
+                }
+            }
+            boolean changed = kept < size;
+            Arrays.fill(songs, kept, size, null);
+            size = kept;
+            return changed;
+        }
+
+        Song first() {
+            return songs[0];
+        }
+
+        List<Song> asList() {
+            // Copy, since the backing array is reallocated or shifted as the title changes
+            return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(songs, size)));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,441 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Hash map from song ID to a non-negative int (e.g. a position or a slot), keyed by the Song itself.
+ * Songs are hashed with Song.hashCode, which reads the store's ID hash column, and compared with
+ * Song.equals / Song.hasId, which compare the stored UTF-8 bytes, so an index over flyweight views
+ * never decodes or retains an ID String.
+ * Entries are kept in insertion order in parallel arrays (song, value, hash), and an open-addressing
+ * table of entry numbers (linear probing with backward-shift deletion, at most half full) points into them.
+ * Iteration therefore follows insertion order, like a LinkedHashMap, without a node object per entry.
+ * Removed entries leave a hole, which is compacted away the next time the arrays fill up.
+ * build fills a new map from a whole array of songs at once, in parallel.
+ * Not thread-safe.
+ * Space Complexity: O(N) for N songs, about five ints per song.
+ */
+public final class SongIdMap {
+    /** Returned by lookups and removals when the ID is not mapped. */
+    public static final int ABSENT = -1;
+    private static final int PARALLEL_BUILD_THRESHOLD = 1 << 14; // Below this many songs, one thread builds faster
+
+    private int[] table; // Slot -> entry + 1, 0 when empty
+    private Song[] songs; // Entry -> key, null once removed
+    private int[] values;
+    private int[] hashes; // Entry -> Song.hashCode of its key
+    private int entries; // Entries handed out, including removed ones
+    private int size;
+
+    public SongIdMap() {
+        this(8);
+    }
+
+    /**
+     * Creates a map presized for the expected number of songs.
+     * @param expectedSize The number of songs expected to be added.
+     */
+    public SongIdMap(int expectedSize) {
+        int capacity = Math.max(8, expectedSize);
+        this.songs = new Song[capacity];
+        this.values = new int[capacity];
+        this.hashes = new int[capacity];
+        this.table = new int[tableSizeFor(capacity)];
+    }
+
+    /**
+     * Builds a map from songs to values, with the same result as putting each song in order into an empty map.
+     * The entry arrays are filled with bulk copies and the table in parallel: it is split into contiguous ranges
+     * of slots, and one task per range places, in entry order, the songs whose home slot lies in that range.
+     * A song whose probe runs past the end of its range is placed afterwards on the calling thread; since the
+     * ranges it ran through are full by then, every probe chain stays intact.
+     * Time Complexity: O(N * R / P) on average for N songs split over R ranges on P threads, with R about 2P.
+     * Space Complexity: O(N).
+     * @param songs The songs, in insertion order.
+     * @param values The value of each song, non-negative, or null to map every song to 0.
+     * @param pool The pool to fill the table on.
+     * @param onReplace Called once the map is built with each song and value that a later song with the same ID
+     *                  replaced, as put would have replaced them.
+     * @return The map.
+     */
+    public static SongIdMap build(Song[] songs, int[] values, ForkJoinPool pool, ObjIntConsumer<Song> onReplace) {
+        int n = songs.length;
+        SongIdMap map = new SongIdMap(n);
+        System.arraycopy(songs, 0, map.songs, 0, n);
+        if (values != null) {
+            System.arraycopy(values, 0, map.values, 0, n);
+        }
+        map.entries = n;
+        map.size = n;
+        int ranges = (n < PARALLEL_BUILD_THRESHOLD) ? 1
+                : Integer.highestOneBit(Math.min(pool.getParallelism() * 2, map.table.length >>> 10));
+        int rangeSize = map.table.length / ranges;
+
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[ranges];
+        for (int r = 0; r < ranges; r++) {
+            int from = (int) ((long) n * r / ranges);
+            int to = (int) ((long) n * (r + 1) / ranges);
+            tasks[r] = pool.submit(() -> {
+                for (int e = from; e < to; e++) {
+                    map.hashes[e] = map.songs[e].hashCode();
+                }
+            });
+        }
+        joinAll(tasks);
+        Placement[] placements = new Placement[ranges];
+        for (int r = 0; r < ranges; r++) {
+            Placement placement = new Placement();
+            placements[r] = placement;
+            int from = r * rangeSize;
+            tasks[r] = pool.submit(() -> map.placeRange(from, from + rangeSize, placement));
+        }
+        joinAll(tasks);
+
+        // The deferred songs, in range order; songs with the same ID share a home slot, so they keep their order
+        Placement late = new Placement();
+        for (Placement placement : placements) {
+            for (int entry : placement.deferred) {
+                int slot = map.slotOf(map.hashes[entry], map.songs[entry], null);
+                if (map.table[slot] != 0) {
+                    late.replace(map, map.table[slot] - 1, entry);
+                } else {
+                    map.table[slot] = entry + 1;
+                }
+            }
+        }
+        for (Placement placement : placements) {
+            placement.report(map, onReplace);
+        }
+        late.report(map, onReplace);
+        return map;
+    }
+
+    // Places, in entry order, the entries whose home slot is in [from, to), without probing past to
+    private void placeRange(int from, int to, Placement placement) {
+        int mask = table.length - 1;
+        for (int e = 0; e < entries; e++) {
+            int hash = hashes[e];
+            int slot = mix(hash) & mask;
+            if (slot < from || slot >= to) {
+                continue;
+            }
+            for (; ; slot++) {
+                if (slot == to) {
+                    placement.deferred.add(e);
+                    break;
+                }
+                int other = table[slot] - 1;
+                if (other < 0) {
+                    table[slot] = e + 1;
+                    break;
+                }
+                if (hashes[other] == hash && songs[other].equals(songs[e])) {
+                    placement.replace(this, other, e);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * What one range of build left over: songs to place afterwards, and the songs it replaced.
+     */
+    private static final class Placement {
+        final List<Integer> deferred = new ArrayList<>();
+        final List<Song> replacedSongs = new ArrayList<>();
+        final List<Integer> replacedValues = new ArrayList<>();
+
+        // A later entry with the same ID takes over an earlier one's place in insertion order, leaving a hole
+        void replace(SongIdMap map, int earlier, int later) {
+            replacedSongs.add(map.songs[earlier]);
+            replacedValues.add(map.values[earlier]);
+            map.songs[earlier] = map.songs[later];
+            map.values[earlier] = map.values[later];
+            map.songs[later] = null;
+        }
+
+        void report(SongIdMap map, ObjIntConsumer<Song> onReplace) {
+            map.size -= replacedSongs.size();
+            for (int i = 0; i < replacedSongs.size(); i++) {
+                onReplace.accept(replacedSongs.get(i), replacedValues.get(i));
+            }
+        }
+    }
+
+    private static void joinAll(ForkJoinTask<?>[] tasks) {
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    /**
+     * Returns the value mapped to a song's ID.
+     * Time Complexity: O(1) on average.
+     * Space Complexity: O(1)
+     * @return The value, or ABSENT.
+     */
+    public int get(Song song) {
+        int entry = table[slotOf(song.hashCode(), song, null)] - 1;
+        return (entry >= 0) ? values[entry] : ABSENT;
+    }
+
+    /**
+     * Returns the value mapped to an ID.
+     * Time Complexity: O(1) on average.
+     * Space Complexity: O(1)
+     * @return The value, or ABSENT.
+     */
+    public int get(String id) {
+        int entry = table[slotOf(id.hashCode(), null, id)] - 1;
+        return (entry >= 0) ? values[entry] : ABSENT;
+    }
+
+    /**
+     * Returns the Song object stored under an ID (the one most recently put).
+     * Time Complexity: O(1) on average.
+     * Space Complexity: O(1)
+     * @return The song, or null if the ID is not mapped.
+     */
+    public Song getSong(String id) {
+        int entry = table[slotOf(id.hashCode(), null, id)] - 1;
+        return (entry >= 0) ? songs[entry] : null;
+    }
+
+    /**
+     * Returns the Song object stored under the same ID as the given song.
+     * Time Complexity: O(1) on average.
+     * Space Complexity: O(1)
+     * @return The stored song, or null if the ID is not mapped.
+     */
+    public Song getSong(Song song) {
+        int entry = table[slotOf(song.hashCode(), song, null)] - 1;
+        return (entry >= 0) ? songs[entry] : null;
+    }
+
+    public boolean containsKey(Song song) {
+        return table[slotOf(song.hashCode(), song, null)] != 0;
+    }
+
+    public boolean containsKey(String id) {
+        return table[slotOf(id.hashCode(), null, id)] != 0;
+    }
+
+    /**
+     * Maps a song's ID to a value. If the ID is already mapped, the entry keeps its place in insertion
+     * order but now holds this Song object and value.
+     * Time Complexity: O(1) amortized.
+     * Space Complexity: O(1) amortized.
+     * @param song The song.
+     * @param value The value, non-negative.
+     * @return The previous value, or ABSENT.
+     */
+    public int put(Song song, int value) {
+        ensureRoom(1);
+        int hash = song.hashCode();
+        int slot = slotOf(hash, song, null);
+        int entry = table[slot] - 1;
+        if (entry >= 0) {
+            int old = values[entry];
+            songs[entry] = song;
+            values[entry] = value;
+            return old;
+        }
+        append(slot, song, value, hash);
+        return ABSENT;
+    }
+
+    /**
+     * Appends every entry of another map in its insertion order, as if each were put here.
+     * Stored hashes are reused, so keys are only compared on a hash match.
+     * Time Complexity: O(M) on average for M entries in the other map.
+     * Space Complexity: O(M).
+     * @param other The map to copy from; left unchanged.
+     * @param remap Applied to each value before it is stored.
+     * @param onReplace Called with the song and value an ID mapped to here before the other map replaced it.
+     */
+    public void putAll(SongIdMap other, IntUnaryOperator remap, ObjIntConsumer<Song> onReplace) {
+        ensureRoom(other.size);
+        for (int e = 0; e < other.entries; e++) {
+            Song song = other.songs[e];
+            if (song == null) {
+                continue;
+            }
+            int hash = other.hashes[e];
+            int slot = slotOf(hash, song, null);
+            int entry = table[slot] - 1;
+            int value = remap.applyAsInt(other.values[e]);
+            if (entry >= 0) {
+                onReplace.accept(songs[entry], values[entry]);
+                songs[entry] = song;
+                values[entry] = value;
+            } else {
+                append(slot, song, value, hash);
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping for a song's ID.
+     * Time Complexity: O(1) on average.
+     * Space Complexity: O(1)
+     * @return The removed value, or ABSENT.
+     */
+    public int remove(Song song) {
+        return removeAt(slotOf(song.hashCode(), song, null));
+    }
+
+    /**
+     * Removes the mapping for an ID.
+     * Time Complexity: O(1) on average.
+     * Space Complexity: O(1)
+     * @return The removed value, or ABSENT.
+     */
+    public int remove(String id) {
+        return removeAt(slotOf(id.hashCode(), null, id));
+    }
+
+    /**
+     * Makes room for a number of additional entries, so adding them does not grow the arrays step by step.
+     * Time Complexity: O(N) if the arrays grow, O(1) otherwise.
+     * Space Complexity: O(N + additional) if the arrays grow.
+     * @param additional The number of entries about to be added.
+     */
+    public void reserve(int additional) {
+        ensureRoom(additional);
+    }
+
+    /**
+     * Returns the mapped songs in insertion order.
+     * Time Complexity: O(N)
+     * Space Complexity: O(N) for the list.
+     */
+    public List<Song> songs() {
+        List<Song> result = new ArrayList<>(size);
+        for (int e = 0; e < entries; e++) {
+            if (songs[e] != null) {
+                result.add(songs[e]);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Slot holding the entry for the key (a Song, or else an ID String), or the empty slot where it would go
+    private int slotOf(int hash, Song song, String id) {
+        int mask = table.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot] - 1;
+            if (entry < 0) {
+                return slot;
+            }
+            if (hashes[entry] == hash && (song != null ? songs[entry].equals(song) : songs[entry].hasId(id))) {
+                return slot;
+            }
+        }
+    }
+
+    private void append(int slot, Song song, int value, int hash) {
+        songs[entries] = song;
+        values[entries] = value;
+        hashes[entries] = hash;
+        table[slot] = ++entries;
+        size++;
+    }
+
+    private int removeAt(int slot) {
+        int entry = table[slot] - 1;
+        if (entry < 0) {
+            return ABSENT;
+        }
+        int old = values[entry];
+        songs[entry] = null; // Help with garbage collection
+        size--;
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        int mask = table.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            int home = mix(hashes[table[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+        }
+        table[hole] = 0;
+        return old;
+    }
+
+    // Ensures the entry arrays and the table have room for more entries, compacting holes first when they dominate
+    private void ensureRoom(int additional) {
+        if (entries + additional > songs.length) {
+            if (entries - size >= size && size + additional <= songs.length) {
+                compact(songs.length);
+            } else {
+                compact(Math.max(size + additional, songs.length * 2));
+            }
+        }
+        if ((size + additional) * 2L > table.length) {
+            rebuildTable(tableSizeFor(size + additional));
+        }
+    }
+
+    // Drops the holes left by removals, preserving insertion order, into arrays of the given capacity
+    private void compact(int capacity) {
+        Song[] oldSongs = songs;
+        int[] oldValues = values;
+        int[] oldHashes = hashes;
+        if (capacity != songs.length) {
+            songs = new Song[capacity];
+            values = new int[capacity];
+            hashes = new int[capacity];
+        }
+        int live = 0;
+        for (int e = 0; e < entries; e++) {
+            if (oldSongs[e] != null) {
+                songs[live] = oldSongs[e];
+                values[live] = oldValues[e];
+                hashes[live] = oldHashes[e];
+                live++;
+            }
+        }
+        Arrays.fill(songs, live, Math.min(entries, songs.length), null);
+        entries = live;
+        rebuildTable(table.length);
+    }
+
+    private void rebuildTable(int tableSize) {
+        if (tableSize == table.length) {
+            Arrays.fill(table, 0);
+        } else {
+            table = new int[tableSize];
+        }
+        int mask = tableSize - 1;
+        for (int e = 0; e < entries; e++) {
+            if (songs[e] != null) {
+                int slot = mix(hashes[e]) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = e + 1;
+            }
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long wanted = Math.max(16L, expectedSize * 2L);
+        return (int) Math.min(1L << 30, Long.highestOneBit(wanted - 1) << 1);
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,63 @@
+package search;
+
+import models.Song;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Common API of the song lookup indexes (by song ID or title).
+ * Implementations differ in how the tables are stored, not in what they return.
+ */
+public interface SongLookup {
+    /**
+     * Adds a song to the lookup.
+     * @param song The song to add.
+     */
+    void addSong(Song song);
+
+    /**
+     * Adds a batch of songs, with the same result as calling addSong for each in order.
+     * @param songs The songs to add, in order.
+     */
+    void addAll(Collection<Song> songs);
+
+    /**
+     * Removes a song from the lookup.
+     * @param songId The ID of the song to remove.
+     * @return The removed Song object, or null if not found.
+     */
+    Song removeSong(String songId);
+
+    /**
+     * Searches for a song by its ID or title (case-insensitive), ID first.
+     * @param query The song ID or title to search for.
+     * @return The found Song object, or null if not found.
+     */
+    Song searchSong(String query);
+
+    /**
+     * Returns every song with the given title (case-insensitive), in insertion order.
+     * @param title The title to search for.
+     * @return The matching songs, or an empty list.
+     */
+    List<Song> searchAllByTitle(String title);
+
+    /**
+     * Attaches an index that is kept in sync with this lookup from now on,
+     * after populating it with every song already stored.
+     * @param index The index to attach.
+     */
+    void attachIndex(SecondaryIndex index);
+
+    /**
+     * Returns every distinct title's songs (case-insensitive), each list in insertion order.
+     * @return The posting lists.
+     */
+    Collection<List<Song>> getTitlePostings();
+
+    /**
+     * Returns the number of songs stored.
+     * @return The number of songs.
+     */
+    int size();
+}
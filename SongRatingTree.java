@@ -1,185 +1,497 @@
 package ratings;
 
 import models.Song;
+import models.SongIdMap;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * [cite_start]Implements a Binary Search Tree (BST) for indexing songs by user rating (1-5 stars). [cite: 29, 33]
- * [cite_start]Each node in the BST represents a rating bucket and stores multiple songs with that rating. [cite: 34]
- * [cite_start]Supports fast insertion, deletion, and search by rating. [cite: 31]
+ * [cite_start]Indexes songs by user rating (1-5 stars). [cite: 29, 33]
+ * [cite_start]Each rating bucket stores multiple songs with that rating. [cite: 34]
+ * With only five possible ratings, the buckets live in a flat array indexed by rating,
+ * so every bucket is reached in O(1) without walking a tree.
+ * Queries return read-only views of the buckets instead of copies.
+ * A side map from song ID to (rating, slot) lets a song be deleted by swapping the bucket's last
+ * song into its slot, so deletes are O(1); bucket order is therefore not insertion order after deletes.
  * Time and Space complexities are annotated.
  */
 public class SongRatingTree {
-    private BSTNode root;
+    static final int MIN_RATING = 1;
+    static final int MAX_RATING = 5;
 
+    // buckets[r] holds the songs rated r, unordered once deletes have swapped songs around; index 0 is unused
+    private final ArrayList<Song>[] buckets;
+    // Song ID -> slot << 3 | rating, locating the song inside its bucket; keyed by the songs, so no ID Strings are kept
+    private SongIdMap positions = new SongIdMap();
+    private final List<RatingChangeListener> listeners = new ArrayList<>();
+    // Live per-rating counts, updated on every insert, delete and re-rate; readable from any thread
+    private final LongAdder[] counts = new LongAdder[MAX_RATING + 1];
+
+    @SuppressWarnings({"unchecked", "rawtypes"}) // Generic array creation for the bucket table
     public SongRatingTree() {
-        this.root = null;
+        this.buckets = new ArrayList[MAX_RATING + 1];
+        for (int r = MIN_RATING; r <= MAX_RATING; r++) {
+            buckets[r] = new ArrayList<>();
+            counts[r] = new LongAdder();
+        }
     }
 
     /**
-     * [cite_start]Inserts a song into the BST based on its rating. [cite: 35]
-     * If a node for the given rating already exists, the song is added to that node's list.
-     * Otherwise, a new node is created.
-     * Time Complexity: O(log N) on average for balanced tree, O(N) in worst case (skewed tree).
-     * Space Complexity: O(1) for new node if created, O(log N) for call stack in recursion.
+     * [cite_start]Inserts a song into the bucket for its rating. [cite: 35]
+     * A song whose ID is already indexed is re-rated as by updateRating, so listeners hear about the change;
+     * if it is a different Song object with that ID, it replaces the indexed one.
+     * Time Complexity: O(1) amortized.
+     * Space Complexity: O(1).
      * @param song The song to insert.
      * @param rating The rating of the song (1-5).
      */
     public void insertSong(Song song, int rating) {
-        if (rating < 1 || rating > 5) {
+        if (!isValid(rating)) {
             System.out.println("Warning: Rating must be between 1 and 5. Song '" + song.getTitle() + "' not inserted.");
             return;
         }
-        root = insertRecursive(root, song, rating);
-        song.setRating(rating); // Update song object's rating
+        insertOrRerate(song, rating);
     }
 
-    private BSTNode insertRecursive(BSTNode current, Song song, int rating) {
-        if (current == null) {
-            return new BSTNode(rating, song);
+    /**
+     * Inserts a batch of songs under their current ratings, with the same result as calling
+     * insertSong(song, song.getRating()) for each in order.
+     * Songs are counted per rating first, so each bucket and the position map grow once
+     * instead of step by step while appending.
+     * Time Complexity: O(B) for B songs (a large batch also pays one O(N) position map resize).
+     * Space Complexity: O(B) for the added references.
+     * @param songs The songs to insert, in order.
+     */
+    public void insertAll(Collection<Song> songs) {
+        int[] perRating = new int[MAX_RATING + 1];
+        for (Song song : songs) {
+            int rating = song.getRating();
+            if (isValid(rating)) {
+                perRating[rating]++;
+            }
+        }
+        reserve(perRating);
+        for (Song song : songs) {
+            int rating = song.getRating();
+            if (!isValid(rating)) {
+                System.out.println("Warning: Rating must be between 1 and 5. Song '" + song.getTitle() + "' not inserted.");
+                continue;
+            }
+            insertOrRerate(song, rating);
         }
+    }
+
+    /**
+     * Builds an index of songs under their current ratings, with the same bucket contents as insertAll on an
+     * empty index. The songs are split into ranges that are counted per rating in parallel; each range then
+     * copies its songs into presized bucket arrays at offsets after the earlier ranges', so bucket order is
+     * song order, and the position map is built in bulk by SongIdMap.build. A song whose ID repeats is kept
+     * once, as its last occurrence.
+     * Time Complexity: O(N / P) on average for N songs on P threads, plus O(N) to copy the buckets into lists.
+     * Space Complexity: O(N).
+     * @param songs The songs, in order.
+     * @param pool The pool to count and copy on.
+     * @return The index.
+     */
+    public static SongRatingTree build(Song[] songs, ForkJoinPool pool) {
+        int n = songs.length;
+        int ranges = Math.max(1, Math.min(pool.getParallelism() * 4, n >>> 14));
+        int[][] counts = new int[ranges][MAX_RATING + 1]; // Index 0 counts songs with an invalid rating
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[ranges];
+        for (int r = 0; r < ranges; r++) {
+            int[] rangeCounts = counts[r];
+            int from = (int) ((long) n * r / ranges);
+            int to = (int) ((long) n * (r + 1) / ranges);
+            tasks[r] = pool.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    int rating = songs[i].getRating();
+                    rangeCounts[isValid(rating) ? rating : 0]++;
+                }
+            });
+        }
+        joinAll(tasks);
 
-        if (rating < current.rating) {
-            current.left = insertRecursive(current.left, song, rating);
-        } else if (rating > current.rating) {
-            current.right = insertRecursive(current.right, song, rating);
-        } else {
-            // Rating already exists, add song to this node's list
-            current.songs.add(song);
+        // Turn the counts into each range's first slot per rating, and its first entry among the valid songs
+        int[] totals = new int[MAX_RATING + 1];
+        int[] firstValid = new int[ranges];
+        int valid = 0;
+        for (int r = 0; r < ranges; r++) {
+            firstValid[r] = valid;
+            for (int rating = 0; rating <= MAX_RATING; rating++) {
+                int count = counts[r][rating];
+                counts[r][rating] = totals[rating];
+                totals[rating] += count;
+                valid += (rating == 0) ? 0 : count;
+            }
         }
-        return current;
+        Song[][] bucketArrays = new Song[MAX_RATING + 1][];
+        for (int rating = MIN_RATING; rating <= MAX_RATING; rating++) {
+            bucketArrays[rating] = new Song[totals[rating]];
+        }
+        Song[] validSongs = (valid == n) ? songs : new Song[valid];
+        int[] values = new int[valid];
+        for (int r = 0; r < ranges; r++) {
+            int[] next = counts[r];
+            int from = (int) ((long) n * r / ranges);
+            int to = (int) ((long) n * (r + 1) / ranges);
+            int entry = firstValid[r];
+            tasks[r] = pool.submit(() -> {
+                for (int i = from, e = entry; i < to; i++) {
+                    int rating = songs[i].getRating();
+                    if (isValid(rating)) {
+                        int slot = next[rating]++;
+                        bucketArrays[rating][slot] = songs[i];
+                        validSongs[e] = songs[i];
+                        values[e++] = slot << 3 | rating;
+                    }
+                }
+            });
+        }
+        joinAll(tasks);
+        if (valid < n) {
+            for (Song song : songs) {
+                if (!isValid(song.getRating())) {
+                    System.out.println("Warning: Rating must be between 1 and 5. Song '" + song.getTitle() + "' not inserted.");
+                }
+            }
+        }
+
+        SongRatingTree tree = new SongRatingTree();
+        for (int rating = MIN_RATING; rating <= MAX_RATING; rating++) {
+            tree.buckets[rating].addAll(Arrays.asList(bucketArrays[rating]));
+            tree.counts[rating].add(totals[rating]);
+        }
+        List<Integer> stale = new ArrayList<>(); // Positions of songs a later song with the same ID replaced
+        tree.positions = SongIdMap.build(validSongs, values, pool, (song, position) -> stale.add(position));
+        tree.detachAll(stale);
+        return tree;
+    }
+
+    /**
+     * Merges another rating index into this one. Each of its buckets is appended, in order,
+     * to the matching bucket here, so merging partial indexes in load order keeps bucket order stable.
+     * Buckets are appended as whole arrays, and the other index's positions are copied with their stored
+     * hashes and shifted by the bucket sizes here, so no song is looked up or placed one at a time.
+     * A song whose ID is indexed in both keeps the other index's entry, as with insertAll.
+     * Time Complexity: O(M) on average, where M is the number of songs merged.
+     * Space Complexity: O(M) for the appended references.
+     * @param other The index to merge from.
+     */
+    public void mergeFrom(SongRatingTree other) {
+        int[] base = new int[MAX_RATING + 1];
+        for (int r = MIN_RATING; r <= MAX_RATING; r++) {
+            base[r] = buckets[r].size();
+            buckets[r].addAll(other.buckets[r]);
+            counts[r].add(other.buckets[r].size());
+        }
+        List<Integer> stale = new ArrayList<>(); // Positions here of songs the other index re-indexed
+        positions.putAll(other.positions, position -> position + (base[position & 7] << 3),
+                (song, position) -> stale.add(position));
+        detachAll(stale);
+    }
+
+    /**
+     * Appends songs to the bucket for a rating.
+     * Unlike insertSong, the songs' own rating fields are left untouched; callers restoring
+     * an index (e.g. from a snapshot) already have them set.
+     * Time Complexity: O(M) where M is the number of songs appended.
+     * Space Complexity: O(M) for the appended references.
+     * @param rating The rating of the bucket (1-5).
+     * @param songs The songs to append, in order.
+     */
+    public void appendToBucket(int rating, List<Song> songs) {
+        if (songs.isEmpty()) {
+            return;
+        }
+        if (!isValid(rating)) {
+            System.out.println("Warning: Rating must be between 1 and 5. Bucket " + rating + " not restored.");
+            return;
+        }
+        for (Song song : songs) {
+            place(song, rating);
+        }
+    }
+
+    /**
+     * Returns a read-only view of every non-empty rating bucket, in ascending rating order.
+     * Time Complexity: O(R) where R is the number of ratings (5).
+     * Space Complexity: O(R) for the map; the bucket lists are views, not copies.
+     * @return A map from rating to the unmodifiable list of songs in that bucket.
+     */
+    public Map<Integer, List<Song>> getBuckets() {
+        Map<Integer, List<Song>> result = new LinkedHashMap<>();
+        for (int r = MIN_RATING; r <= MAX_RATING; r++) {
+            if (!buckets[r].isEmpty()) {
+                result.put(r, Collections.unmodifiableList(buckets[r]));
+            }
+        }
+        return result;
     }
 
     /**
      * [cite_start]Searches for all songs with a specific rating. [cite: 35]
-     * Time Complexity: O(log N) on average for balanced tree, O(N) in worst case (skewed tree)
-     * + O(S) where S is the number of songs with that rating.
-     * Space Complexity: O(S) for the list of songs returned, O(log N) for call stack.
+     * The result is a live read-only view of the bucket; copy it if a snapshot is needed
+     * while the index keeps changing.
+     * Time Complexity: O(1).
+     * Space Complexity: O(1), no songs are copied.
      * @param rating The rating to search for (1-5).
-     * @return A list of songs with the specified rating, or an empty list if none found.
+     * @return A read-only list of songs with the specified rating, or an empty list if none found.
      */
     public List<Song> searchByRating(int rating) {
-        if (rating < 1 || rating > 5) {
+        if (!isValid(rating)) {
             System.out.println("Warning: Rating must be between 1 and 5.");
-            return new ArrayList<>();
+            return Collections.emptyList();
         }
-        BSTNode node = searchNode(root, rating);
-        return (node != null) ? new ArrayList<>(node.songs) : new ArrayList<>();
+        return Collections.unmodifiableList(buckets[rating]);
     }
 
-    private BSTNode searchNode(BSTNode current, int rating) {
-        if (current == null || current.rating == rating) {
-            return current;
-        }
-        if (rating < current.rating) {
-            return searchNode(current.left, rating);
-        } else {
-            return searchNode(current.right, rating);
+    /**
+     * Searches for all songs rated between min and max (inclusive), e.g. "4 stars and up".
+     * The result is a live read-only view over the buckets, highest rating first.
+     * Time Complexity: O(1) to create; get(i) is O(R) for R ratings in range.
+     * Space Complexity: O(1), no songs are copied.
+     * @param min The lowest rating to include (1-5).
+     * @param max The highest rating to include (1-5).
+     * @return A read-only list of the matching songs, or an empty list if the range is invalid.
+     */
+    public List<Song> searchByRatingRange(int min, int max) {
+        if (!isValid(min) || !isValid(max) || min > max) {
+            System.out.println("Warning: Rating range must be within 1 to 5 and min <= max.");
+            return Collections.emptyList();
         }
+        return new RangeView(min, max);
     }
 
     /**
-     * [cite_start]Deletes a specific song from the tree based on its ID. [cite: 36]
-     * This method assumes you want to remove a specific instance of a song.
-     * If the song is the only one in its rating bucket, the node might be removed or adjusted.
-     * Time Complexity: O(log N + S) on average for balanced tree, O(N + S) in worst case,
-     * where S is the number of songs in the target bucket.
-     * Space Complexity: O(log N) for call stack.
+     * [cite_start]Deletes a specific song from the index based on its ID. [cite: 36]
+     * Time Complexity: O(1) on average (position lookup plus swap-remove).
+     * Space Complexity: O(1).
      * @param songId The ID of the song to delete.
      * @return true if the song was found and deleted, false otherwise.
      */
     public boolean deleteSong(String songId) {
-        // First, find the node that *could* contain the song.
-        // This requires traversing the tree and then iterating through the songs list.
-        return deleteSongRecursive(root, songId, null, false); // Using a helper for parent tracking
+        int position = positions.remove(songId);
+        if (position == SongIdMap.ABSENT) {
+            return false;
+        }
+        detach(position);
+        return true;
     }
 
-    private boolean deleteSongRecursive(BSTNode current, String songId, BSTNode parent, boolean isLeftChild) {
-        if (current == null) {
+    /**
+     * Changes a song's rating: the song moves to the new bucket, its rating field is updated,
+     * and every registered listener is told about the change.
+     * Time Complexity: O(1) on average, plus the listeners' own work.
+     * Space Complexity: O(1).
+     * @param songId The ID of the song to re-rate.
+     * @param newRating The new rating (1-5).
+     * @return true if the song was found and re-rated, false otherwise.
+     */
+    public boolean updateRating(String songId, int newRating) {
+        if (!isValid(newRating)) {
+            System.out.println("Warning: Rating must be between 1 and 5.");
+            return false;
+        }
+        int position = positions.get(songId);
+        if (position == SongIdMap.ABSENT) {
             return false;
         }
+        rerate(buckets[position & 7].get(position >>> 3), position & 7, newRating);
+        return true;
+    }
+
+    /**
+     * Registers a listener for rating changes made through updateRating, or by inserting an already indexed song.
+     * Time Complexity: O(1).
+     * Space Complexity: O(1).
+     * @param listener The listener to notify.
+     */
+    public void addListener(RatingChangeListener listener) {
+        listeners.add(listener);
+    }
 
-        boolean foundAndRemoved = false;
-        // Iterate through songs in the current node's bucket
-        for (int i = 0; i < current.songs.size(); i++) {
-            if (current.songs.get(i).getId().equals(songId)) {
-                current.songs.remove(i); // Remove the song
-                foundAndRemoved = true;
-                break; // Assuming unique song ID per bucket, or remove all matches
+    /**
+     * Deletes a batch of songs by ID.
+     * Time Complexity: O(B) on average for B IDs.
+     * Space Complexity: O(1).
+     * @param songIds The IDs of the songs to delete.
+     * @return The number of songs deleted.
+     */
+    public int deleteAll(Collection<String> songIds) {
+        int deleted = 0;
+        for (String songId : songIds) {
+            if (deleteSong(songId)) {
+                deleted++;
             }
         }
+        return deleted;
+    }
 
-        // If the song was in this node's list and the list is now empty, we might need to remove the node
-        if (foundAndRemoved && current.songs.isEmpty()) {
-            // Logic to remove the node from the BST
-            if (current == root) {
-                root = deleteNode(root);
-            } else if (isLeftChild) {
-                parent.left = deleteNode(current);
-            } else {
-                parent.right = deleteNode(current);
+    /**
+     * Gets a map of song counts by rating. [cite_start]Useful for the dashboard. [cite: 77]
+     * Time Complexity: O(R) where R is the number of ratings (5).
+     * Space Complexity: O(R) for the map.
+     * @return A map where keys are ratings (1-5) and values are the count of songs for that rating.
+     */
+    public Map<Integer, Integer> getSongCountByRating() {
+        Map<Integer, Integer> result = new HashMap<>();
+        for (int r = MIN_RATING; r <= MAX_RATING; r++) {
+            long count = counts[r].sum();
+            if (count > 0) {
+                result.put(r, (int) count);
             }
-            return true;
         }
+        return result;
+    }
 
-        // If not found in current node, try left or right subtrees
-        if (current.left != null) {
-            if (deleteSongRecursive(current.left, songId, current, true)) {
-                return true;
-            }
+    /**
+     * Returns the live number of songs with a rating, without allocating.
+     * Safe to call from any thread (e.g. a dashboard) while the index is being updated.
+     * Time Complexity: O(1).
+     * Space Complexity: O(1).
+     * @param rating The rating (1-5).
+     * @return The number of songs with that rating, or 0 for an invalid rating.
+     */
+    public long getSongCount(int rating) {
+        return isValid(rating) ? counts[rating].sum() : 0;
+    }
+
+    /**
+     * Returns the live number of songs across all ratings, without allocating.
+     * Time Complexity: O(R) where R is the number of ratings (5).
+     * Space Complexity: O(1).
+     * @return The total number of songs indexed.
+     */
+    public long getTotalSongCount() {
+        long total = 0;
+        for (int r = MIN_RATING; r <= MAX_RATING; r++) {
+            total += counts[r].sum();
+        }
+        return total;
+    }
+
+    // Appends a new song, or re-rates the indexed song with the same ID (swapping in this Song object)
+    private void insertOrRerate(Song song, int rating) {
+        int position = positions.get(song);
+        if (position == SongIdMap.ABSENT) {
+            place(song, rating);
+            song.setRating(rating);
+            return;
+        }
+        int oldRating = position & 7;
+        buckets[oldRating].set(position >>> 3, song);
+        rerate(song, oldRating, rating);
+    }
+
+    // Moves an indexed song to its new bucket, updates its rating field and notifies listeners of a change
+    private void rerate(Song song, int oldRating, int newRating) {
+        if (oldRating != newRating) {
+            place(song, newRating);
         }
-        if (current.right != null) {
-            if (deleteSongRecursive(current.right, songId, current, false)) {
-                return true;
+        song.setRating(newRating);
+        if (oldRating != newRating) {
+            for (RatingChangeListener listener : listeners) {
+                listener.ratingChanged(song, oldRating, newRating);
             }
         }
-        return foundAndRemoved;
     }
 
-    // Helper for actual BST node deletion (standard BST deletion logic)
-    private BSTNode deleteNode(BSTNode node) {
-        if (node.left == null && node.right == null) {
-            return null; // No children
+    // Grows each bucket and the position map once for songs about to be appended
+    private void reserve(int[] perRating) {
+        int added = 0;
+        for (int r = MIN_RATING; r <= MAX_RATING; r++) {
+            buckets[r].ensureCapacity(buckets[r].size() + perRating[r]);
+            added += perRating[r];
+        }
+        positions.reserve(added);
+    }
+
+    // Appends a song to a bucket; an ID already indexed is moved rather than indexed twice
+    private void place(Song song, int rating) {
+        int old = positions.remove(song);
+        if (old != SongIdMap.ABSENT) {
+            detach(old);
         }
-        if (node.left == null) {
-            return node.right; // Only right child
+        List<Song> bucket = buckets[rating];
+        positions.put(song, bucket.size() << 3 | rating);
+        bucket.add(song);
+        counts[rating].increment();
+    }
+
+    // Frees several stale slots, highest first, so the song swapped into a freed slot is never itself stale
+    private void detachAll(List<Integer> stale) {
+        if (!stale.isEmpty()) {
+            int[] sorted = stale.stream().mapToInt(Integer::intValue).map(p -> -p).sorted().map(p -> -p).toArray();
+            for (int position : sorted) {
+                detach(position);
+            }
         }
-        if (node.right == null) {
-            return node.left; // Only left child
+    }
+
+    private static void joinAll(ForkJoinTask<?>[] tasks) {
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
         }
+    }
 
-        // Node with two children: Get the in-order successor (smallest in the right subtree)
-        BSTNode smallestValueNode = findSmallestValue(node.right);
-        node.rating = smallestValueNode.rating; // Replace current node's rating with successor's
-        node.songs = new ArrayList<>(smallestValueNode.songs); // Copy songs as well
-        node.right = deleteNode(node.right); // Delete the in-order successor from its original position
-        return node;
+    // Frees a bucket slot whose song is no longer in the position map by swapping the bucket's last song into it
+    private void detach(int position) {
+        List<Song> bucket = buckets[position & 7];
+        int slot = position >>> 3;
+        counts[position & 7].decrement();
+        Song last = bucket.remove(bucket.size() - 1);
+        if (slot < bucket.size()) {
+            bucket.set(slot, last);
+            positions.put(last, position);
+        }
     }
 
-    private BSTNode findSmallestValue(BSTNode root) {
-        return root.left == null ? root : findSmallestValue(root.left);
+    private static boolean isValid(int rating) {
+        return rating >= MIN_RATING && rating <= MAX_RATING;
     }
 
     /**
-     * Gets a map of song counts by rating. [cite_start]Useful for the dashboard. [cite: 77]
-     * Time Complexity: O(N) where N is the number of nodes in the BST, as it's a traversal.
-     * Space Complexity: O(R) where R is the number of distinct ratings (max 5), plus O(H) for recursion stack.
-     * @return A map where keys are ratings (1-5) and values are the count of songs for that rating.
+     * Read-only concatenation of the buckets from max down to min.
      */
-    public Map<Integer, Integer> getSongCountByRating() {
-        Map<Integer, Integer> counts = new HashMap<>();
-        inOrderTraversalForCounts(root, counts);
-        return counts;
-    }
+    private final class RangeView extends AbstractList<Song> {
+        private final int min;
+        private final int max;
 
-    private void inOrderTraversalForCounts(BSTNode node, Map<Integer, Integer> counts) {
-        if (node != null) {
-            inOrderTraversalForCounts(node.left, counts);
-            counts.put(node.rating, counts.getOrDefault(node.rating, 0) + node.songs.size());
-            inOrderTraversalForCounts(node.right, counts);
+        RangeView(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public Song get(int index) {
+            if (index >= 0) {
+                for (int r = max; r >= min; r--) {
+                    if (index < buckets[r].size()) {
+                        return buckets[r].get(index);
+                    }
+                    index -= buckets[r].size();
+                }
+            }
+            throw new IndexOutOfBoundsException("Index out of range in rating view.");
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (int r = max; r >= min; r--) {
+                size += buckets[r].size();
+            }
+            return size;
         }
     }
-}
\ No newline at end of file
+}
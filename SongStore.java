@@ -0,0 +1,624 @@
+package models;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Columnar, primitive-backed storage for song metadata.
+ * Each song is addressed by an int ordinal. Durations live in a long[], ratings in a byte[],
+ * artists are stored as IDs from the global ArtistDictionary, and titles and song IDs are packed into shared UTF-8 byte arenas,
+ * so the catalog costs a handful of large arrays instead of one object graph per song.
+ * Song objects obtained from view(ordinal) are lightweight flyweights that read through to the columns.
+ * Not thread-safe for concurrent appends; concurrent reads of a fully built store are safe.
+ * Space Complexity: O(N + B) for N songs and B bytes of title/ID text.
+ */
+public class SongStore {
+    private long[] durations;
+    private byte[] ratings;
+    private int[] popularity; // Raw popularity score, -1 if unknown
+    private int[] artistIds;
+    private long[] addedSeqs; // Song.getAddedSeq of each row, assigned on append
+    private byte[] titleArena;
+    private int[] titleOffsets; // Title of ordinal i spans [titleOffsets[i], titleOffsets[i + 1])
+    private int titleBytes;
+    private byte[] idArena;
+    private int[] idOffsets;
+    private int idBytes;
+    private int[] idHashes; // String.hashCode of each song ID, so hashing a view never decodes it
+    private int size;
+
+    public SongStore() {
+        this(1024);
+    }
+
+    /**
+     * Creates a store presized for the expected number of songs.
+     * @param expectedSize The number of songs expected to be added.
+     */
+    public SongStore(int expectedSize) {
+        this(Math.max(16, expectedSize), Math.max(16, expectedSize) * 16, Math.max(16, expectedSize) * 24);
+    }
+
+    private SongStore(int capacity, int titleArenaBytes, int idArenaBytes) {
+        this.durations = new long[capacity];
+        this.ratings = new byte[capacity];
+        this.popularity = new int[capacity];
+        this.artistIds = new int[capacity];
+        this.addedSeqs = new long[capacity];
+        this.titleOffsets = new int[capacity + 1];
+        this.idOffsets = new int[capacity + 1];
+        this.idHashes = new int[capacity];
+        this.titleArena = new byte[titleArenaBytes];
+        this.idArena = new byte[idArenaBytes];
+    }
+
+    // One-row store backing a standalone Song, with columns and arenas sized exactly for it
+    static SongStore single(String id, String title, int artistId, long durationMs, int rating, int popularity) {
+        SongStore store = new SongStore(1, 0, 0);
+        store.add(id, title, artistId, durationMs, rating, popularity);
+        return store;
+    }
+
+    /**
+     * Creates a store holding the songs of several stores one after another, as if each had been appended in turn.
+     * Columns and arenas are bulk-copied into arrays sized for the total, one task per part, and title and ID offsets
+     * are shifted by the bytes of the parts before. The songs get new consecutive added sequence numbers in their
+     * combined order. Artist IDs are copied as they are, since every store interns into the global ArtistDictionary.
+     * Time Complexity: O(N + B) spread over the pool's threads, for N songs and B bytes of text.
+     * Space Complexity: O(N + B) for the new store.
+     * @param parts The stores to combine, in order; they must not change while being copied.
+     * @param pool The pool running the copies.
+     * @return A new store with every song of the parts.
+     * @throws IllegalStateException If the combined songs or text would not fit in int-indexed arrays.
+     */
+    public static SongStore concat(List<SongStore> parts, ForkJoinPool pool) {
+        int[] firstOrdinals = new int[parts.size()];
+        int[] firstTitleBytes = new int[parts.size()];
+        int[] firstIdBytes = new int[parts.size()];
+        long rows = 0;
+        long titleTotal = 0;
+        long idTotal = 0;
+        for (int p = 0; p < parts.size(); p++) {
+            SongStore part = parts.get(p);
+            firstOrdinals[p] = (int) rows;
+            firstTitleBytes[p] = (int) titleTotal;
+            firstIdBytes[p] = (int) idTotal;
+            rows += part.size;
+            titleTotal += part.titleBytes;
+            idTotal += part.idBytes;
+            if (rows > Integer.MAX_VALUE - 8 || titleTotal > Integer.MAX_VALUE - 8 || idTotal > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Catalog too large for one store: over 2 GB of songs, titles or IDs");
+            }
+        }
+        SongStore store = new SongStore(Math.max(16, (int) rows), (int) titleTotal, (int) idTotal);
+        store.size = (int) rows;
+        store.titleBytes = (int) titleTotal;
+        store.idBytes = (int) idTotal;
+        long firstSeq = Song.reserveAddedSeqs((int) rows);
+
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[parts.size()];
+        for (int p = 0; p < parts.size(); p++) {
+            SongStore part = parts.get(p);
+            int row = firstOrdinals[p];
+            int titleShift = firstTitleBytes[p];
+            int idShift = firstIdBytes[p];
+            tasks[p] = pool.submit(() -> store.copyFrom(part, row, titleShift, idShift, firstSeq));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return store;
+    }
+
+    /**
+     * Writes every column and arena as raw big-endian arrays, for readColumns to restore with bulk copies.
+     * Artists are written as a table of the names this store uses followed by an index into it per song,
+     * since global ArtistDictionary IDs depend on the order artists were first seen.
+     * Layout: song count, artist count, per artist: int length + UTF-8 name; then artist indexes (int[N]),
+     * durations (long[N]), ratings (byte[N]), popularity (int[N]), ID hashes (int[N]),
+     * title arena length + bytes, title end offsets (int[N]), ID arena length + bytes, ID end offsets (int[N]).
+     * Time Complexity: O(N + B) for N songs and B bytes of text.
+     * Space Complexity: O(A) for the artist table, where A is the size of the ArtistDictionary.
+     * @param out The stream to write to.
+     * @throws IOException If the stream cannot be written.
+     */
+    public void writeColumns(DataOutputStream out) throws IOException {
+        ArtistDictionary artists = ArtistDictionary.global();
+        int[] localIds = new int[artists.size()];
+        Arrays.fill(localIds, -1);
+        int[] artistIndexes = new int[size];
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int artistId = artistIds[i];
+            if (localIds[artistId] < 0) {
+                localIds[artistId] = names.size();
+                names.add(artists.name(artistId));
+            }
+            artistIndexes[i] = localIds[artistId];
+        }
+        out.writeInt(size);
+        out.writeInt(names.size());
+        for (String name : names) {
+            byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+        ByteBuffer scratch = ByteBuffer.allocate(1 << 16);
+        writeInts(out, artistIndexes, 0, size, scratch);
+        for (int from = 0; from < size; from += scratch.capacity() / 8) {
+            int count = Math.min(size - from, scratch.capacity() / 8);
+            scratch.clear();
+            scratch.asLongBuffer().put(durations, from, count);
+            out.write(scratch.array(), 0, count * 8);
+        }
+        out.write(ratings, 0, size);
+        writeInts(out, popularity, 0, size, scratch);
+        writeInts(out, idHashes, 0, size, scratch);
+        out.writeInt(titleBytes);
+        out.write(titleArena, 0, titleBytes);
+        writeInts(out, titleOffsets, 1, size, scratch);
+        out.writeInt(idBytes);
+        out.write(idArena, 0, idBytes);
+        writeInts(out, idOffsets, 1, size, scratch);
+    }
+
+    /**
+     * Restores a store written by writeColumns, reading each column with one bulk copy. Artist names are interned
+     * into the global ArtistDictionary once each and the per-song indexes remapped; songs get new added sequence
+     * numbers in ordinal order, as if appended now.
+     * Time Complexity: O(N + B) for N songs and B bytes of text.
+     * Space Complexity: O(N + B) for the new store.
+     * @param buf The buffer positioned at the columns; it is left positioned just after them.
+     * @return The restored store.
+     * @throws IllegalArgumentException If the counts or offsets are inconsistent.
+     */
+    public static SongStore readColumns(ByteBuffer buf) {
+        int n = buf.getInt();
+        int artistCount = buf.getInt();
+        if (n < 0 || artistCount < 0 || artistCount > n) {
+            throw new IllegalArgumentException("Bad song or artist count: " + n + ", " + artistCount);
+        }
+        int[] globalIds = new int[artistCount];
+        for (int a = 0; a < artistCount; a++) {
+            byte[] utf8 = new byte[buf.getInt()];
+            buf.get(utf8);
+            globalIds[a] = ArtistDictionary.global().intern(new String(utf8, StandardCharsets.UTF_8));
+        }
+        SongStore store = new SongStore(Math.max(16, n), 0, 0);
+        readInts(buf, store.artistIds, 0, n);
+        buf.asLongBuffer().get(store.durations, 0, n);
+        buf.position(buf.position() + n * 8);
+        buf.get(store.ratings, 0, n);
+        readInts(buf, store.popularity, 0, n);
+        readInts(buf, store.idHashes, 0, n);
+        int titleBytes = buf.getInt();
+        store.titleArena = new byte[Math.max(16, titleBytes)];
+        buf.get(store.titleArena, 0, titleBytes);
+        readInts(buf, store.titleOffsets, 1, n);
+        int idBytes = buf.getInt();
+        store.idArena = new byte[Math.max(16, idBytes)];
+        buf.get(store.idArena, 0, idBytes);
+        readInts(buf, store.idOffsets, 1, n);
+        if (n > 0 && (store.titleOffsets[n] != titleBytes || store.idOffsets[n] != idBytes)) {
+            throw new IllegalArgumentException("Text offsets do not match the arena lengths");
+        }
+        for (int i = 0; i < n; i++) {
+            int local = store.artistIds[i];
+            if (local < 0 || local >= artistCount) {
+                throw new IllegalArgumentException("Bad artist index " + local + " for song " + i);
+            }
+            store.artistIds[i] = globalIds[local];
+        }
+        store.titleBytes = titleBytes;
+        store.idBytes = idBytes;
+        long firstSeq = Song.reserveAddedSeqs(n);
+        for (int i = 0; i < n; i++) {
+            store.addedSeqs[i] = firstSeq + i;
+        }
+        store.size = n;
+        return store;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values, int from, int count, ByteBuffer scratch) throws IOException {
+        int perBlock = scratch.capacity() / 4;
+        for (int done = 0; done < count; done += perBlock) {
+            int block = Math.min(count - done, perBlock);
+            scratch.clear();
+            scratch.asIntBuffer().put(values, from + done, block);
+            out.write(scratch.array(), 0, block * 4);
+        }
+    }
+
+    private static void readInts(ByteBuffer buf, int[] into, int at, int count) {
+        buf.asIntBuffer().get(into, at, count);
+        buf.position(buf.position() + count * 4);
+    }
+
+    // Copies every row of part into this store starting at ordinal row; concat sized and reserved the space
+    private void copyFrom(SongStore part, int row, int titleShift, int idShift, long firstSeq) {
+        int n = part.size;
+        System.arraycopy(part.durations, 0, durations, row, n);
+        System.arraycopy(part.ratings, 0, ratings, row, n);
+        System.arraycopy(part.popularity, 0, popularity, row, n);
+        System.arraycopy(part.artistIds, 0, artistIds, row, n);
+        System.arraycopy(part.idHashes, 0, idHashes, row, n);
+        System.arraycopy(part.titleArena, 0, titleArena, titleShift, part.titleBytes);
+        System.arraycopy(part.idArena, 0, idArena, idShift, part.idBytes);
+        for (int i = 0; i < n; i++) {
+            titleOffsets[row + i + 1] = titleShift + part.titleOffsets[i + 1];
+            idOffsets[row + i + 1] = idShift + part.idOffsets[i + 1];
+            addedSeqs[row + i] = firstSeq + row + i;
+        }
+    }
+
+    /**
+     * Appends a song and returns its ordinal.
+     * Time Complexity: O(T + I) amortized for the title and ID lengths.
+     * Space Complexity: O(T + I) arena bytes plus O(1) per column.
+     * @return The ordinal of the new song.
+     */
+    public int add(String id, String title, String artist, long durationMs, int rating) {
+        return add(id, title, ArtistDictionary.global().intern(artist), durationMs, rating, -1);
+    }
+
+    /**
+     * Appends a song together with the raw popularity score its rating was derived from.
+     * Time Complexity: O(T + I) amortized for the title and ID lengths.
+     * Space Complexity: O(T + I) arena bytes plus O(1) per column.
+     * @return The ordinal of the new song.
+     */
+    public int add(String id, String title, String artist, long durationMs, int rating, int popularity) {
+        return add(id, title, ArtistDictionary.global().intern(artist), durationMs, rating, popularity);
+    }
+
+    /**
+     * Appends a song whose artist is already interned in the global ArtistDictionary.
+     * Time Complexity: O(T + I) amortized for the title and ID lengths.
+     * Space Complexity: O(T + I) arena bytes plus O(1) per column.
+     * @return The ordinal of the new song.
+     */
+    public int add(String id, String title, int artistId, long durationMs, int rating, int popularity) {
+        if (size == durations.length) {
+            int newCapacity = size * 2;
+            durations = Arrays.copyOf(durations, newCapacity);
+            ratings = Arrays.copyOf(ratings, newCapacity);
+            this.popularity = Arrays.copyOf(this.popularity, newCapacity);
+            artistIds = Arrays.copyOf(artistIds, newCapacity);
+            addedSeqs = Arrays.copyOf(addedSeqs, newCapacity);
+            titleOffsets = Arrays.copyOf(titleOffsets, newCapacity + 1);
+            idOffsets = Arrays.copyOf(idOffsets, newCapacity + 1);
+            idHashes = Arrays.copyOf(idHashes, newCapacity);
+        }
+        int ordinal = size;
+        durations[ordinal] = durationMs;
+        ratings[ordinal] = (byte) rating;
+        this.popularity[ordinal] = popularity;
+        artistIds[ordinal] = artistId;
+        addedSeqs[ordinal] = Song.nextAddedSeq();
+
+        byte[] titleUtf8 = title.getBytes(StandardCharsets.UTF_8);
+        titleArena = ensureCapacity(titleArena, titleBytes + titleUtf8.length);
+        System.arraycopy(titleUtf8, 0, titleArena, titleBytes, titleUtf8.length);
+        titleBytes += titleUtf8.length;
+        titleOffsets[ordinal + 1] = titleBytes;
+
+        byte[] idUtf8 = id.getBytes(StandardCharsets.UTF_8);
+        idArena = ensureCapacity(idArena, idBytes + idUtf8.length);
+        System.arraycopy(idUtf8, 0, idArena, idBytes, idUtf8.length);
+        idBytes += idUtf8.length;
+        idOffsets[ordinal + 1] = idBytes;
+        idHashes[ordinal] = id.hashCode();
+
+        size++;
+        return ordinal;
+    }
+
+    /**
+     * Returns a flyweight Song view of the given ordinal. Views hold only the store and the ordinal.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     * @param ordinal The song ordinal.
+     * @return A Song backed by this store.
+     */
+    public Song view(int ordinal) {
+        checkOrdinal(ordinal);
+        return new Song(this, ordinal);
+    }
+
+    /**
+     * Appends flyweight views for the ordinals in [fromOrdinal, toOrdinal) to a list.
+     * Time Complexity: O(K) for K views.
+     * Space Complexity: O(K).
+     */
+    public void viewsInto(int fromOrdinal, int toOrdinal, List<Song> out) {
+        for (int i = fromOrdinal; i < toOrdinal; i++) {
+            out.add(new Song(this, i));
+        }
+    }
+
+    // Column accessors, all O(1) except the String-producing ones which are O(length)
+    public String getId(int ordinal) {
+        checkOrdinal(ordinal);
+        return new String(idArena, idOffsets[ordinal], idOffsets[ordinal + 1] - idOffsets[ordinal], StandardCharsets.UTF_8);
+    }
+
+    public String getTitle(int ordinal) {
+        checkOrdinal(ordinal);
+        return new String(titleArena, titleOffsets[ordinal], titleOffsets[ordinal + 1] - titleOffsets[ordinal], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the UTF-8 length of a title, an upper bound on its length in chars.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public int getTitleByteLength(int ordinal) {
+        checkOrdinal(ordinal);
+        return titleOffsets[ordinal + 1] - titleOffsets[ordinal];
+    }
+
+    /**
+     * Copies an ASCII title into a char buffer without creating a String.
+     * Time Complexity: O(T) for the title length.
+     * Space Complexity: O(1)
+     * @param ordinal The song ordinal.
+     * @param out The buffer, with room for getTitleByteLength(ordinal) chars at the given offset.
+     * @param at Where to start writing in the buffer.
+     * @return The number of chars written, or -1 if the title is not ASCII (the buffer may have been written to).
+     */
+    public int copyAsciiTitle(int ordinal, char[] out, int at) {
+        checkOrdinal(ordinal);
+        int from = titleOffsets[ordinal];
+        int length = titleOffsets[ordinal + 1] - from;
+        for (int i = 0; i < length; i++) {
+            byte b = titleArena[from + i];
+            if (b < 0) {
+                return -1;
+            }
+            out[at + i] = (char) b;
+        }
+        return length;
+    }
+
+    public int getArtistId(int ordinal) {
+        checkOrdinal(ordinal);
+        return artistIds[ordinal];
+    }
+
+    public String getArtistName(int artistId) {
+        return ArtistDictionary.global().name(artistId);
+    }
+
+    public long getDurationMs(int ordinal) {
+        checkOrdinal(ordinal);
+        return durations[ordinal];
+    }
+
+    public int getRating(int ordinal) {
+        checkOrdinal(ordinal);
+        return ratings[ordinal];
+    }
+
+    public void setRating(int ordinal, int rating) {
+        checkOrdinal(ordinal);
+        ratings[ordinal] = (byte) rating;
+    }
+
+    public int getPopularity(int ordinal) {
+        checkOrdinal(ordinal);
+        return popularity[ordinal];
+    }
+
+    public long getAddedSeq(int ordinal) {
+        checkOrdinal(ordinal);
+        return addedSeqs[ordinal];
+    }
+
+    /**
+     * Returns the number of songs stored.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the hash of a song's ID, equal to getId(ordinal).hashCode(), without decoding it.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public int idHash(int ordinal) {
+        checkOrdinal(ordinal);
+        return idHashes[ordinal];
+    }
+
+    /**
+     * Checks whether a song of this store has the same ID as a song of another store by comparing UTF-8 bytes.
+     * Time Complexity: O(I) for the ID length.
+     * Space Complexity: O(1)
+     */
+    public boolean idEquals(int ordinal, SongStore other, int otherOrdinal) {
+        checkOrdinal(ordinal);
+        other.checkOrdinal(otherOrdinal);
+        if (idHashes[ordinal] != other.idHashes[otherOrdinal]) {
+            return false;
+        }
+        return Arrays.equals(idArena, idOffsets[ordinal], idOffsets[ordinal + 1],
+                other.idArena, other.idOffsets[otherOrdinal], other.idOffsets[otherOrdinal + 1]);
+    }
+
+    /**
+     * Checks whether a song has the given ID. ASCII IDs are compared byte by char without decoding;
+     * anything else falls back to decoding the stored ID.
+     * Time Complexity: O(I) for the ID length.
+     * Space Complexity: O(1) for ASCII IDs, O(I) otherwise.
+     */
+    public boolean idEquals(int ordinal, String id) {
+        checkOrdinal(ordinal);
+        if (idHashes[ordinal] != id.hashCode()) {
+            return false;
+        }
+        int from = idOffsets[ordinal];
+        int length = idOffsets[ordinal + 1] - from;
+        if (length != id.length()) {
+            return length >= id.length() && getId(ordinal).equals(id); // Multi-byte characters make the UTF-8 form longer
+        }
+        for (int i = 0; i < length; i++) {
+            int b = idArena[from + i];
+            if (b < 0) {
+                return getId(ordinal).equals(id);
+            }
+            if (b != id.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the titles of two songs with the same order as String.CASE_INSENSITIVE_ORDER.
+     * ASCII prefixes are folded and compared straight from the UTF-8 bytes; only when a non-ASCII byte is reached
+     * are the two titles decoded, since UTF-8 byte order differs from UTF-16 char order.
+     * Time Complexity: O(min(T1, T2))
+     * Space Complexity: O(1) for ASCII titles, O(T1 + T2) otherwise.
+     */
+    public int compareTitlesIgnoreCase(int a, int b) {
+        checkOrdinal(a);
+        checkOrdinal(b);
+        int i = titleOffsets[a];
+        int iEnd = titleOffsets[a + 1];
+        int j = titleOffsets[b];
+        int jEnd = titleOffsets[b + 1];
+        while (i < iEnd && j < jEnd) {
+            int x = titleArena[i++];
+            int y = titleArena[j++];
+            if (x < 0 || y < 0) {
+                return String.CASE_INSENSITIVE_ORDER.compare(getTitle(a), getTitle(b));
+            }
+            x = foldAscii(x);
+            y = foldAscii(y);
+            if (x != y) {
+                return x - y;
+            }
+        }
+        return (iEnd - i) - (jEnd - j);
+    }
+
+    /**
+     * Returns a hash of a song's title that ignores case, equal to hashIgnoreCase(getTitle(ordinal)).
+     * ASCII titles are hashed straight from the UTF-8 bytes; others are decoded first.
+     * Time Complexity: O(T) for the title length.
+     * Space Complexity: O(1) for ASCII titles, O(T) otherwise.
+     */
+    public int titleHashIgnoreCase(int ordinal) {
+        checkOrdinal(ordinal);
+        int from = titleOffsets[ordinal];
+        int to = titleOffsets[ordinal + 1];
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            int b = titleArena[i];
+            if (b < 0) {
+                return hashIgnoreCase(getTitle(ordinal));
+            }
+            h = 31 * h + foldAscii(b);
+        }
+        return h;
+    }
+
+    /**
+     * Hashes a string so that strings equal ignoring case (as String.equalsIgnoreCase) hash alike.
+     * Time Complexity: O(L) for the string length.
+     * Space Complexity: O(1)
+     */
+    public static int hashIgnoreCase(String s) {
+        int h = 0;
+        for (int i = 0; i < s.length(); i++) {
+            h = 31 * h + fold(s.charAt(i));
+        }
+        return h;
+    }
+
+    /**
+     * Checks whether a song's title equals a string ignoring case, as String.equalsIgnoreCase,
+     * comparing ASCII titles straight from the UTF-8 bytes.
+     * Time Complexity: O(T) for the title length.
+     * Space Complexity: O(1) for ASCII titles, O(T) otherwise.
+     */
+    public boolean titleEqualsIgnoreCase(int ordinal, String title) {
+        checkOrdinal(ordinal);
+        int from = titleOffsets[ordinal];
+        int length = titleOffsets[ordinal + 1] - from;
+        if (length < title.length()) {
+            return false; // UTF-8 is never shorter than the char count
+        }
+        for (int i = 0; i < length; i++) {
+            int b = titleArena[from + i];
+            if (b < 0) {
+                return getTitle(ordinal).equalsIgnoreCase(title);
+            }
+            if (i >= title.length() || foldAscii(b) != fold(title.charAt(i))) {
+                return false;
+            }
+        }
+        return length == title.length();
+    }
+
+    /**
+     * Checks whether two songs of this store have titles equal ignoring case, as String.equalsIgnoreCase.
+     * Time Complexity: O(T) for the title length.
+     * Space Complexity: O(1) for ASCII titles, O(T) otherwise.
+     */
+    public boolean titleEqualsIgnoreCase(int a, int b) {
+        checkOrdinal(a);
+        checkOrdinal(b);
+        int i = titleOffsets[a];
+        int iEnd = titleOffsets[a + 1];
+        int j = titleOffsets[b];
+        int jEnd = titleOffsets[b + 1];
+        while (i < iEnd && j < jEnd) {
+            int x = titleArena[i++];
+            int y = titleArena[j++];
+            if (x < 0 || y < 0) {
+                return getTitle(a).equalsIgnoreCase(getTitle(b));
+            }
+            if (foldAscii(x) != foldAscii(y)) {
+                return false;
+            }
+        }
+        return i == iEnd && j == jEnd; // All ASCII so far, so unequal byte lengths are unequal char lengths
+    }
+
+    // Case folding used by String.equalsIgnoreCase
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static int foldAscii(int c) {
+        return (c >= 'A' && c <= 'Z') ? c + ('a' - 'A') : c;
+    }
+
+    private static byte[] ensureCapacity(byte[] arena, int required) {
+        if (required <= arena.length) {
+            return arena;
+        }
+        long newCapacity = Math.max(required, (long) arena.length * 2);
+        if (newCapacity > Integer.MAX_VALUE - 8) {
+            newCapacity = Integer.MAX_VALUE - 8;
+        }
+        return Arrays.copyOf(arena, (int) newCapacity);
+    }
+
+    private void checkOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("Ordinal: " + ordinal + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package sorting;
+
+/**
+ * The song attributes a SortSpec can order by.
+ */
+public enum SortKey {
+    TITLE(true),
+    ARTIST(true),
+    DURATION(false),
+    RATING(false),
+    POPULARITY(false),
+    ADDED(false); // Order in which songs were added to the catalog (ascending = oldest first)
+
+    private final boolean text;
+
+    SortKey(boolean text) {
+        this.text = text;
+    }
+
+    /**
+     * Returns whether the key is compared as case-insensitive text rather than as a number.
+     * @return true for TITLE and ARTIST.
+     */
+    public boolean isText() {
+        return text;
+    }
+}
@@ -0,0 +1,264 @@
+package sorting;
+
+import models.Song;
+import models.SongStore;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Typed, immutable description of a (possibly composite) sort order, e.g.
+ * SortSpec.by(SortKey.ARTIST).thenDescending(SortKey.RATING).then(SortKey.TITLE).
+ * Text keys compare case-insensitively; ties on every key keep input order in the stable Sorters.
+ * The legacy criteria strings are parsed into specs, so "duration_desc" and SortSpec.byDescending(DURATION)
+ * are the same order.
+ */
+public final class SortSpec {
+    private final SortKey[] keys;
+    private final boolean[] descending;
+    private Comparator<Song> comparator; // Built once on first use
+
+    private SortSpec(SortKey[] keys, boolean[] descending) {
+        this.keys = keys;
+        this.descending = descending;
+    }
+
+    /**
+     * Starts a spec ordering by a key, ascending.
+     * @param key The primary key.
+     * @return The spec.
+     */
+    public static SortSpec by(SortKey key) {
+        return new SortSpec(new SortKey[] {key}, new boolean[] {false});
+    }
+
+    /**
+     * Starts a spec ordering by a key, descending.
+     * @param key The primary key.
+     * @return The spec.
+     */
+    public static SortSpec byDescending(SortKey key) {
+        return new SortSpec(new SortKey[] {key}, new boolean[] {true});
+    }
+
+    /**
+     * Returns this spec with an ascending tie-breaker appended.
+     * @param key The next key.
+     * @return A new spec.
+     */
+    public SortSpec then(SortKey key) {
+        return append(key, false);
+    }
+
+    /**
+     * Returns this spec with a descending tie-breaker appended.
+     * @param key The next key.
+     * @return A new spec.
+     */
+    public SortSpec thenDescending(SortKey key) {
+        return append(key, true);
+    }
+
+    /**
+     * Parses a criteria string: comma-separated keys, each optionally suffixed with "_asc" or "_desc"
+     * (ascending by default), e.g. "artist,rating_desc,title". Keys are title, artist, duration, rating,
+     * popularity and added; "recently_added" is short for "added_desc".
+     * Time Complexity: O(L) for a string of length L.
+     * Space Complexity: O(K) for K keys.
+     * @param criteria The criteria string.
+     * @return The spec.
+     * @throws IllegalArgumentException If the string names an unknown key.
+     */
+    public static SortSpec parse(String criteria) {
+        SortSpec spec = null;
+        for (String token : criteria.split(",")) {
+            String name = token.trim().toLowerCase();
+            boolean desc = false;
+            if (name.equals("recently_added")) {
+                name = "added";
+                desc = true;
+            } else if (name.endsWith("_desc")) {
+                name = name.substring(0, name.length() - 5);
+                desc = true;
+            } else if (name.endsWith("_asc")) {
+                name = name.substring(0, name.length() - 4);
+            }
+            SortKey key;
+            try {
+                key = SortKey.valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported sorting criteria: " + criteria);
+            }
+            spec = (spec == null) ? new SortSpec(new SortKey[] {key}, new boolean[] {desc}) : spec.append(key, desc);
+        }
+        return spec;
+    }
+
+    /**
+     * Returns the number of keys in the spec.
+     * @return The key count.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the i-th key.
+     * @param i The key position (0 = primary).
+     * @return The key.
+     */
+    public SortKey key(int i) {
+        return keys[i];
+    }
+
+    /**
+     * Returns whether the i-th key sorts descending.
+     * @param i The key position (0 = primary).
+     * @return true if descending.
+     */
+    public boolean isDescending(int i) {
+        return descending[i];
+    }
+
+    /**
+     * Returns a Comparator implementing the spec, built once and cached.
+     * Time Complexity: O(K) for K keys on first call, O(1) afterwards.
+     * Space Complexity: O(K).
+     * @return The comparator.
+     */
+    public Comparator<Song> comparator() {
+        if (comparator == null) {
+            Comparator<Song> chain = null;
+            for (int i = 0; i < keys.length; i++) {
+                Comparator<Song> c = keyComparator(keys[i]);
+                if (descending[i]) {
+                    c = c.reversed();
+                }
+                chain = (chain == null) ? c : chain.thenComparing(c);
+            }
+            comparator = chain;
+        }
+        return comparator;
+    }
+
+    /**
+     * Returns a comparator over ordinals of one SongStore implementing the spec, reading the columns
+     * directly instead of going through Song views.
+     * Time Complexity: O(K) for K keys.
+     * Space Complexity: O(K).
+     * @param store The store the ordinals refer to.
+     * @return The comparator.
+     */
+    OrdinalComparator ordinalComparator(SongStore store) {
+        OrdinalComparator chain = null;
+        for (int i = 0; i < keys.length; i++) {
+            OrdinalComparator c = keyOrdinalComparator(keys[i], store);
+            if (descending[i]) {
+                OrdinalComparator ascending = c;
+                c = (a, b) -> ascending.compare(b, a);
+            }
+            if (chain == null) {
+                chain = c;
+            } else {
+                OrdinalComparator first = chain, next = c;
+                chain = (a, b) -> {
+                    int r = first.compare(a, b);
+                    return (r != 0) ? r : next.compare(a, b);
+                };
+            }
+        }
+        return chain;
+    }
+
+    /** Compares two ordinals of a SongStore. */
+    interface OrdinalComparator {
+        int compare(int a, int b);
+    }
+
+    private static OrdinalComparator keyOrdinalComparator(SortKey key, SongStore store) {
+        switch (key) {
+            case TITLE:
+                return store::compareTitlesIgnoreCase;
+            case ARTIST:
+                return (a, b) -> (store.getArtistId(a) == store.getArtistId(b)) ? 0
+                        : String.CASE_INSENSITIVE_ORDER.compare(
+                                store.getArtistName(store.getArtistId(a)), store.getArtistName(store.getArtistId(b)));
+            case DURATION:
+                return (a, b) -> Long.compare(store.getDurationMs(a), store.getDurationMs(b));
+            case RATING:
+                return (a, b) -> Integer.compare(store.getRating(a), store.getRating(b));
+            case POPULARITY:
+                return (a, b) -> Integer.compare(store.getPopularity(a), store.getPopularity(b));
+            case ADDED:
+                return (a, b) -> Long.compare(store.getAddedSeq(a), store.getAddedSeq(b));
+            default:
+                throw new IllegalArgumentException("Unsupported sort key: " + key);
+        }
+    }
+
+    private static Comparator<Song> keyComparator(SortKey key) {
+        switch (key) {
+            case TITLE:
+                return SortSpec::compareTitles;
+            case ARTIST:
+                return SortSpec::compareArtists;
+            case DURATION:
+                return Comparator.comparingLong(Song::getDurationMs);
+            case RATING:
+                return Comparator.comparingInt(Song::getRating);
+            case POPULARITY:
+                return Comparator.comparingInt(Song::getPopularity);
+            case ADDED:
+                return Comparator.comparingLong(Song::getAddedSeq);
+            default:
+                throw new IllegalArgumentException("Unsupported sort key: " + key);
+        }
+    }
+
+    // Views of one store compare title bytes in place instead of decoding two Strings per comparison
+    private static int compareTitles(Song a, Song b) {
+        SongStore store = a.getStore();
+        if (store != null && store == b.getStore()) {
+            return store.compareTitlesIgnoreCase(a.getOrdinal(), b.getOrdinal());
+        }
+        return String.CASE_INSENSITIVE_ORDER.compare(a.getTitle(), b.getTitle());
+    }
+
+    // Equal artist IDs are equal names, so only different artists need their names compared
+    private static int compareArtists(Song a, Song b) {
+        if (a.getArtistId() == b.getArtistId()) {
+            return 0;
+        }
+        return String.CASE_INSENSITIVE_ORDER.compare(a.getArtist(), b.getArtist());
+    }
+
+    private SortSpec append(SortKey key, boolean desc) {
+        SortKey[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+        boolean[] newDescending = Arrays.copyOf(descending, descending.length + 1);
+        newKeys[keys.length] = key;
+        newDescending[keys.length] = desc;
+        return new SortSpec(newKeys, newDescending);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SortSpec)) return false;
+        SortSpec other = (SortSpec) o;
+        return Arrays.equals(keys, other.keys) && Arrays.equals(descending, other.descending);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(keys) + Arrays.hashCode(descending);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(keys[i].name().toLowerCase()).append(descending[i] ? "_desc" : "_asc");
+        }
+        return sb.toString();
+    }
+}
@@ -12,7 +12,19 @@ public interface Sorter {
      *
      * @param songs The list of songs to sort.
      * [cite_start]@param criteria The sorting criterion (e.g., "title", "duration_asc", "duration_desc"). [cite: 51, 52, 53]
+     * Any string accepted by SortSpec.parse works, e.g. "artist,rating_desc,title".
      * Time Complexity and Space Complexity should be specified in implementing classes.
      */
-    void sort(List<Song> songs, String criteria);
+    default void sort(List<Song> songs, String criteria) {
+        sort(songs, SortSpec.parse(criteria));
+    }
+
+    /**
+     * Sorts a list of songs by a typed, possibly composite, sort spec. Sorting is stable.
+     *
+     * @param songs The list of songs to sort.
+     * @param spec The sort order.
+     * Time Complexity and Space Complexity should be specified in implementing classes.
+     */
+    void sort(List<Song> songs, SortSpec spec);
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package sorting;
+
+import models.Song;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Selects the first k songs of a sort order without sorting everything, e.g. "top 5 longest songs".
+ * Keeps a bounded heap whose root is the worst of the k best songs seen so far; each new song only
+ * has to beat that root. Takes the same criteria as the Sorters, and ties keep input order, so the
+ * result equals the first k songs of a stable sort.
+ * Time and Space complexities are annotated.
+ */
+public class TopKSelector {
+
+    /**
+     * Returns the first k songs in criteria order.
+     * Time Complexity: O(N log k) for N songs.
+     * Space Complexity: O(k) for the heap.
+     * @param songs The songs to select from (read once, in order).
+     * @param criteria The sorting criteria, anything SortSpec.parse accepts (e.g. "duration_desc").
+     * @param k The number of songs to select.
+     * @return Up to k songs, in criteria order.
+     */
+    public List<Song> select(Iterable<Song> songs, String criteria, int k) {
+        return select(songs, SortSpec.parse(criteria), k);
+    }
+
+    /**
+     * Returns the first k songs in spec order.
+     * Time Complexity: O(N log k) for N songs.
+     * Space Complexity: O(k) for the heap.
+     * @param songs The songs to select from (read once, in order).
+     * @param spec The sort order.
+     * @param k The number of songs to select.
+     * @return Up to k songs, in spec order.
+     */
+    public List<Song> select(Iterable<Song> songs, SortSpec spec, int k) {
+        if (songs == null || k <= 0) {
+            return new ArrayList<>();
+        }
+        Comparator<Song> comparator = spec.comparator();
+        Song[] heap = new Song[Math.min(k, 1024)];
+        long[] seqs = new long[heap.length]; // Input position, breaks ties so earlier songs win
+        int size = 0;
+        long seq = 0;
+        for (Song song : songs) {
+            if (size < k) {
+                if (size == heap.length) {
+                    int newCapacity = (int) Math.min(k, heap.length * 2L);
+                    heap = Arrays.copyOf(heap, newCapacity);
+                    seqs = Arrays.copyOf(seqs, newCapacity);
+                }
+                siftUp(heap, seqs, size++, song, seq, comparator);
+            } else if (comparator.compare(song, heap[0]) < 0) {
+                // Strictly better than the worst kept song; equal songs lose to the earlier one
+                siftDown(heap, seqs, size, song, seq, comparator);
+            }
+            seq++;
+        }
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        final Song[] kept = heap;
+        final long[] keptSeqs = seqs;
+        Arrays.sort(order, (a, b) -> {
+            int c = comparator.compare(kept[a], kept[b]);
+            return (c != 0) ? c : Long.compare(keptSeqs[a], keptSeqs[b]);
+        });
+        List<Song> result = new ArrayList<>(size);
+        for (int i : order) {
+            result.add(heap[i]);
+        }
+        return result;
+    }
+
+    // True if (a, seqA) comes after (b, seqB) in the order, i.e. is worse
+    private static boolean worse(Song a, long seqA, Song b, long seqB, Comparator<Song> comparator) {
+        int c = comparator.compare(a, b);
+        return c > 0 || (c == 0 && seqA > seqB);
+    }
+
+    private static void siftUp(Song[] heap, long[] seqs, int i, Song song, long seq, Comparator<Song> comparator) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(song, seq, heap[parent], seqs[parent], comparator)) {
+                break;
+            }
+            heap[i] = heap[parent];
+            seqs[i] = seqs[parent];
+            i = parent;
+        }
+        heap[i] = song;
+        seqs[i] = seq;
+    }
+
+    // Replaces the root (the worst kept song) and restores the heap
+    private static void siftDown(Song[] heap, long[] seqs, int size, Song song, long seq, Comparator<Song> comparator) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && worse(heap[child + 1], seqs[child + 1], heap[child], seqs[child], comparator)) {
+                child++;
+            }
+            if (!worse(heap[child], seqs[child], song, seq, comparator)) {
+                break;
+            }
+            heap[i] = heap[child];
+            seqs[i] = seqs[child];
+            i = child;
+        }
+        heap[i] = song;
+        seqs[i] = seq;
+    }
+}
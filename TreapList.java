@@ -0,0 +1,679 @@
+package playlist;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Implements a positional list as an implicit treap: a randomized balanced tree ordered by position
+ * instead of by key, where each node's index is the size of everything to its left.
+ * get/add/delete/move by index are O(log N) instead of the O(N) walk of a linked list,
+ * and reverse is O(1) through a lazy flag pushed down as nodes are visited.
+ * Nodes are slots in parallel arrays rather than objects: data[i] holds the element, left[i]/right[i] the
+ * child slots (NIL if none), and size[i], priority[i] and reversed[i] the node's bookkeeping. Deleted and
+ * cleared slots go on a free list and are reused, and move re-links the slot it detaches, so once the arrays
+ * have grown, playlist edits allocate nothing.
+ * Reads (get, toList, iteration) never modify the tree: they read pending reversals without applying them,
+ * so they are safe alongside other readers, e.g. spliterator halves traversing in parallel.
+ * Iteration walks the tree in order in O(N) total and is fail-fast; listIterator adds a bidirectional cursor that
+ * can insert, remove and replace elements in place.
+ * Time complexities are annotated for each method (expected, over the random priorities).
+ * Space Complexity: O(C) for a capacity of C >= N slots.
+ */
+public class TreapList<T> implements Iterable<T> {
+    private static final int NIL = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Object[] data;
+    private int[] left;
+    private int[] right; // Also links the free list
+    private int[] size; // Number of nodes in this subtree, which is what lets positions be searched
+    private int[] priority;
+    private boolean[] reversed; // This subtree's order is pending reversal (children not yet swapped)
+    private int root = NIL;
+    private int used; // Slots below this have been handed out at least once
+    private int free = NIL; // First slot of the free list
+    private int modCount; // Structural changes, so iterators can detect edits
+    private int seed = 0x2545F491; // xorshift state for node priorities
+
+    // Results of split(), kept in fields so splitting does not allocate
+    private int splitLeft;
+    private int splitRight;
+
+    public TreapList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty list with room for a number of elements before its arrays grow.
+     * @param capacity The initial capacity.
+     */
+    public TreapList(int capacity) {
+        capacity = Math.max(1, capacity);
+        this.data = new Object[capacity];
+        this.left = new int[capacity];
+        this.right = new int[capacity];
+        this.size = new int[capacity];
+        this.priority = new int[capacity];
+        this.reversed = new boolean[capacity];
+    }
+
+    /**
+     * Adds an element to the end of the list.
+     * Time Complexity: O(log N)
+     * Space Complexity: O(1), no allocation when a free slot exists
+     * @param data The data to add.
+     */
+    public void addLast(T data) {
+        root = merge(root, newNode(data));
+        modCount++;
+    }
+
+    /**
+     * Adds an element to the beginning of the list.
+     * Time Complexity: O(log N)
+     * Space Complexity: O(1), no allocation when a free slot exists
+     * @param data The data to add.
+     */
+    public void addFirst(T data) {
+        root = merge(newNode(data), root);
+        modCount++;
+    }
+
+    /**
+     * Adds an element at a specific index.
+     * Time Complexity: O(log N)
+     * Space Complexity: O(1), no allocation when a free slot exists
+     * @param index The index where the element should be added.
+     * @param data The data to add.
+     * @throws IndexOutOfBoundsException If the index is out of bounds.
+     */
+    public void add(int index, T data) {
+        if (index < 0 || index > getSize()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + getSize());
+        }
+        insertNode(index, newNode(data));
+        modCount++;
+    }
+
+    /**
+     * Deletes an element at a specific index. Its slot is reused by the next add.
+     * Time Complexity: O(log N)
+     * Space Complexity: O(1)
+     * @param index The index of the element to delete.
+     * @return The data of the deleted element.
+     * @throws IndexOutOfBoundsException If the index is out of bounds.
+     */
+    public T delete(int index) {
+        if (index < 0 || index >= getSize()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + getSize());
+        }
+        modCount++;
+        int node = detachNode(index);
+        T removed = elementAt(node);
+        data[node] = null; // Help with garbage collection
+        right[node] = free;
+        free = node;
+        return removed;
+    }
+
+    /**
+     * Moves an element from one index to another; afterwards it is at toIndex.
+     * The slot is detached and re-inserted, not copied.
+     * Time Complexity: O(log N)
+     * Space Complexity: O(1)
+     * @param fromIndex The current index of the element.
+     * @param toIndex The new index for the element.
+     * @throws IndexOutOfBoundsException If either index is out of bounds.
+     */
+    public void move(int fromIndex, int toIndex) {
+        int n = getSize();
+        if (fromIndex < 0 || fromIndex >= n || toIndex < 0 || toIndex >= n) {
+            throw new IndexOutOfBoundsException("Invalid index for move operation.");
+        }
+        if (fromIndex == toIndex) {
+            return; // No movement needed
+        }
+        int node = detachNode(fromIndex);
+        insertNode(toIndex, node);
+        modCount++;
+    }
+
+    /**
+     * Reverses the order of the list.
+     * Time Complexity: O(1); the swaps are done lazily by later operations.
+     * Space Complexity: O(1)
+     */
+    public void reverse() {
+        if (root != NIL) {
+            reversed[root] = !reversed[root];
+        }
+        modCount++;
+    }
+
+    /**
+     * Retrieves the data at a specific index.
+     * Time Complexity: O(log N)
+     * Space Complexity: O(1)
+     * @param index The index of the element to retrieve.
+     * @return The data at the specified index.
+     * @throws IndexOutOfBoundsException If the index is out of bounds.
+     */
+    public T get(int index) {
+        if (index < 0 || index >= getSize()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + getSize());
+        }
+        int current = root;
+        boolean flip = reversed[current]; // Whether this subtree's children are effectively swapped
+        while (true) {
+            int first = flip ? right[current] : left[current];
+            int firstSize = size(first);
+            if (index < firstSize) {
+                current = first;
+            } else if (index == firstSize) {
+                return elementAt(current);
+            } else {
+                index -= firstSize + 1;
+                current = flip ? left[current] : right[current];
+            }
+            flip ^= reversed[current];
+        }
+    }
+
+    /**
+     * Returns the current size of the list.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     * @return The number of elements in the list.
+     */
+    public int getSize() {
+        return size(root);
+    }
+
+    /**
+     * Checks if the list is empty.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     * @return true if the list is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    /**
+     * Clears all elements from the list. The arrays are kept, so refilling the list
+     * (e.g. after sorting or shuffling) allocates nothing.
+     * Time Complexity: O(C) to release the elements, for a capacity of C slots
+     * Space Complexity: O(1)
+     */
+    public void clear() {
+        Arrays.fill(data, 0, used, null); // Help with garbage collection
+        root = NIL;
+        used = 0;
+        free = NIL;
+        modCount++;
+    }
+
+    /**
+     * Returns a List containing all elements in order.
+     * Time Complexity: O(N)
+     * Space Complexity: O(N) for the new List, plus O(log N) for the walk's ancestor stack
+     * @return A List of all elements.
+     */
+    public java.util.List<T> toList() {
+        int n = getSize();
+        java.util.List<T> list = new java.util.ArrayList<>(n);
+        Walk walk = new Walk(0);
+        for (int i = 0; i < n; i++) {
+            list.add(walk.next());
+        }
+        return list;
+    }
+
+    /**
+     * Returns a fail-fast iterator over the elements in order.
+     * Time Complexity: O(log N) to create, O(1) amortized per step
+     * Space Complexity: O(log N) for the walk's ancestor stack
+     * @return The iterator.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private final Walk walk = new Walk(0);
+            private int remaining = getSize();
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public T next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                return walk.next();
+            }
+        };
+    }
+
+    /**
+     * Returns a fail-fast bidirectional cursor positioned before the first element.
+     * Time Complexity: O(1) to create; see listIterator(int) for the steps
+     * Space Complexity: O(log N) for the walk's ancestor stack
+     * @return The cursor.
+     */
+    public ListIterator<T> listIterator() {
+        return listIterator(0);
+    }
+
+    /**
+     * Returns a fail-fast bidirectional cursor positioned before an index, so the first next() returns
+     * that element. Stepping in one direction is O(1) amortized; changing direction, add and remove
+     * each cost O(log N), as the walk is re-seeked from the root. set replaces the element in place.
+     * Edits made through the cursor do not invalidate it; any other structural change does.
+     * Time Complexity: O(1) to create, O(1) amortized per step in one direction, O(log N) per add/remove
+     * Space Complexity: O(log N) for the walk's ancestor stack
+     * @param index The index of the first element returned by next().
+     * @return The cursor.
+     * @throws IndexOutOfBoundsException If the index is out of bounds.
+     */
+    public ListIterator<T> listIterator(int index) {
+        if (index < 0 || index > getSize()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + getSize());
+        }
+        return new Cursor(index);
+    }
+
+    /**
+     * Returns a sized, ordered Spliterator that splits by index range, so a parallel stream
+     * can traverse the list without copying it. Each half seeks its start in O(log N).
+     * Time Complexity: O(1) to create
+     * Space Complexity: O(log N) per traversing half
+     * @return The spliterator.
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new RangeSpliterator(0, getSize(), modCount);
+    }
+
+    /**
+     * In-order walk starting at an index. Keeps the ancestors still to be visited on a stack, each with
+     * whether its subtree is effectively reversed, so pending reversal flags are read but never pushed.
+     * A backward walk reads the whole tree as if reversed, so it counts its start from the end.
+     */
+    private final class Walk {
+        private int[] nodes = new int[32];
+        private boolean[] flipped = new boolean[32];
+        private int depth;
+
+        Walk(int start) {
+            this(start, false);
+        }
+
+        Walk(int start, boolean backward) {
+            int current = root;
+            boolean flip = current != NIL && (reversed[current] ^ backward);
+            while (current != NIL) {
+                int first = flip ? right[current] : left[current];
+                int second = flip ? left[current] : right[current];
+                int firstSize = size(first);
+                if (start < firstSize) {
+                    stack(current, flip);
+                    current = first;
+                } else if (start == firstSize) {
+                    stack(current, flip);
+                    return;
+                } else {
+                    start -= firstSize + 1;
+                    current = second;
+                }
+                if (current != NIL) {
+                    flip ^= reversed[current];
+                }
+            }
+        }
+
+        T next() {
+            return elementAt(nextNode());
+        }
+
+        // Returns the slot of the next element, so a cursor can replace its data in place
+        int nextNode() {
+            depth--;
+            int node = nodes[depth];
+            boolean flip = flipped[depth];
+            int current = flip ? left[node] : right[node]; // Second child in effective order
+            while (current != NIL) {
+                flip ^= reversed[current];
+                stack(current, flip);
+                current = flip ? right[current] : left[current];
+            }
+            return node;
+        }
+
+        private void stack(int node, boolean flip) {
+            if (depth == nodes.length) {
+                nodes = Arrays.copyOf(nodes, depth * 2);
+                flipped = Arrays.copyOf(flipped, depth * 2);
+            }
+            nodes[depth] = node;
+            flipped[depth] = flip;
+            depth++;
+        }
+    }
+
+    /**
+     * ListIterator over the list. Steps in the current direction come from a walk, which is dropped when the
+     * direction changes or the cursor edits the tree and re-seeked from nextIndex on the next step.
+     */
+    private final class Cursor implements ListIterator<T> {
+        private int nextIndex;
+        private int lastReturned = -1; // Index of the element returned by the last next/previous, -1 after add/remove
+        private int lastNode = NIL; // Its slot, which set overwrites
+        private int expectedModCount = modCount;
+        private Walk forward;
+        private Walk backward;
+
+        Cursor(int index) {
+            this.nextIndex = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < getSize();
+        }
+
+        @Override
+        public T next() {
+            checkForComodification();
+            if (nextIndex >= getSize()) {
+                throw new NoSuchElementException();
+            }
+            if (forward == null) {
+                forward = new Walk(nextIndex);
+                backward = null;
+            }
+            lastNode = forward.nextNode();
+            lastReturned = nextIndex++;
+            return elementAt(lastNode);
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return nextIndex > 0;
+        }
+
+        @Override
+        public T previous() {
+            checkForComodification();
+            if (nextIndex == 0) {
+                throw new NoSuchElementException();
+            }
+            if (backward == null) {
+                backward = new Walk(getSize() - nextIndex, true);
+                forward = null;
+            }
+            lastNode = backward.nextNode();
+            lastReturned = --nextIndex;
+            return elementAt(lastNode);
+        }
+
+        @Override
+        public int nextIndex() {
+            return nextIndex;
+        }
+
+        @Override
+        public int previousIndex() {
+            return nextIndex - 1;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            delete(lastReturned);
+            if (lastReturned < nextIndex) {
+                nextIndex--; // Removed the element just passed by next()
+            }
+            edited();
+        }
+
+        @Override
+        public void set(T value) {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            data[lastNode] = value; // Not a structural change: walks and other iterators stay valid
+        }
+
+        @Override
+        public void add(T value) {
+            checkForComodification();
+            TreapList.this.add(nextIndex++, value);
+            edited();
+        }
+
+        private void edited() {
+            lastReturned = -1;
+            lastNode = NIL;
+            forward = null;
+            backward = null;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Spliterator over the index range [index, end). The walk is created on first traversal,
+     * after any splits, so splitting never walks the tree.
+     */
+    private final class RangeSpliterator implements Spliterator<T> {
+        private int index;
+        private final int end;
+        private final int expectedModCount;
+        private Walk walk;
+
+        RangeSpliterator(int index, int end, int expectedModCount) {
+            this.index = index;
+            this.end = end;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (index >= end) {
+                return false;
+            }
+            if (walk == null) {
+                walk = new Walk(index);
+            }
+            index++;
+            action.accept(walk.next());
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (index >= end) {
+                return;
+            }
+            if (walk == null) {
+                walk = new Walk(index);
+            }
+            for (; index < end; index++) {
+                action.accept(walk.next());
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (index + end) >>> 1;
+            if (walk != null || mid <= index) {
+                return null; // Already traversing, or too small to split
+            }
+            Spliterator<T> prefix = new RangeSpliterator(index, mid, expectedModCount);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    @SuppressWarnings("unchecked") // Only T values are ever stored in data
+    private T elementAt(int node) {
+        return (T) data[node];
+    }
+
+    // Takes a slot from the free list, or the next unused one (growing the arrays when full)
+    private int newNode(T value) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        int node;
+        if (free != NIL) {
+            node = free;
+            free = right[node];
+        } else {
+            if (used == data.length) {
+                grow();
+            }
+            node = used++;
+        }
+        data[node] = value;
+        left[node] = NIL;
+        right[node] = NIL;
+        size[node] = 1;
+        priority[node] = seed;
+        reversed[node] = false;
+        return node;
+    }
+
+    private void grow() {
+        int newCapacity = data.length * 2;
+        data = Arrays.copyOf(data, newCapacity);
+        left = Arrays.copyOf(left, newCapacity);
+        right = Arrays.copyOf(right, newCapacity);
+        size = Arrays.copyOf(size, newCapacity);
+        priority = Arrays.copyOf(priority, newCapacity);
+        reversed = Arrays.copyOf(reversed, newCapacity);
+    }
+
+    private void insertNode(int index, int node) {
+        split(root, index);
+        int rest = splitRight;
+        root = merge(merge(splitLeft, node), rest);
+    }
+
+    private int detachNode(int index) {
+        split(root, index);
+        int before = splitLeft;
+        split(splitRight, 1);
+        int node = splitLeft;
+        root = merge(before, splitRight);
+        return node;
+    }
+
+    /**
+     * Splits a subtree into its first k elements (splitLeft) and the rest (splitRight).
+     * Time Complexity: O(log N)
+     */
+    private void split(int t, int k) {
+        if (t == NIL) {
+            splitLeft = NIL;
+            splitRight = NIL;
+            return;
+        }
+        push(t);
+        if (size(left[t]) < k) {
+            split(right[t], k - size(left[t]) - 1);
+            right[t] = splitLeft;
+            update(t);
+            splitLeft = t;
+        } else {
+            split(left[t], k);
+            left[t] = splitRight;
+            update(t);
+            splitRight = t;
+        }
+    }
+
+    /**
+     * Concatenates two subtrees, every element of a before every element of b.
+     * Time Complexity: O(log N)
+     */
+    private int merge(int a, int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (priority[a] > priority[b]) {
+            push(a);
+            right[a] = merge(right[a], b);
+            update(a);
+            return a;
+        }
+        push(b);
+        left[b] = merge(a, left[b]);
+        update(b);
+        return b;
+    }
+
+    // Applies a pending reversal to this node, passing it on to the children
+    private void push(int t) {
+        if (reversed[t]) {
+            int temp = left[t];
+            left[t] = right[t];
+            right[t] = temp;
+            if (left[t] != NIL) {
+                reversed[left[t]] = !reversed[left[t]];
+            }
+            if (right[t] != NIL) {
+                reversed[right[t]] = !reversed[right[t]];
+            }
+            reversed[t] = false;
+        }
+    }
+
+    private void update(int t) {
+        size[t] = 1 + size(left[t]) + size(right[t]);
+    }
+
+    private int size(int t) {
+        return t == NIL ? 0 : size[t];
+    }
+}
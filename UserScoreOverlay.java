@@ -0,0 +1,85 @@
+package ratings;
+
+import models.Song;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One user's personal scores layered over a shared ScoreIndex. Songs the user scored rank by the
+ * personal score; every other song keeps its catalog score. Only the user's own scores are stored,
+ * so an overlay costs O(U) for U personally scored songs rather than a copy of the catalog.
+ */
+public class UserScoreOverlay {
+    private final ScoreIndex base;
+    private final ScoreIndex personal = new ScoreIndex();
+
+    public UserScoreOverlay(ScoreIndex base) {
+        this.base = base;
+    }
+
+    /**
+     * Sets the user's score for a song.
+     * Time Complexity: O(log U) expected.
+     * Space Complexity: O(1).
+     * @param song The song.
+     * @param score The user's score.
+     */
+    public void rate(Song song, double score) {
+        personal.put(song, score);
+    }
+
+    /**
+     * Drops the user's score for a song, so the catalog score applies again.
+     * Time Complexity: O(log U) expected.
+     * Space Complexity: O(1).
+     * @param songId The song ID.
+     * @return true if the user had scored the song.
+     */
+    public boolean unrate(String songId) {
+        return personal.remove(songId);
+    }
+
+    /**
+     * Returns the score this user sees for a song.
+     * Time Complexity: O(1) on average.
+     * Space Complexity: O(1).
+     * @param songId The song ID.
+     * @return The personal score if set, else the catalog score, or NaN if the song is not in the catalog.
+     */
+    public double getScore(String songId) {
+        if (!base.contains(songId)) {
+            return Double.NaN;
+        }
+        double score = personal.getScore(songId);
+        return Double.isNaN(score) ? base.getScore(songId) : score;
+    }
+
+    /**
+     * Returns the k best songs for this user by merging the personal and catalog orders.
+     * Catalog entries the user re-scored are skipped, as are personal scores for songs no longer in the catalog.
+     * Time Complexity: O(log N + k + U) in the worst case.
+     * Space Complexity: O(log N + log U + k).
+     * @param k The number of songs.
+     * @return Up to k songs, best first.
+     */
+    public List<Song> topK(int k) {
+        List<Song> result = new ArrayList<>(Math.max(0, k));
+        ScoreIndex.Cursor mine = personal.cursor();
+        ScoreIndex.Cursor shared = base.cursor();
+        while (result.size() < k) {
+            while (mine.hasNext() && !base.contains(mine.peek().song)) {
+                mine.next();
+            }
+            while (shared.hasNext() && personal.contains(shared.peek().song)) {
+                shared.next();
+            }
+            if (!mine.hasNext() && !shared.hasNext()) {
+                break;
+            }
+            boolean takeMine = !shared.hasNext()
+                    || (mine.hasNext() && mine.peek().score >= shared.peek().score);
+            result.add((takeMine ? mine.next() : shared.next()).song);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,98 @@
+package models;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for ArtistDictionary: String and byte interning agree, IDs stay stable across growth,
+ * and lock-free name reads see every ID handed out by a concurrent writer.
+ * Run with: java models.ArtistDictionaryTest (throws AssertionError on the first failure).
+ */
+public class ArtistDictionaryTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        stringAndByteInterningAgree();
+        idsSurviveGrowth();
+        concurrentReadersSeePublishedNames();
+        System.out.println("ArtistDictionaryTest: all tests passed");
+    }
+
+    private static void stringAndByteInterningAgree() {
+        ArtistDictionary dictionary = new ArtistDictionary();
+        int a = dictionary.intern("Beyonc\u00e9");
+        byte[] line = "x,Beyonc\u00e9,y".getBytes(StandardCharsets.UTF_8);
+        int b = dictionary.intern(ByteBuffer.wrap(line), 2, line.length - 2);
+        check(a == b, "same name from bytes and String");
+        check(dictionary.intern("beyonc\u00e9") != a, "names are case-sensitive");
+        check(dictionary.size() == 2, "size");
+        check(dictionary.name(a).equals("Beyonc\u00e9"), "name");
+        try {
+            dictionary.name(2);
+            throw new AssertionError("unknown ID should be rejected");
+        } catch (IndexOutOfBoundsException expected) {
+            // Expected
+        }
+    }
+
+    private static void idsSurviveGrowth() {
+        ArtistDictionary dictionary = new ArtistDictionary();
+        for (int i = 0; i < 5000; i++) {
+            check(dictionary.intern("Artist " + i) == i, "IDs are dense");
+        }
+        for (int i = 0; i < 5000; i++) {
+            check(dictionary.intern("Artist " + i) == i && dictionary.name(i).equals("Artist " + i), "ID " + i);
+        }
+        check(dictionary.size() == 5000, "size after growth");
+    }
+
+    private static void concurrentReadersSeePublishedNames() throws InterruptedException {
+        ArtistDictionary dictionary = new ArtistDictionary();
+        int total = 50_000;
+        int[] lastId = {-1};
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                int id = dictionary.intern("Name " + i);
+                synchronized (lastId) {
+                    lastId[0] = id;
+                }
+            }
+        });
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                try {
+                    int seen = -1;
+                    while (seen < total - 1) {
+                        synchronized (lastId) {
+                            seen = lastId[0];
+                        }
+                        for (int id = Math.max(0, seen - 64); id <= seen; id++) {
+                            check(dictionary.name(id).equals("Name " + id), "name of " + id);
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+        }
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.start();
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("concurrent read failed", failure.get());
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for CSVByteScanner: header resolution, RFC-4180 quoting, trimming, row skipping, and rows cut off
+ * by the end of a window onto part of the file.
+ * Run with: java utils.CSVByteScannerTest (throws AssertionError on the first failure).
+ */
+public class CSVByteScannerTest {
+
+    public static void main(String[] args) {
+        headerResolvesColumnsInAnyOrder();
+        quotedFieldsKeepCommasNewlinesAndEscapedQuotes();
+        unquotedFieldsAreTrimmedLikeStringTrim();
+        crlfAndBlankLinesAreHandled();
+        malformedAndIncompleteRowsAreSkipped();
+        multiByteTitlesAndArtistsDecode();
+        rowsCutOffByTheWindowAreLeftUnconsumed();
+        System.out.println("CSVByteScannerTest: all tests passed");
+    }
+
+    private static void headerResolvesColumnsInAnyOrder() {
+        ByteBuffer buf = bytes("Popularity,Extra,ArtistName,SongName,Duration_ms\n50,x,A,T,1000\n");
+        CSVByteScanner.Layout layout = CSVByteScanner.readHeader(buf);
+        check(layout != null, "header should resolve");
+        CSVByteScanner.RowBatch batch = scan(buf, layout);
+        check(batch.size == 1, "one row expected, got " + batch.size);
+        check(batch.titles[0].equals("T"), "title");
+        check(batch.artistName(0).equals("A"), "artist");
+        check(batch.durations[0] == 1000, "duration");
+        check(batch.popularity[0] == 50, "popularity");
+
+        check(CSVByteScanner.readHeader(bytes("SongName,ArtistName,Duration_ms\n")) == null,
+                "missing Popularity column should be rejected");
+    }
+
+    private static void quotedFieldsKeepCommasNewlinesAndEscapedQuotes() {
+        CSVByteScanner.RowBatch batch = scan(HEADER
+                + "\"Hello, World\",\"Simon \"\"&\"\" Garfunkel\",1000,10\n"
+                + "\"Two\nLines\",B,2000,20\n"
+                + "\"\",C,3000,30\n");
+        check(batch.size == 3, "three rows expected, got " + batch.size);
+        check(batch.titles[0].equals("Hello, World"), "comma inside quotes: " + batch.titles[0]);
+        check(batch.artistName(0).equals("Simon \"&\" Garfunkel"), "escaped quotes: " + batch.artistName(0));
+        check(batch.titles[1].equals("Two\nLines"), "newline inside quotes: " + batch.titles[1]);
+        check(batch.durations[1] == 2000, "row after a multi-line field");
+        check(batch.titles[2].isEmpty(), "empty quoted field");
+    }
+
+    private static void unquotedFieldsAreTrimmedLikeStringTrim() {
+        String raw = " \t\u0001Title\u0000 ";
+        CSVByteScanner.RowBatch batch = scan(HEADER + raw + ",\u000B Artist \u001F, 1000 ,\f10\n");
+        check(batch.size == 1, "one row expected, got " + batch.size);
+        check(batch.titles[0].equals(raw.trim()), "title trimmed like String.trim(): [" + batch.titles[0] + "]");
+        check(batch.artistName(0).equals("Artist"), "artist trimmed like String.trim()");
+        check(batch.durations[0] == 1000 && batch.popularity[0] == 10, "numbers trimmed before parsing");
+    }
+
+    private static void crlfAndBlankLinesAreHandled() {
+        CSVByteScanner.RowBatch batch = scan("SongName,ArtistName,Duration_ms,Popularity\r\n"
+                + "A,X,1,1\r\n"
+                + "\r\n"
+                + "  \r\n"
+                + "B,Y,2,2");
+        check(batch.size == 2, "blank lines skipped, got " + batch.size);
+        check(batch.titles[0].equals("A") && batch.titles[1].equals("B"), "CRLF rows");
+        check(batch.durations[1] == 2, "last row without a trailing newline");
+    }
+
+    private static void malformedAndIncompleteRowsAreSkipped() {
+        CSVByteScanner.RowBatch batch = scan(HEADER
+                + "Bad,X,notanumber,1\n"
+                + "Short,X\n"
+                + "Overflow,X,99999999999999999999,1\n"
+                + "Good,X,5,1\n");
+        check(batch.size == 1, "only the good row is kept, got " + batch.size);
+        check(batch.titles[0].equals("Good"), "good row");
+    }
+
+    private static void multiByteTitlesAndArtistsDecode() {
+        CSVByteScanner.RowBatch batch = scan(HEADER + "Caf\u00e9 \u2603,\u00c9mile,1,1\n");
+        check(batch.titles[0].equals("Caf\u00e9 \u2603"), "UTF-8 title");
+        check(batch.artistName(0).equals("\u00c9mile"), "UTF-8 artist");
+    }
+
+    private static void rowsCutOffByTheWindowAreLeftUnconsumed() {
+        String csv = HEADER + "A,X,1,1\n\"Two\nlines\",Y,2,2\nC,Z,3,3\n";
+        ByteBuffer buf = bytes(csv);
+        CSVByteScanner.Layout layout = CSVByteScanner.readHeader(buf);
+        int cut = csv.indexOf("lines"); // Inside the quoted field of the second row
+        buf.limit(cut);
+        CSVByteScanner.RowBatch batch = new CSVByteScanner.RowBatch();
+        int stop = CSVByteScanner.scanRows(buf, layout.dataStart, cut, layout, batch, false);
+        check(batch.size == 1 && stop == csv.indexOf("\"Two"), "the cut row is left for the next window, stop " + stop);
+
+        buf.limit(csv.length() - 1); // The last row lacks only its newline
+        batch = new CSVByteScanner.RowBatch();
+        stop = CSVByteScanner.scanRows(buf, stop, buf.limit(), layout, batch, false);
+        check(batch.size == 1 && batch.titles[0].equals("Two\nlines") && stop == csv.indexOf("C,Z"), "unterminated last row");
+
+        batch = new CSVByteScanner.RowBatch();
+        stop = CSVByteScanner.scanRows(buf, stop, buf.limit(), layout, batch, true);
+        check(batch.size == 1 && stop == buf.limit(), "at the end of the input the last row needs no newline");
+    }
+
+    private static final String HEADER = "SongName,ArtistName,Duration_ms,Popularity\n";
+
+    private static CSVByteScanner.RowBatch scan(String csv) {
+        ByteBuffer buf = bytes(csv);
+        CSVByteScanner.Layout layout = CSVByteScanner.readHeader(buf);
+        check(layout != null, "header should resolve");
+        return scan(buf, layout);
+    }
+
+    private static CSVByteScanner.RowBatch scan(ByteBuffer buf, CSVByteScanner.Layout layout) {
+        CSVByteScanner.RowBatch batch = new CSVByteScanner.RowBatch();
+        int end = CSVByteScanner.scanRows(buf, layout.dataStart, buf.limit(), layout, batch);
+        check(end == buf.limit(), "scan should consume the whole buffer");
+        return batch;
+    }
+
+    private static ByteBuffer bytes(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package utils;
+
+import models.Song;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Tests for CSVTailLoader: appended rows are ingested once, with IDs continuing the load's counter,
+ * and a row still being written, even one cut inside a quoted field with newlines, waits for the next refresh.
+ * Run with: java utils.CSVTailLoaderTest (throws AssertionError on the first failure).
+ */
+public class CSVTailLoaderTest {
+
+    public static void main(String[] args) throws IOException {
+        Path csv = Files.createTempFile("tail", ".csv");
+        try {
+            append(csv, "SongName,ArtistName,Duration_ms,Popularity\nFirst,A,1000,90\nSecond,B,2000,10\n");
+            Catalog catalog = ParallelCatalogLoader.load(csv.toString());
+            CSVTailLoader tail = new CSVTailLoader(csv.toString(), catalog);
+            check(tail.refresh().isEmpty(), "nothing new right after the load");
+
+            append(csv, "Third,C,3000,50\nFourth,D,4000,85\nFif");
+            List<Song> added = tail.refresh();
+            check(added.size() == 2, "two complete rows, got " + added.size());
+            check(added.get(0).getId().equals("ThirdC3") && added.get(1).getId().equals("FourthD4"), "IDs continue the counter");
+            check(catalog.getSongs().size() == 4, "catalog song list");
+            check(catalog.getLookup().searchSong("fourth") == added.get(1), "lookup updated");
+            check(catalog.getRatings().getSongCount(5) == 2, "rating index updated");
+            check(tail.refresh().isEmpty(), "partial row is not consumed");
+
+            append(csv, "th,E,5000,30\n");
+            added = tail.refresh();
+            check(added.size() == 1 && added.get(0).getTitle().equals("Fifth"), "completed row is ingested once");
+            check(added.get(0).getId().equals("FifthE5"), "ID of the completed row");
+            check(tail.getOffset() == Files.size(csv), "offset at end of file");
+
+            append(csv, "Sixth,F,6000,40\n\"Seventh, with\na newline");
+            added = tail.refresh();
+            check(added.size() == 1 && added.get(0).getTitle().equals("Sixth"), "row before the open quote is ingested");
+            check(tail.refresh().isEmpty(), "a row cut inside its quoted field is not consumed");
+            append(csv, "\",G,7000,60\n");
+            added = tail.refresh();
+            check(added.size() == 1 && added.get(0).getTitle().equals("Seventh, with\na newline")
+                    && added.get(0).getArtist().equals("G"), "quoted row is ingested whole once complete");
+            check(added.get(0).getId().equals("Seventh,withanewlineG7"), "ID of the quoted row");
+            check(tail.getOffset() == Files.size(csv), "offset at end of file after the quoted row");
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+        System.out.println("CSVTailLoaderTest: all tests passed");
+    }
+
+    private static void append(Path csv, String text) throws IOException {
+        Files.write(csv, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
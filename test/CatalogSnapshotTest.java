@@ -0,0 +1,162 @@
+package utils;
+
+import models.Song;
+import models.SongStore;
+import ratings.SongRatingTree;
+import search.SongHashMap;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for CatalogSnapshot: a round trip restores songs and indexes, also for a catalog whose songs are not
+ * exactly its store's rows, and stale, corrupt or truncated snapshots are rejected so the CSV is parsed instead.
+ * Run with: java utils.CatalogSnapshotTest (throws AssertionError on the first failure).
+ */
+public class CatalogSnapshotTest {
+    private static final long MTIME = 1_700_000_000_000L;
+    private static final long SIZE = 12_345L;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("snapshot");
+        Path csv = dir.resolve("songs.csv");
+        Path snap = dir.resolve("songs.csv.snap");
+        try {
+            writeCatalog(csv);
+            Catalog original = ParallelCatalogLoader.load(csv.toString());
+            CatalogSnapshot.write(original, snap, MTIME, SIZE);
+
+            roundTripRestoresSongsAndIndexes(original, CatalogSnapshot.read(snap, MTIME, SIZE));
+            staleSnapshotIsIgnored(snap);
+            corruptPayloadIsRejected(snap);
+            truncatedSnapshotIsRejected(snap);
+            catalogNotMatchingItsStoreIsCompacted(dir.resolve("compacted.snap"));
+            check(CatalogSnapshot.read(dir.resolve("missing.snap"), MTIME, SIZE) == null, "missing snapshot");
+        } finally {
+            for (Path p : new Path[] {csv, snap, dir}) {
+                Files.deleteIfExists(p);
+            }
+        }
+        System.out.println("CatalogSnapshotTest: all tests passed");
+    }
+
+    private static void roundTripRestoresSongsAndIndexes(Catalog original, Catalog restored) {
+        check(restored != null, "snapshot should be read back");
+        List<Song> a = original.getSongs();
+        List<Song> b = restored.getSongs();
+        check(a.size() == b.size(), "song count");
+        for (int i = 0; i < a.size(); i++) {
+            Song x = a.get(i);
+            Song y = b.get(i);
+            check(x.getId().equals(y.getId()) && x.getTitle().equals(y.getTitle()) && x.getArtist().equals(y.getArtist())
+                    && x.getDurationMs() == y.getDurationMs() && x.getRating() == y.getRating()
+                    && x.getPopularity() == y.getPopularity(), "song " + i);
+        }
+        check(restored.getNextId() == original.getNextId(), "next ID");
+        check(ids(restored.getLookup().searchAllByTitle("dup")).equals(ids(original.getLookup().searchAllByTitle("dup"))),
+                "title postings keep their order");
+        check(restored.getLookup().searchSong(a.get(7).getId()).getTitle().equals(a.get(7).getTitle()), "ID lookup");
+
+        Map<Integer, List<Song>> before = original.getRatings().getBuckets();
+        Map<Integer, List<Song>> after = restored.getRatings().getBuckets();
+        check(before.keySet().equals(after.keySet()), "rating buckets");
+        for (Map.Entry<Integer, List<Song>> bucket : before.entrySet()) {
+            check(ids(bucket.getValue()).equals(ids(after.get(bucket.getKey()))), "bucket " + bucket.getKey());
+            check(restored.getRatings().getSongCount(bucket.getKey()) == bucket.getValue().size(), "count " + bucket.getKey());
+        }
+    }
+
+    private static void staleSnapshotIsIgnored(Path snap) {
+        check(CatalogSnapshot.read(snap, MTIME + 1, SIZE) == null, "changed mtime");
+        check(CatalogSnapshot.read(snap, MTIME, SIZE + 1) == null, "changed size");
+    }
+
+    private static void corruptPayloadIsRejected(Path snap) throws IOException {
+        Path copy = snap.resolveSibling("corrupt.snap");
+        Files.copy(snap, copy);
+        try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long at = 4 + 4 + 8 + 8 + 8 + 20; // A byte inside the payload
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, at);
+            one.put(0, (byte) (one.get(0) ^ 0x5A)).rewind();
+            channel.write(one, at);
+        }
+        try {
+            check(CatalogSnapshot.read(copy, MTIME, SIZE) == null, "checksum mismatch");
+        } finally {
+            Files.delete(copy);
+        }
+    }
+
+    private static void truncatedSnapshotIsRejected(Path snap) throws IOException {
+        Path copy = snap.resolveSibling("truncated.snap");
+        Files.copy(snap, copy);
+        try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        try {
+            check(CatalogSnapshot.read(copy, MTIME, SIZE) == null, "truncated snapshot");
+        } finally {
+            Files.delete(copy);
+        }
+    }
+
+    private static void catalogNotMatchingItsStoreIsCompacted(Path snap) throws IOException {
+        SongStore store = new SongStore();
+        for (int i = 0; i < 4; i++) {
+            store.add("id" + i, "Title " + i, "\u00c9mile " + i, 1000L * i, 1 + i, 10 * i);
+        }
+        // A removed row, a reordered one and a standalone song, as edits leave a catalog
+        List<Song> songs = new ArrayList<>(Arrays.asList(store.view(2), new Song("x", "Title 0", "Other", 5L, 5, 1), store.view(0)));
+        SongHashMap lookup = new SongHashMap();
+        lookup.addAll(songs);
+        SongRatingTree ratings = new SongRatingTree();
+        ratings.insertAll(songs);
+        try {
+            CatalogSnapshot.write(new Catalog(store, songs, lookup, ratings, SIZE, 4), snap, MTIME, SIZE);
+            Catalog restored = CatalogSnapshot.read(snap, MTIME, SIZE);
+            check(restored != null && ids(restored.getSongs()).equals(Arrays.asList("id2", "x", "id0")), "compacted songs");
+            Song x = restored.getLookup().searchSong("x");
+            check(x.getArtist().equals("Other") && x.getDurationMs() == 5L && x.getPopularity() == 1, "standalone song columns");
+            check(restored.getSongs().get(0).getArtist().equals("\u00c9mile 2"), "artist names restored");
+            check(ids(restored.getLookup().searchAllByTitle("title 0")).equals(Arrays.asList("x", "id0")), "compacted postings");
+            check(restored.getRatings().getSongCount(5) == 1 && restored.getRatings().getSongCount(3) == 1
+                    && restored.getRatings().getTotalSongCount() == 3, "compacted rating buckets");
+        } finally {
+            Files.deleteIfExists(snap);
+        }
+    }
+
+    private static void writeCatalog(Path csv) throws IOException {
+        try (Writer out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            out.write("SongName,ArtistName,Duration_ms,Popularity\n");
+            for (int i = 0; i < 500; i++) {
+                String title = (i % 10 == 3) ? "Dup" : "Track " + i;
+                out.write(title + ",Artist " + (i % 7) + " x," + (1000 + i) + "," + (i % 100) + "\n");
+            }
+        }
+    }
+
+    private static List<String> ids(List<Song> songs) {
+        List<String> ids = new ArrayList<>(songs.size());
+        for (Song song : songs) {
+            ids.add(song.getId());
+        }
+        return ids;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
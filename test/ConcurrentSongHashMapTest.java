@@ -0,0 +1,136 @@
+package search;
+
+import models.Song;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for ConcurrentSongHashMap: lock-free readers running against a writer that keeps replacing and removing
+ * songs never see a missing stable song, a song under the wrong ID or title, or one ID twice in a title's postings;
+ * an index attached mid-run ends up holding exactly the live songs; and the final tables agree with each other.
+ * Run with: java search.ConcurrentSongHashMapTest (throws AssertionError on the first failure).
+ */
+public class ConcurrentSongHashMapTest {
+    private static final int IDS = 200;
+    private static final int STABLE_IDS = 150; // Only replaced, never removed
+    private static final int WRITES = 200_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentSongHashMap lookup = new ConcurrentSongHashMap();
+        for (int i = 0; i < IDS; i++) {
+            lookup.addSong(song(i, 0));
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            long seed = r;
+            readers[r] = new Thread(() -> read(lookup, seed, done, failure));
+            readers[r].start();
+        }
+
+        CountingIndex index = new CountingIndex();
+        Random random = new Random(37);
+        for (int step = 0; step < WRITES; step++) {
+            int i = random.nextInt(IDS);
+            if (i >= STABLE_IDS && random.nextInt(3) == 0) {
+                lookup.removeSong("id" + i);
+            } else {
+                lookup.addSong(song(i, step));
+            }
+            if (step == WRITES / 2) {
+                lookup.attachIndex(index);
+            }
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        check(failure.get() == null, String.valueOf(failure.get()));
+
+        int postings = 0;
+        for (List<Song> posting : lookup.getTitlePostings()) {
+            for (Song song : posting) {
+                check(lookup.searchSong(song.getId()) == song, "posting holds the live song " + song.getId());
+            }
+            postings += posting.size();
+        }
+        check(postings == lookup.size(), "every live song is in exactly one posting list");
+        check(index.live().equals(liveIds(lookup)), "attached index holds the live songs");
+        System.out.println("ConcurrentSongHashMapTest: all tests passed");
+    }
+
+    // Titles alternate between two spellings per ID, with case changes, so replacements move songs between titles
+    private static Song song(int i, int version) {
+        String title = ((version % 2 == 0) ? "Title " : "Other ") + (i % 10);
+        return new Song("id" + i, (version % 3 == 0) ? title.toUpperCase() : title, "Artist", 1000L, 1 + i % 5, version % 100);
+    }
+
+    private static void read(ConcurrentSongHashMap lookup, long seed, AtomicBoolean done, AtomicReference<String> failure) {
+        Random random = new Random(seed);
+        while (!done.get() && failure.get() == null) {
+            int i = random.nextInt(IDS);
+            Song byId = lookup.searchSong("id" + i);
+            if (i < STABLE_IDS && (byId == null || !byId.hasId("id" + i))) {
+                failure.compareAndSet(null, "stable song id" + i + " read as " + byId);
+            }
+            String title = (random.nextBoolean() ? "title " : "OTHER ") + random.nextInt(10);
+            Set<String> ids = new HashSet<>();
+            for (Song song : lookup.searchAllByTitle(title)) {
+                if (!song.getTitle().equalsIgnoreCase(title) || !ids.add(song.getId())) {
+                    failure.compareAndSet(null, "postings of '" + title + "' hold " + song);
+                }
+            }
+        }
+    }
+
+    private static Set<String> liveIds(ConcurrentSongHashMap lookup) {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < IDS; i++) {
+            if (lookup.searchSong("id" + i) != null) {
+                ids.add("id" + i);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Counts adds and removes per ID; notifications are serialized by the lookup, so no locking is needed.
+     */
+    private static final class CountingIndex implements SecondaryIndex {
+        private final Map<String, Integer> counts = new HashMap<>();
+
+        @Override
+        public void add(Song song) {
+            counts.merge(song.getId(), 1, Integer::sum);
+        }
+
+        @Override
+        public void remove(Song song) {
+            counts.merge(song.getId(), -1, Integer::sum);
+        }
+
+        Set<String> live() {
+            Set<String> ids = new HashSet<>();
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                check(entry.getValue() == 0 || entry.getValue() == 1, "indexed once: " + entry.getKey());
+                if (entry.getValue() == 1) {
+                    ids.add(entry.getKey());
+                }
+            }
+            return ids;
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package search;
+
+import models.Song;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests for FuzzyIndex recall: every key within the edit budget is found, for transpositions, insertions,
+ * deletions and substitutions, including short keys where trigram filtering cannot prune, and budgets are
+ * only lowered where neither filter can answer them.
+ * Run with: java search.FuzzyIndexTest (throws AssertionError on the first failure).
+ */
+public class FuzzyIndexTest {
+    private static final String[] TITLES = {"love", "abcd", "hello", "stay", "numb", "faded"};
+
+    public static void main(String[] args) {
+        singleEditsOfShortTitlesAreFound();
+        rankingAndRemoval();
+        boundedDistanceCountsEachEditOnce();
+        budgetsAreLoweredOnlyWhenUnfilterable();
+        matchesBruteForce();
+        System.out.println("FuzzyIndexTest: all tests passed");
+    }
+
+    private static void singleEditsOfShortTitlesAreFound() {
+        FuzzyIndex index = new FuzzyIndex();
+        for (int i = 0; i < TITLES.length; i++) {
+            index.add(new Song("id" + i, TITLES[i], "Band " + i, 1000, 3));
+        }
+        String[][] cases = {
+            // Transpositions, including at the first and last characters
+            {"loev", "love"}, {"olve", "love"}, {"lvoe", "love"}, {"abdc", "abcd"}, {"bacd", "abcd"},
+            {"helol", "hello"}, {"hlelo", "hello"}, {"tsay", "stay"}, {"nmub", "numb"}, {"fadde", "faded"},
+            // Deletion, substitution and insertion
+            {"sty", "stay"}, {"lovr", "love"}, {"loove", "love"}, {"xlove", "love"}, {"helloo", "hello"}, {"numbs", "numb"}
+        };
+        for (String[] c : cases) {
+            check(titles(index.search(c[0], 1, 10)).contains(c[1]), "'" + c[0] + "' should find '" + c[1] + "'");
+            check(titles(index.search(c[0], 10)).contains(c[1]), "'" + c[0] + "' with the default budget");
+        }
+        check(!titles(index.search("lvoe", 0, 10)).contains("love"), "no edits allowed");
+        check(index.search("zzzz", 1, 10).isEmpty(), "nothing within one edit");
+    }
+
+    private static void rankingAndRemoval() {
+        FuzzyIndex index = new FuzzyIndex();
+        Song exact = new Song("a", "Faded", "X", 1000, 1);
+        Song near = new Song("b", "Fades", "Y", 1000, 5);
+        Song artist = new Song("c", "Other", "Faded", 1000, 2);
+        index.add(exact);
+        index.add(near);
+        index.add(artist);
+        List<Song> found = index.search("faded", 1, 10);
+        check(found.size() == 3 && found.get(2) == near, "exact matches rank before closer ratings");
+        check(found.get(0) == artist && found.get(1) == exact, "equal distances rank by rating");
+        index.remove(artist);
+        check(index.search("faded", 1, 10).size() == 2, "removed song is not returned");
+        check(index.search("faded", 1, 1).get(0) == exact, "limit");
+    }
+
+    private static void boundedDistanceCountsEachEditOnce() {
+        check(FuzzyIndex.boundedDistance("love", "love", 2) == 0, "equal");
+        check(FuzzyIndex.boundedDistance("loev", "love", 2) == 1, "transposition");
+        check(FuzzyIndex.boundedDistance("lov", "love", 2) == 1, "deletion");
+        check(FuzzyIndex.boundedDistance("lovex", "love", 2) == 1, "insertion");
+        check(FuzzyIndex.boundedDistance("lave", "love", 2) == 1, "substitution");
+        check(FuzzyIndex.boundedDistance("abcdef", "badcfe", 3) == 3, "three transpositions");
+        check(FuzzyIndex.boundedDistance("abcdef", "badcfe", 2) == 3, "over the bound");
+    }
+
+    private static void budgetsAreLoweredOnlyWhenUnfilterable() {
+        check(FuzzyIndex.searchableEdits("a", 1) == 1 && FuzzyIndex.searchableEdits("sty", 1) == 1, "one edit of short queries");
+        check(FuzzyIndex.searchableEdits("sty", 2) == 1, "two edits of a short query are lowered to one");
+        check(FuzzyIndex.searchableEdits("abcdefg", 2) == 1, "two edits need eight characters");
+        check(FuzzyIndex.searchableEdits("abcdefgh", 2) == 2, "two edits of a long query");
+        check(FuzzyIndex.searchableEdits("abcd", 0) == 0 && FuzzyIndex.searchableEdits("abcd", -1) == 0, "no edits");
+    }
+
+    private static void matchesBruteForce() {
+        Random random = new Random(10);
+        FuzzyIndex index = new FuzzyIndex();
+        List<Song> live = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Song song = new Song("id" + i, word(random, 2 + random.nextInt(7)), "A" + i, 1000, 1 + random.nextInt(5));
+            live.add(song);
+            index.add(song);
+        }
+        for (int i = 0; i < 2000; i++) {
+            index.remove(live.remove(random.nextInt(live.size()))); // Enough removals to trigger compaction
+        }
+        for (int round = 0; round < 300; round++) {
+            String query = mutate(random, live.get(random.nextInt(live.size())).getTitle());
+            for (int maxEdits = 0; maxEdits <= 2; maxEdits++) {
+                int edits = FuzzyIndex.searchableEdits(query, maxEdits);
+                Set<Song> expected = new HashSet<>();
+                for (Song song : live) {
+                    if (FuzzyIndex.boundedDistance(query, song.getTitle(), edits) <= edits
+                            || FuzzyIndex.boundedDistance(query, song.getArtist().toLowerCase(), edits) <= edits) {
+                        expected.add(song);
+                    }
+                }
+                Set<Song> actual = new HashSet<>(index.search(query, maxEdits, Integer.MAX_VALUE));
+                check(actual.equals(expected), "query '" + query + "' with " + maxEdits + " edits: "
+                        + actual.size() + " found, " + expected.size() + " expected");
+            }
+        }
+    }
+
+    // Applies one or two random edits of any kind
+    private static String mutate(Random random, String s) {
+        StringBuilder b = new StringBuilder(s);
+        for (int edits = 1 + random.nextInt(2); edits > 0; edits--) {
+            int p = random.nextInt(b.length() + 1);
+            switch (random.nextInt(4)) {
+                case 0:
+                    b.insert(p, (char) ('a' + random.nextInt(6)));
+                    break;
+                case 1:
+                    if (p < b.length() && b.length() > 1) {
+                        b.deleteCharAt(p);
+                    }
+                    break;
+                case 2:
+                    if (p < b.length()) {
+                        b.setCharAt(p, (char) ('a' + random.nextInt(6)));
+                    }
+                    break;
+                default:
+                    if (p + 1 < b.length()) {
+                        char c = b.charAt(p);
+                        b.setCharAt(p, b.charAt(p + 1));
+                        b.setCharAt(p + 1, c);
+                    }
+            }
+        }
+        return b.toString();
+    }
+
+    // Small alphabet, so many keys are near each other
+    private static String word(Random random, int length) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            b.append((char) ('a' + random.nextInt(6)));
+        }
+        return b.toString();
+    }
+
+    private static List<String> titles(List<Song> songs) {
+        List<String> titles = new ArrayList<>();
+        for (Song song : songs) {
+            titles.add(song.getTitle());
+        }
+        return titles;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
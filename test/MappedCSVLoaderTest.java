@@ -0,0 +1,66 @@
+package utils;
+
+import models.Song;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Tests for MappedCSVLoader: scanning the file through small windows, so that rows and quoted fields
+ * straddle window boundaries, gives the same songs as one mapping of the whole file, and a row too long
+ * for a window stops the load after the rows before it.
+ * Run with: java utils.MappedCSVLoaderTest (throws AssertionError on the first failure).
+ */
+public class MappedCSVLoaderTest {
+
+    public static void main(String[] args) throws IOException {
+        Path csv = Files.createTempFile("mapped", ".csv");
+        try {
+            windowsMatchOneMapping(csv);
+            overlongRowStopsTheLoad(csv);
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+        System.out.println("MappedCSVLoaderTest: all tests passed");
+    }
+
+    private static void windowsMatchOneMapping(Path csv) throws IOException {
+        StringBuilder text = new StringBuilder("SongName,ArtistName,Duration_ms,Popularity\n");
+        for (int i = 0; i < 300; i++) {
+            String title = (i % 7 == 3) ? "\"Two\nlines, " + i + "\"" : "Song " + i;
+            text.append(title).append(",Caf\u00e9 ").append(i % 5).append(',').append(1000 + i).append(',').append(i % 100);
+            text.append((i % 11 == 0) ? "\r\n" : (i % 13 == 0) ? "\n\n" : "\n");
+        }
+        text.append("Last,X,1,1"); // No trailing newline
+        Files.write(csv, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<Song> whole = MappedCSVLoader.loadSongs(csv.toString());
+        check(whole.size() == 301, "rows in one mapping: " + whole.size());
+        for (long window : new long[] {48, 61, 100, 4096}) {
+            List<Song> windowed = MappedCSVLoader.loadSongs(csv.toString(), window);
+            check(windowed.size() == whole.size(), "rows with " + window + "-byte windows: " + windowed.size());
+            for (int i = 0; i < whole.size(); i++) {
+                Song a = whole.get(i);
+                Song b = windowed.get(i);
+                check(a.getId().equals(b.getId()) && a.getTitle().equals(b.getTitle()) && a.getArtist().equals(b.getArtist())
+                        && a.getDurationMs() == b.getDurationMs() && a.getPopularity() == b.getPopularity(),
+                        window + "-byte windows, row " + i + ": " + b + " vs " + a);
+            }
+        }
+    }
+
+    private static void overlongRowStopsTheLoad(Path csv) throws IOException {
+        String text = "SongName,ArtistName,Duration_ms,Popularity\nA,X,1,1\n\"Unterminated, X, 2, 2\nB,X,3,3\nC,X,4,4\n";
+        Files.write(csv, text.getBytes(StandardCharsets.UTF_8));
+        List<Song> songs = MappedCSVLoader.loadSongs(csv.toString(), 16);
+        check(songs.size() == 1 && songs.get(0).getTitle().equals("A"), "rows before the overlong one are kept");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
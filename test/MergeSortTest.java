@@ -0,0 +1,58 @@
+package sorting;
+
+import models.SongStore;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for MergeSort.sortOrdinals: ordinals of a SongStore come out in the same order as a stable sort of
+ * the matching views with the spec's comparator, for single and composite keys.
+ * Run with: java sorting.MergeSortTest (throws AssertionError on the first failure).
+ */
+public class MergeSortTest {
+
+    public static void main(String[] args) {
+        Random random = new Random(23);
+        SongStore store = new SongStore(500);
+        for (int i = 0; i < 500; i++) {
+            store.add("id" + i, (random.nextBoolean() ? "t" : "T") + random.nextInt(30), "A" + random.nextInt(6),
+                    1000L * random.nextInt(10), 1 + random.nextInt(5), random.nextInt(3));
+        }
+        SortSpec[] specs = {
+            SortSpec.by(SortKey.TITLE),
+            SortSpec.byDescending(SortKey.DURATION).then(SortKey.TITLE),
+            SortSpec.by(SortKey.ARTIST).thenDescending(SortKey.POPULARITY),
+            SortSpec.by(SortKey.RATING).then(SortKey.ADDED)
+        };
+        MergeSort sorter = new MergeSort();
+        for (SortSpec spec : specs) {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < store.size(); i++) {
+                expected.add(i);
+            }
+            Comparator<Integer> byView = (a, b) -> spec.comparator().compare(store.view(a), store.view(b));
+            expected.sort(byView); // List.sort is stable
+            int[] ordinals = new int[store.size()];
+            for (int i = 0; i < ordinals.length; i++) {
+                ordinals[i] = i;
+            }
+            sorter.sortOrdinals(ordinals, store, spec);
+            for (int i = 0; i < ordinals.length; i++) {
+                check(ordinals[i] == expected.get(i), spec + ": differs at " + i);
+            }
+        }
+
+        int[] single = {0};
+        sorter.sortOrdinals(single, store, specs[0]);
+        check(single[0] == 0, "single ordinal");
+        System.out.println("MergeSortTest: all tests passed");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
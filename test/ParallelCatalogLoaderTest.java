@@ -0,0 +1,147 @@
+package utils;
+
+import models.Song;
+import search.PrimitiveSongHashMap;
+import search.SecondaryIndex;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests for ParallelCatalogLoader: a multi-chunk load must equal the sequential byte loader,
+ * and the merged lookup must keep load order for title postings and attached indexes.
+ * The primitive lookup backend must answer the same queries as the merged SongHashMap.
+ * Run with: java utils.ParallelCatalogLoaderTest (throws AssertionError on the first failure).
+ */
+public class ParallelCatalogLoaderTest {
+    private static final int ROWS = 120_000; // About 5 MB, so the file splits into several chunks
+
+    public static void main(String[] args) throws IOException {
+        Path csv = Files.createTempFile("catalog", ".csv");
+        try {
+            writeCatalog(csv);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                Catalog catalog = ParallelCatalogLoader.load(csv.toString(), pool);
+                matchesSequentialLoad(catalog, MappedCSVLoader.loadSongs(csv.toString()));
+                titlePostingsKeepLoadOrder(catalog);
+                attachedIndexSeesLoadOrder(catalog);
+                ratingCountsMatch(catalog);
+                primitiveLookupMatches(catalog,
+                        ParallelCatalogLoader.load(csv.toString(), pool, Catalog.LookupType.PRIMITIVE));
+            } finally {
+                pool.shutdown();
+            }
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+        System.out.println("ParallelCatalogLoaderTest: all tests passed");
+    }
+
+    private static void matchesSequentialLoad(Catalog catalog, List<Song> expected) {
+        List<Song> songs = catalog.getSongs();
+        check(songs.size() == ROWS && expected.size() == ROWS, "row count " + songs.size() + " / " + expected.size());
+        for (int i = 0; i < ROWS; i++) {
+            Song a = songs.get(i);
+            Song b = expected.get(i);
+            check(a.getId().equals(b.getId()) && a.getTitle().equals(b.getTitle()) && a.getArtist().equals(b.getArtist())
+                    && a.getDurationMs() == b.getDurationMs() && a.getRating() == b.getRating()
+                    && a.getPopularity() == b.getPopularity(), "row " + i + ": " + a + " vs " + b);
+        }
+        check(catalog.getNextId() == ROWS + 1, "next ID");
+    }
+
+    private static void titlePostingsKeepLoadOrder(Catalog catalog) {
+        // Title "Common" repeats every 50 rows, so its postings span every chunk
+        List<Song> postings = catalog.getLookup().searchAllByTitle("COMMON");
+        check(postings.size() == ROWS / 50, "postings size " + postings.size());
+        for (int i = 1; i < postings.size(); i++) {
+            check(idNumber(postings.get(i - 1)) < idNumber(postings.get(i)), "postings out of load order at " + i);
+        }
+        check(catalog.getLookup().searchSong("common") == postings.get(0), "first-wins title lookup");
+    }
+
+    private static void attachedIndexSeesLoadOrder(Catalog catalog) {
+        List<Song> seen = new ArrayList<>();
+        catalog.getLookup().attachIndex(new SecondaryIndex() {
+            @Override
+            public void add(Song song) {
+                seen.add(song);
+            }
+
+            @Override
+            public void remove(Song song) {
+            }
+        });
+        check(seen.size() == ROWS, "attached index size");
+        for (int i = 0; i < ROWS; i++) {
+            check(seen.get(i) == catalog.getSongs().get(i), "attached index out of load order at " + i);
+        }
+    }
+
+    private static void ratingCountsMatch(Catalog catalog) {
+        long[] expected = new long[6];
+        for (Song song : catalog.getSongs()) {
+            expected[song.getRating()]++;
+        }
+        for (int r = 1; r <= 5; r++) {
+            check(catalog.getRatings().getSongCount(r) == expected[r], "rating " + r + " count");
+        }
+    }
+
+    private static void primitiveLookupMatches(Catalog expected, Catalog primitive) {
+        check(primitive.getLookup() instanceof PrimitiveSongHashMap, "primitive backend selected");
+        check(primitive.getLookup().size() == expected.getLookup().size(), "primitive lookup size");
+        for (int i = 0; i < ROWS; i += 37) {
+            Song song = expected.getSongs().get(i);
+            check(song.equals(primitive.getLookup().searchSong(song.getId())), "ID lookup " + i);
+            check(ids(primitive.getLookup().searchAllByTitle(song.getTitle().toUpperCase()))
+                    .equals(ids(expected.getLookup().searchAllByTitle(song.getTitle()))), "title postings " + i);
+        }
+        check(primitive.getLookup().searchSong("common").equals(expected.getLookup().searchSong("common")),
+                "first-wins title lookup");
+        ratingCountsMatch(primitive);
+    }
+
+    private static List<String> ids(List<Song> songs) {
+        List<String> ids = new ArrayList<>(songs.size());
+        for (Song song : songs) {
+            ids.add(song.getId());
+        }
+        return ids;
+    }
+
+    private static void writeCatalog(Path csv) throws IOException {
+        try (Writer out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            out.write("SongName,ArtistName,Duration_ms,Popularity,Energy\n");
+            for (int i = 0; i < ROWS; i++) {
+                String title = (i % 50 == 7) ? "Common" : "Song number " + i;
+                if (i % 1000 == 1) {
+                    title = "\"Quoted, with\nnewline " + i + "\""; // Quoted rows may straddle a chunk boundary
+                }
+                out.write(title + ",Artist " + (i % 97) + " Band," + (60_000 + i) + "," + (i % 101) + ",0.5\n");
+            }
+        }
+    }
+
+    // The loader's running counter is the trailing digits of the ID
+    private static long idNumber(Song song) {
+        String id = song.getId();
+        int p = id.length();
+        while (p > 0 && Character.isDigit(id.charAt(p - 1))) {
+            p--;
+        }
+        return Long.parseLong(id.substring(p));
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
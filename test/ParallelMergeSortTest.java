@@ -0,0 +1,64 @@
+package sorting;
+
+import models.Song;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests for ParallelMergeSort: lists well above the sequential threshold come out exactly like a stable
+ * sequential sort, including long runs of ties that the parallel merge has to split.
+ * Run with: java sorting.ParallelMergeSortTest (throws AssertionError on the first failure).
+ */
+public class ParallelMergeSortTest {
+
+    public static void main(String[] args) {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Random random = new Random(19);
+            List<Song> songs = new ArrayList<>();
+            for (int i = 0; i < 20 * ParallelMergeSort.SEQUENTIAL_THRESHOLD; i++) {
+                // Few distinct values, so most comparisons tie and stability is visible
+                songs.add(new Song("id" + i, "T" + random.nextInt(20), "A" + random.nextInt(5), 1000L * random.nextInt(10),
+                        1 + random.nextInt(5), random.nextInt(3)));
+            }
+            ParallelMergeSort sorter = new ParallelMergeSort(pool);
+            SortSpec[] specs = {
+                SortSpec.by(SortKey.RATING),
+                SortSpec.byDescending(SortKey.DURATION).then(SortKey.TITLE),
+                SortSpec.by(SortKey.ARTIST).thenDescending(SortKey.POPULARITY)
+            };
+            for (SortSpec spec : specs) {
+                List<Song> expected = new ArrayList<>(songs);
+                expected.sort(spec.comparator());
+                List<Song> actual = new ArrayList<>(songs);
+                sorter.sort(actual, spec);
+                sameOrder(actual, expected, spec.toString());
+            }
+
+            List<Song> small = new LinkedList<>(songs.subList(0, 100)); // Sequential path, non-RandomAccess list
+            List<Song> expected = new ArrayList<>(small);
+            expected.sort(specs[1].comparator());
+            sorter.sort(small, specs[1]);
+            sameOrder(small, expected, "small list");
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println("ParallelMergeSortTest: all tests passed");
+    }
+
+    private static void sameOrder(List<Song> actual, List<Song> expected, String what) {
+        check(actual.size() == expected.size(), what + ": size");
+        for (int i = 0; i < expected.size(); i++) {
+            check(actual.get(i) == expected.get(i), what + ": differs at " + i);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package playlist;
+
+import models.Song;
+import sorting.SortKey;
+import sorting.SortSpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for Playlist sorted views: cached views are patched on add and delete so they always equal a stable
+ * sort of the current playlist, including when the same song is queued several times, and top-k reads
+ * agree with the views whether or not one is cached.
+ * Run with: java playlist.PlaylistTest (throws AssertionError on the first failure).
+ */
+public class PlaylistTest {
+    private static final SortSpec[] SPECS = {
+        SortSpec.by(SortKey.RATING),
+        SortSpec.byDescending(SortKey.DURATION).then(SortKey.TITLE),
+        SortSpec.by(SortKey.TITLE)
+    };
+
+    public static void main(String[] args) {
+        patchedViewsMatchAFreshSort();
+        topSongsMatchViewsWithoutCaching();
+        reorderingDropsViews();
+        System.out.println("PlaylistTest: all tests passed");
+    }
+
+    private static void patchedViewsMatchAFreshSort() {
+        Random random = new Random(22);
+        List<Song> pool = songs(random, 12); // A small pool, so the playlist queues the same songs many times
+        Playlist playlist = new Playlist();
+        for (SortSpec spec : SPECS) {
+            playlist.getSortedView(spec); // Cache every view up front so edits have to patch them
+        }
+        for (int step = 0; step < 3000; step++) {
+            if (playlist.getSize() > 0 && random.nextInt(3) == 0) {
+                playlist.deleteSong(random.nextInt(playlist.getSize()));
+            } else {
+                playlist.addSong(pool.get(random.nextInt(pool.size())));
+            }
+            if (step % 50 == 0) {
+                for (SortSpec spec : SPECS) {
+                    sameSongs(playlist.getSortedView(spec), stableSort(playlist, spec), spec + " at step " + step);
+                }
+            }
+        }
+    }
+
+    private static void topSongsMatchViewsWithoutCaching() {
+        Random random = new Random(7);
+        Playlist playlist = new Playlist();
+        for (Song song : songs(random, 300)) {
+            playlist.addSong(song);
+            playlist.addSong(song); // Duplicates tie on every key
+        }
+        for (SortSpec spec : SPECS) {
+            for (int k : new int[] {0, 1, 5, 600, 1000}) {
+                List<Song> expected = stableSort(playlist, spec);
+                expected = expected.subList(0, Math.min(k, expected.size()));
+                sameSongs(playlist.getTopSongs(spec, k), expected, spec + " top " + k + " without a view");
+            }
+            List<Song> view = playlist.getSortedView(spec);
+            sameSongs(playlist.getTopSongs(spec, 5), view.subList(0, 5), spec + " top 5 from the view");
+        }
+    }
+
+    private static void reorderingDropsViews() {
+        Random random = new Random(3);
+        Playlist playlist = new Playlist();
+        for (Song song : songs(random, 50)) {
+            playlist.addSong(song);
+        }
+        SortSpec spec = SPECS[0];
+        playlist.getSortedView(spec);
+        playlist.moveSong(0, 30);
+        sameSongs(playlist.getSortedView(spec), stableSort(playlist, spec), "after move");
+        playlist.reversePlaylist();
+        sameSongs(playlist.getSortedView(spec), stableSort(playlist, spec), "after reverse");
+        playlist.pinSongAtPosition(4);
+        Song pinned = playlist.getSongAtIndex(4);
+        playlist.shuffleWithPinned();
+        check(playlist.getSongAtIndex(4) == pinned, "pinned song stays put");
+        sameSongs(playlist.getSortedView(spec), stableSort(playlist, spec), "after shuffle");
+        playlist.sortBy(spec);
+        sameSongs(playlist.getAllSongsAsList(), playlist.getSortedView(spec), "sortBy reorders the playlist");
+    }
+
+    private static List<Song> songs(Random random, int count) {
+        List<Song> songs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            songs.add(new Song("id" + i, "T" + random.nextInt(5), "A", 1000L * random.nextInt(4), 1 + random.nextInt(5)));
+        }
+        return songs;
+    }
+
+    private static List<Song> stableSort(Playlist playlist, SortSpec spec) {
+        List<Song> sorted = new ArrayList<>(playlist.getAllSongsAsList());
+        sorted.sort(spec.comparator());
+        return sorted;
+    }
+
+    private static void sameSongs(List<Song> actual, List<Song> expected, String what) {
+        check(actual.size() == expected.size(), what + ": size " + actual.size() + " != " + expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            check(actual.get(i) == expected.get(i), what + ": differs at " + i);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
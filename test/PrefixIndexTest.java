@@ -0,0 +1,152 @@
+package search;
+
+import models.Song;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for PrefixIndex: completions through split radix-trie edges, ranking from the node caches,
+ * cache repair after removals, and agreement with a brute-force scan.
+ * Run with: java search.PrefixIndexTest (throws AssertionError on the first failure).
+ */
+public class PrefixIndexTest {
+
+    public static void main(String[] args) {
+        prefixesEndingInsideAnEdgeMatch();
+        completionsAreRankedByRatingThenTitle();
+        removalsRepairTheCaches();
+        matchesBruteForce();
+        System.out.println("PrefixIndexTest: all tests passed");
+    }
+
+    private static void prefixesEndingInsideAnEdgeMatch() {
+        PrefixIndex index = new PrefixIndex();
+        index.add(song("1", "Romance", "Zed", 3));
+        index.add(song("2", "Romantic", "Zed", 3)); // Splits the "romance" edge at "romant"
+        index.add(song("3", "Rome", "Zed", 3));
+        check(titles(index.complete("ROMAN", 5)).equals(Arrays.asList("Romance", "Romantic")), "prefix inside a split edge");
+        check(titles(index.complete("rom", 5)).equals(Arrays.asList("Romance", "Romantic", "Rome")), "shared prefix");
+        check(titles(index.complete("romance", 5)).equals(Arrays.asList("Romance")), "exact key");
+        check(index.complete("romances", 5).isEmpty() && index.complete("x", 5).isEmpty(), "no match");
+        check(index.complete("z", 5).size() == 3, "artist names are indexed too");
+        check(index.complete("rom", 0).isEmpty(), "k = 0");
+    }
+
+    private static void completionsAreRankedByRatingThenTitle() {
+        PrefixIndex index = new PrefixIndex();
+        for (int i = 0; i < 30; i++) {
+            index.add(song("id" + i, "Track " + (char) ('a' + i % 26) + i, "Artist", 1 + i % 5));
+        }
+        List<Song> top = index.complete("track", 4);
+        check(top.size() == 4, "k results");
+        for (Song song : top) {
+            check(song.getRating() == 5, "best rating first");
+        }
+        check(isRanked(top) && isRanked(index.complete("track", 30)), "ranking order, cached and collected");
+        check(index.complete("track", 50).size() == 30, "larger k returns every match");
+    }
+
+    private static void removalsRepairTheCaches() {
+        PrefixIndex index = new PrefixIndex();
+        Song best = song("b", "Alpha", "X", 5);
+        Song same = song("s", "Alpha", "X", 4); // Same key as best
+        index.add(best);
+        index.add(same);
+        index.add(song("o", "Alphabet", "X", 2));
+        index.remove(best);
+        check(titles(index.complete("alp", 3)).equals(Arrays.asList("Alpha", "Alphabet")), "removed song leaves the cache");
+        check(index.complete("alp", 1).get(0) == same, "same-key song survives");
+        index.remove(song("s", "Alpha", "X", 1)); // Another object for the same ID, as rating listeners may pass
+        check(titles(index.complete("alpha", 3)).equals(Arrays.asList("Alphabet")), "removed by ID, not identity");
+        check(index.complete("x", 10).size() == 1 && index.complete("x", 20).size() == 1, "removed by ID under the artist too");
+        index.remove(same); // Removing twice is a no-op
+        check(titles(index.complete("alpha", 3)).equals(Arrays.asList("Alphabet")), "after removing every copy");
+    }
+
+    private static void matchesBruteForce() {
+        Random random = new Random(9);
+        PrefixIndex index = new PrefixIndex();
+        List<Song> live = new ArrayList<>();
+        String[] words = {"love", "lover", "lovely", "low", "lost", "last", "light", "lights", "l"};
+        for (int i = 0; i < 2000; i++) {
+            if (!live.isEmpty() && random.nextInt(4) == 0) {
+                Song gone = live.remove(random.nextInt(live.size()));
+                index.remove(gone);
+            } else {
+                Song song = song("id" + i, words[random.nextInt(words.length)] + " " + random.nextInt(30), "Band " + random.nextInt(5),
+                        1 + random.nextInt(5));
+                live.add(song);
+                index.add(song);
+            }
+            if (i % 100 == 99) {
+                for (String prefix : new String[] {"l", "lo", "love", "lovel", "li", "band", "band 3", "last 1"}) {
+                    for (int k : new int[] {1, 3, 10, 40}) {
+                        List<Song> actual = index.complete(prefix, k);
+                        String where = "prefix '" + prefix + "' k=" + k + " at step " + i;
+                        check(keys(actual).equals(keys(bruteForce(live, prefix, k))), where);
+                        for (Song song : actual) {
+                            check(live.contains(song) && matches(song, prefix), where + ": " + song);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static final Comparator<Song> RANKING = Comparator.comparingInt(Song::getRating).reversed()
+            .thenComparing(Song::getTitle, String.CASE_INSENSITIVE_ORDER);
+
+    private static List<Song> bruteForce(List<Song> live, String prefix, int k) {
+        List<Song> matches = new ArrayList<>();
+        for (Song song : live) {
+            if (matches(song, prefix)) {
+                matches.add(song);
+            }
+        }
+        matches.sort(RANKING);
+        return matches.size() > k ? matches.subList(0, k) : matches;
+    }
+
+    private static boolean matches(Song song, String prefix) {
+        return song.getTitle().toLowerCase().startsWith(prefix) || song.getArtist().toLowerCase().startsWith(prefix);
+    }
+
+    // Songs tied on rating and title may come back in any order, so results are compared by their ranking keys
+    private static List<String> keys(List<Song> songs) {
+        List<String> keys = new ArrayList<>();
+        for (Song song : songs) {
+            keys.add(song.getRating() + ":" + song.getTitle().toLowerCase());
+        }
+        return keys;
+    }
+
+    private static boolean isRanked(List<Song> songs) {
+        for (int i = 1; i < songs.size(); i++) {
+            if (RANKING.compare(songs.get(i - 1), songs.get(i)) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Song song(String id, String title, String artist, int rating) {
+        return new Song(id, title, artist, 1000, rating);
+    }
+
+    private static List<String> titles(List<Song> songs) {
+        List<String> titles = new ArrayList<>();
+        for (Song song : songs) {
+            titles.add(song.getTitle());
+        }
+        return titles;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
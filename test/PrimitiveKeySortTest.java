@@ -0,0 +1,72 @@
+package sorting;
+
+import models.Song;
+import models.SongStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for PrimitiveKeySort: every spec orders songs exactly like the spec's comparator with a stable sort,
+ * for store views and standalone songs, non-ASCII titles, and artists interned between sorts.
+ * Run with: java sorting.PrimitiveKeySortTest (throws AssertionError on the first failure).
+ */
+public class PrimitiveKeySortTest {
+    private static final String[] WORDS = {"alpha", "Alpha", "beta", "\u00e9t\u00e9", "\u00c9t\u00e9", "zulu", "Zulu", "a", "", "\u00df"};
+
+    public static void main(String[] args) {
+        Random random = new Random(18);
+        SongStore store = new SongStore();
+        List<Song> songs = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            songs.add(randomSong(random, store, i));
+        }
+        SortSpec[] specs = {
+            SortSpec.by(SortKey.TITLE),
+            SortSpec.byDescending(SortKey.TITLE),
+            SortSpec.by(SortKey.ARTIST).thenDescending(SortKey.RATING).then(SortKey.TITLE),
+            SortSpec.byDescending(SortKey.DURATION),
+            SortSpec.by(SortKey.POPULARITY).then(SortKey.ADDED),
+            SortSpec.byDescending(SortKey.ARTIST).then(SortKey.DURATION),
+            SortSpec.parse("title"),
+            SortSpec.parse("duration_asc")
+        };
+        PrimitiveKeySort sorter = new PrimitiveKeySort();
+        for (int round = 0; round < 3; round++) {
+            for (SortSpec spec : specs) {
+                List<Song> expected = new ArrayList<>(songs);
+                expected.sort(spec.comparator()); // List.sort is a stable merge sort
+                List<Song> actual = new ArrayList<>(songs);
+                sorter.sort(actual, spec);
+                for (int i = 0; i < expected.size(); i++) {
+                    check(actual.get(i) == expected.get(i), spec + " round " + round + " differs at " + i
+                            + ": " + actual.get(i) + " vs " + expected.get(i));
+                }
+            }
+            // New artists, including ones that collate between existing names, must invalidate the cached ranks
+            for (int i = 0; i < 200; i++) {
+                songs.add(randomSong(random, store, songs.size()));
+            }
+            songs.add(new Song("late" + round, "Late", "aaa late artist " + round, 1, 1));
+        }
+        System.out.println("PrimitiveKeySortTest: all tests passed");
+    }
+
+    private static Song randomSong(Random random, SongStore store, int i) {
+        String title = WORDS[random.nextInt(WORDS.length)] + (random.nextBoolean() ? " " + WORDS[random.nextInt(WORDS.length)] : "");
+        String artist = WORDS[random.nextInt(WORDS.length)] + " band " + random.nextInt(i / 100 + 3);
+        long duration = 1000L * random.nextInt(300);
+        int rating = 1 + random.nextInt(5);
+        int popularity = random.nextInt(8) - 1;
+        if (random.nextInt(4) == 0) {
+            return new Song("s" + i, title, artist, duration, rating, popularity); // Standalone
+        }
+        return store.view(store.add("v" + i, title, artist, duration, rating, popularity));
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package search;
+
+import models.Song;
+import models.SongStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests for PrimitiveSongHashMap: random adds, batch adds, removals and re-adds of duplicate IDs answer every
+ * query like a SongHashMap, titles match ignoring case (including non-ASCII folding), songs of another store
+ * are appended, and an attached index ends up holding exactly the live songs.
+ * Run with: java search.PrimitiveSongHashMapTest (throws AssertionError on the first failure).
+ */
+public class PrimitiveSongHashMapTest {
+    private static final String[] TITLES = {
+        "Intro", "INTRO", "intro", "Outro", "Caf\u00e9", "CAF\u00c9", "\u212Aelvin", "kelvin", "Stra\u00dfe", "x", ""
+    };
+
+    public static void main(String[] args) {
+        matchesSongHashMap();
+        foreignSongsAreAppended();
+        System.out.println("PrimitiveSongHashMapTest: all tests passed");
+    }
+
+    private static void matchesSongHashMap() {
+        SongStore store = new SongStore();
+        for (int i = 0; i < 400; i++) {
+            store.add("id" + (i % 150), TITLES[i % TITLES.length], "Artist", 1000L * i, 1 + i % 5, i % 100);
+        }
+        store.add("\u00e9t\u00e9", "Summer", "Artist", 1000L, 3, 0); // Non-ASCII ID
+        PrimitiveSongHashMap primitive = new PrimitiveSongHashMap(store, 4); // Forces the tables to grow
+        SongHashMap model = new SongHashMap();
+        Map<String, Integer> attached = new HashMap<>();
+        primitive.attachIndex(new SecondaryIndex() {
+            @Override
+            public void add(Song song) {
+                attached.merge(song.getId(), 1, Integer::sum);
+            }
+
+            @Override
+            public void remove(Song song) {
+                check(attached.merge(song.getId(), -1, Integer::sum) == 0, "removed once per add: " + song.getId());
+                attached.remove(song.getId());
+            }
+        });
+
+        Random random = new Random(31);
+        int rows = store.size();
+        for (int step = 0; step < 20_000; step++) {
+            int ordinal = random.nextInt(rows);
+            Song view = store.view(ordinal);
+            switch (random.nextInt(5)) {
+                case 0:
+                    primitive.addSong(view);
+                    model.addSong(view);
+                    break;
+                case 1: {
+                    List<Song> batch = new ArrayList<>();
+                    for (int i = 0; i < 5; i++) {
+                        batch.add(store.view(random.nextInt(rows)));
+                    }
+                    batch.add(batch.get(0)); // Repeats within a batch
+                    primitive.addAll(batch);
+                    model.addAll(batch);
+                    break;
+                }
+                case 2: {
+                    Song removed = primitive.removeSong(view.getId());
+                    Song expected = model.removeSong(view.getId());
+                    check((removed == null) == (expected == null) && (removed == null || removed.equals(expected)),
+                            "removeSong " + view.getId());
+                    break;
+                }
+                default: {
+                    String title = TITLES[random.nextInt(TITLES.length)];
+                    check(ids(primitive.searchAllByTitle(title)).equals(ids(model.searchAllByTitle(title))),
+                            "postings of '" + title + "' at step " + step);
+                    check(same(primitive.searchSong(title), model.searchSong(title)), "title lookup '" + title + "'");
+                    check(same(primitive.searchSong(view.getId()), model.searchSong(view.getId())), "ID lookup");
+                }
+            }
+            check(primitive.size() == model.size(), "size at step " + step);
+        }
+        check(same(primitive.searchSong("\u00e9t\u00e9"), model.searchSong("\u00e9t\u00e9")), "non-ASCII ID");
+        check(primitive.searchSong("missing") == null, "missing query");
+        check(attached.size() == primitive.size(), "attached index holds the live songs");
+        for (String id : attached.keySet()) {
+            check(primitive.searchSong(id) != null, "attached song is live: " + id);
+        }
+        int postings = 0;
+        for (List<Song> posting : primitive.getTitlePostings()) {
+            check(ids(posting).equals(ids(model.searchAllByTitle(posting.get(0).getTitle()))), "title postings");
+            postings += posting.size();
+        }
+        check(postings == primitive.size(), "every song is in one posting list");
+    }
+
+    private static void foreignSongsAreAppended() {
+        SongStore store = new SongStore();
+        store.add("a", "Alpha", "Artist", 1000L, 4, 10);
+        PrimitiveSongHashMap lookup = new PrimitiveSongHashMap(store);
+        lookup.addRange(0, 1);
+        lookup.addAll(Arrays.asList(new Song("b", "Beta", "Other", 2000L, 2, 20), new Song("a", "Alpha 2", "Artist", 1L, 5, 30)));
+        check(store.size() == 3 && lookup.size() == 2, "foreign songs appended to the store");
+        Song b = lookup.searchSong("b");
+        check(b.getStore() == store && b.getArtist().equals("Other") && b.getPopularity() == 20, "appended columns");
+        check(lookup.searchSong("a").getTitle().equals("Alpha 2") && lookup.searchSong("alpha") == null,
+                "re-added ID replaces the old song and its title");
+    }
+
+    private static boolean same(Song a, Song b) {
+        return (a == null) ? b == null : a.equals(b) && a.getTitle().equals(b.getTitle());
+    }
+
+    private static List<String> ids(List<Song> songs) {
+        List<String> ids = new ArrayList<>(songs.size());
+        for (Song song : songs) {
+            ids.add(song.getId());
+        }
+        return ids;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ratings;
+
+import models.Song;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for ScoreIndex and UserScoreOverlay: top-k, rank and percentile agree with a sorted model
+ * through random re-scoring and removal, equal scores keep scoring order, and overlays only
+ * re-rank the user's own songs.
+ * Run with: java ratings.ScoreIndexTest (throws AssertionError on the first failure).
+ */
+public class ScoreIndexTest {
+
+    public static void main(String[] args) {
+        defaultScoresAndTies();
+        matchesSortedModel();
+        overlayRanksPersonalScoresFirst();
+        System.out.println("ScoreIndexTest: all tests passed");
+    }
+
+    private static void defaultScoresAndTies() {
+        ScoreIndex index = new ScoreIndex();
+        Song known = new Song("known", "K", "A", 1000, 2, 70);
+        Song starred = new Song("starred", "S", "A", 1000, 4); // No popularity: 4 stars score 80
+        Song tie = new Song("tie", "T", "A", 1000, 1, 70);
+        index.add(known);
+        index.add(starred);
+        index.add(tie);
+        check(index.getScore("starred") == 80.0 && index.getScore("known") == 70.0, "default scores");
+        check(ids(index.topK(3)).equals(Arrays.asList("starred", "known", "tie")), "equal scores keep scoring order");
+        check(index.rank("tie") == 2 && index.percentile("starred") == 100.0 && index.percentile("tie") == 0.0, "rank and percentile");
+
+        starred.setRating(1);
+        index.ratingChanged(starred, 4, 1);
+        check(index.getScore("starred") == 20.0 && index.rank("starred") == 2, "star-rated songs follow rating changes");
+        known.setRating(5);
+        index.ratingChanged(known, 2, 5);
+        check(index.getScore("known") == 70.0, "raw popularity is not overridden by stars");
+        check(index.rank("missing") == -1 && Double.isNaN(index.getScore("missing")), "unknown song");
+    }
+
+    private static void matchesSortedModel() {
+        Random random = new Random(15);
+        ScoreIndex index = new ScoreIndex();
+        List<Entry> model = new ArrayList<>();
+        long seq = 0;
+        for (int step = 0; step < 5000; step++) {
+            String id = "id" + random.nextInt(400);
+            model.removeIf(e -> e.id.equals(id));
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+            } else {
+                double score = random.nextInt(50); // Few distinct scores, so ties are common
+                index.put(new Song(id, id, "A", 1000, 3), score);
+                model.add(new Entry(id, score, seq++));
+            }
+            if (step % 250 == 249) {
+                model.sort(Comparator.comparingDouble((Entry e) -> -e.score).thenComparingLong(e -> e.seq));
+                check(index.size() == model.size(), "size at step " + step);
+                List<String> expected = new ArrayList<>();
+                for (Entry e : model) {
+                    expected.add(e.id);
+                }
+                check(ids(index.topK(model.size() + 5)).equals(expected), "order at step " + step);
+                check(ids(index.topK(10)).equals(expected.subList(0, Math.min(10, expected.size()))), "top 10 at step " + step);
+                for (int i = 0; i < expected.size(); i += 7) {
+                    check(index.rank(expected.get(i)) == i, "rank of " + expected.get(i) + " at step " + step);
+                }
+            }
+        }
+    }
+
+    private static void overlayRanksPersonalScoresFirst() {
+        ScoreIndex base = new ScoreIndex();
+        Song a = new Song("a", "A", "X", 1000, 1, 90);
+        Song b = new Song("b", "B", "X", 1000, 1, 60);
+        Song c = new Song("c", "C", "X", 1000, 1, 30);
+        base.add(a);
+        base.add(b);
+        base.add(c);
+        UserScoreOverlay mine = new UserScoreOverlay(base);
+        mine.rate(c, 95);
+        check(ids(mine.topK(3)).equals(Arrays.asList("c", "a", "b")), "personal score re-ranks only that song");
+        check(ids(base.topK(3)).equals(Arrays.asList("a", "b", "c")), "shared index is untouched");
+        check(mine.getScore("c") == 95.0 && mine.getScore("a") == 90.0, "overlay scores fall back to the catalog");
+        check(mine.unrate("c") && ids(mine.topK(3)).equals(Arrays.asList("a", "b", "c")), "unrating restores the catalog order");
+    }
+
+    private static final class Entry {
+        final String id;
+        final double score;
+        final long seq;
+
+        Entry(String id, double score, long seq) {
+            this.id = id;
+            this.score = score;
+            this.seq = seq;
+        }
+    }
+
+    private static List<String> ids(List<Song> songs) {
+        List<String> ids = new ArrayList<>(songs.size());
+        for (Song song : songs) {
+            ids.add(song.getId());
+        }
+        return ids;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
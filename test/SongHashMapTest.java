@@ -0,0 +1,160 @@
+package search;
+
+import models.Song;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests for SongHashMap title postings: every song with a title stays reachable in insertion order
+ * through adds, replacements and removals, and the batch operations and the parallel bulk build match their
+ * one-by-one versions.
+ * Run with: java search.SongHashMapTest (throws AssertionError on the first failure).
+ */
+public class SongHashMapTest {
+
+    public static void main(String[] args) {
+        postingsKeepEverySongInInsertionOrder();
+        replacingAnIdMovesItsPosting();
+        removalKeepsTheOtherPostings();
+        batchOperationsMatchSingleOperations();
+        bulkBuildMatchesAddSong();
+        System.out.println("SongHashMapTest: all tests passed");
+    }
+
+    private static void postingsKeepEverySongInInsertionOrder() {
+        SongHashMap map = new SongHashMap();
+        map.addSong(song("a", "Yesterday"));
+        map.addSong(song("b", "Other"));
+        map.addSong(song("c", "YESTERDAY"));
+        map.addSong(song("d", "yesterday"));
+        check(ids(map.searchAllByTitle("yEsTeRdAy")).equals(Arrays.asList("a", "c", "d")), "postings in insertion order");
+        check(map.searchSong("yesterday").getId().equals("a"), "title search returns the first posting");
+        check(map.searchSong("c").getTitle().equals("YESTERDAY"), "ID search wins");
+        check(map.searchAllByTitle("missing").isEmpty(), "unknown title");
+        check(map.size() == 4, "size");
+    }
+
+    private static void replacingAnIdMovesItsPosting() {
+        SongHashMap map = new SongHashMap();
+        map.addSong(song("a", "Hello"));
+        map.addSong(song("b", "Hello"));
+        map.addSong(song("a", "Goodbye"));
+        check(ids(map.searchAllByTitle("hello")).equals(Arrays.asList("b")), "replaced song leaves its old title");
+        check(ids(map.searchAllByTitle("goodbye")).equals(Arrays.asList("a")), "replacement is posted under its title");
+        map.addSong(song("b", "Hello"));
+        check(ids(map.searchAllByTitle("hello")).equals(Arrays.asList("b")), "same title replacement is posted once");
+        check(map.size() == 2, "size after replacements");
+    }
+
+    private static void removalKeepsTheOtherPostings() {
+        SongHashMap map = new SongHashMap();
+        for (String id : new String[] {"a", "b", "c", "d"}) {
+            map.addSong(song(id, "Same"));
+        }
+        check(map.removeSong("b").getId().equals("b"), "removed song is returned");
+        check(ids(map.searchAllByTitle("same")).equals(Arrays.asList("a", "c", "d")), "others keep their order");
+        check(map.removeSong("b") == null, "second removal is a no-op");
+        map.removeSong("a");
+        check(map.searchSong("same").getId().equals("c"), "next posting becomes the title match");
+        map.removeSong("c");
+        map.removeSong("d");
+        check(map.searchSong("same") == null && map.searchAllByTitle("same").isEmpty(), "empty title is dropped");
+    }
+
+    private static void batchOperationsMatchSingleOperations() {
+        List<Song> batch = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            batch.add(song("id" + (i % 150), "Title " + (i % 7))); // IDs repeat, so later songs replace earlier ones
+        }
+        SongHashMap one = new SongHashMap();
+        List<String> seenOne = attach(one);
+        SongHashMap bulk = new SongHashMap();
+        List<String> seenBulk = attach(bulk);
+        for (Song song : batch) {
+            one.addSong(song);
+        }
+        bulk.addAll(batch);
+        for (int t = 0; t < 7; t++) {
+            check(ids(one.searchAllByTitle("title " + t)).equals(ids(bulk.searchAllByTitle("title " + t))), "addAll postings " + t);
+        }
+        check(one.size() == bulk.size() && bulk.size() == 150, "addAll size");
+        check(seenOne.size() == 150 && seenBulk.size() == 150, "index sees each surviving song once");
+
+        List<String> doomed = Arrays.asList("id3", "id10", "id17", "nope", "id24");
+        List<Song> removed = bulk.removeAll(doomed);
+        for (String id : doomed) {
+            one.removeSong(id);
+        }
+        check(ids(removed).equals(Arrays.asList("id3", "id10", "id17", "id24")), "removeAll returns removed songs in order");
+        for (int t = 0; t < 7; t++) {
+            check(ids(one.searchAllByTitle("title " + t)).equals(ids(bulk.searchAllByTitle("title " + t))), "removeAll postings " + t);
+        }
+        check(seenBulk.size() == 146, "index sees the removals");
+    }
+
+    private static void bulkBuildMatchesAddSong() {
+        Song[] songs = new Song[40_000]; // Above the size where build splits the work
+        for (int i = 0; i < songs.length; i++) {
+            songs[i] = song("id" + (i % 30_000), ((i % 3 == 0) ? "TITLE " : "title ") + (i % 500));
+        }
+        SongHashMap one = new SongHashMap();
+        for (Song song : songs) {
+            one.addSong(song);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SongHashMap built = SongHashMap.build(songs, pool);
+            check(built.size() == one.size() && built.size() == 30_000, "built size");
+            for (int t = 0; t < 500; t++) {
+                check(ids(built.searchAllByTitle("Title " + t)).equals(ids(one.searchAllByTitle("title " + t))), "built postings " + t);
+                check(built.searchSong("title " + t) == one.searchSong("title " + t), "built first posting " + t);
+            }
+            for (int i = 0; i < 30_000; i += 7) {
+                check(built.searchSong("id" + i) == one.searchSong("id" + i), "built ID lookup holds the latest song " + i);
+            }
+            List<String> seen = attach(built);
+            check(seen.equals(attach(one)), "attached index sees the songs in insertion order");
+            built.addSong(song("id1", "Moved"));
+            check(built.searchAllByTitle("moved").size() == 1 && built.size() == 30_000, "built map accepts replacements");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Attaches an index recording the IDs it currently holds
+    private static List<String> attach(SongHashMap map) {
+        List<String> ids = new ArrayList<>();
+        map.attachIndex(new SecondaryIndex() {
+            @Override
+            public void add(Song song) {
+                ids.add(song.getId());
+            }
+
+            @Override
+            public void remove(Song song) {
+                ids.remove(song.getId());
+            }
+        });
+        return ids;
+    }
+
+    private static Song song(String id, String title) {
+        return new Song(id, title, "Artist", 1000, 3);
+    }
+
+    private static List<String> ids(List<Song> songs) {
+        List<String> ids = new ArrayList<>(songs.size());
+        for (Song song : songs) {
+            ids.add(song.getId());
+        }
+        return ids;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests for SongIdMap: random puts and removals keyed by views, standalone songs and ID Strings agree with
+ * a LinkedHashMap model, including insertion order across compaction, and putAll remaps values and reports
+ * the entries it replaces, and a parallel bulk build matches putting the same songs one by one.
+ * Run with: java models.SongIdMapTest (throws AssertionError on the first failure).
+ */
+public class SongIdMapTest {
+
+    public static void main(String[] args) {
+        randomOperationsMatchModel();
+        putAllRemapsAndReportsReplaced();
+        buildMatchesSequentialPuts();
+        System.out.println("SongIdMapTest: all tests passed");
+    }
+
+    private static void randomOperationsMatchModel() {
+        SongStore store = new SongStore();
+        for (int i = 0; i < 300; i++) {
+            store.add("id" + i, "Title " + i, "Artist", 1000L, 3, 0);
+        }
+        store.add("\u00e9t\u00e9", "Summer", "Artist", 1000L, 3, 0); // Non-ASCII ID
+        Random random = new Random(29);
+        SongIdMap map = new SongIdMap();
+        Map<String, Integer> model = new LinkedHashMap<>();
+        for (int step = 0; step < 20_000; step++) {
+            int ordinal = random.nextInt(store.size());
+            String id = store.getId(ordinal);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1: {
+                    // Sometimes a standalone copy, which must land on the same entry as the view
+                    Song key = random.nextBoolean() ? store.view(ordinal) : new Song(id, "Copy", "Other", 1L, 1, -1);
+                    int value = random.nextInt(1000);
+                    Integer old = model.containsKey(id) ? model.get(id) : null;
+                    model.put(id, value);
+                    check(map.put(key, value) == (old != null ? old : SongIdMap.ABSENT), "put returns the old value");
+                    check(map.getSong(id) == key, "the latest Song object is stored");
+                    break;
+                }
+                case 2: {
+                    Integer old = model.remove(id);
+                    int removed = random.nextBoolean() ? map.remove(id) : map.remove(store.view(ordinal));
+                    check(removed == (old != null ? old : SongIdMap.ABSENT), "remove returns the old value");
+                    break;
+                }
+                default: {
+                    Integer expected = model.get(id);
+                    check(map.get(id) == (expected != null ? expected : SongIdMap.ABSENT), "get by ID");
+                    check(map.get(store.view(ordinal)) == map.get(id), "get by view");
+                    check(map.containsKey(store.view(ordinal)) == (expected != null), "containsKey");
+                }
+            }
+            check(map.size() == model.size(), "size");
+        }
+        List<String> order = new ArrayList<>();
+        for (Song song : map.songs()) {
+            order.add(song.getId());
+        }
+        check(order.equals(new ArrayList<>(model.keySet())), "insertion order survives removals and compaction");
+    }
+
+    private static void putAllRemapsAndReportsReplaced() {
+        SongStore store = new SongStore();
+        for (int i = 0; i < 6; i++) {
+            store.add("id" + i, "Title " + i, "Artist", 1000L, 3, 0);
+        }
+        SongIdMap target = new SongIdMap();
+        target.put(store.view(0), 1);
+        target.put(store.view(1), 2);
+        SongIdMap other = new SongIdMap();
+        other.put(store.view(2), 30);
+        Song replacement = new Song("id1", "Newer", "Artist", 1L, 5, -1);
+        other.put(replacement, 20);
+        other.put(store.view(3), 40);
+        other.remove("id3");
+        Map<String, Integer> replaced = new HashMap<>();
+        target.putAll(other, v -> v + 100, (song, value) -> replaced.put(song.getId(), value));
+        check(replaced.size() == 1 && replaced.get("id1") == 2, "replaced entry reported with its old value");
+        check(target.size() == 3 && target.get("id1") == 120 && target.get("id2") == 130, "values remapped");
+        check(target.getSong("id1") == replacement && !target.containsKey("id3"), "replacement stored, holes skipped");
+        check(other.size() == 2, "other map unchanged");
+    }
+
+    private static void buildMatchesSequentialPuts() {
+        Song[] songs = new Song[50_000]; // Above the size where build splits the work
+        int[] values = new int[songs.length];
+        for (int i = 0; i < songs.length; i++) {
+            songs[i] = new Song("id" + (i % 40_000), "Title", "Artist", 1000L, 3, -1); // Later copies replace earlier ones
+            values[i] = i;
+        }
+        SongIdMap one = new SongIdMap();
+        Map<Integer, Integer> replacedOne = new HashMap<>();
+        for (int i = 0; i < songs.length; i++) {
+            int old = one.put(songs[i], values[i]);
+            if (old != SongIdMap.ABSENT) {
+                replacedOne.put(old, i);
+            }
+        }
+        Map<Integer, Integer> replacedBuilt = new HashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SongIdMap built = SongIdMap.build(songs, values, pool, (song, value) -> replacedBuilt.put(value, 0));
+            check(built.size() == one.size() && built.size() == 40_000, "built size");
+            check(replacedBuilt.keySet().equals(replacedOne.keySet()), "built reports every replaced value");
+            for (int i = 0; i < 40_000; i++) {
+                String id = "id" + i;
+                check(built.get(id) == one.get(id) && built.getSong(id) == one.getSong(id), "built entry " + id);
+            }
+            List<Song> order = new ArrayList<>();
+            for (Song song : built.songs()) {
+                order.add(song);
+            }
+            int i = 0;
+            for (Song song : one.songs()) {
+                check(order.get(i++) == song, "built keeps insertion order at " + (i - 1));
+            }
+            check(built.put(new Song("fresh", "T", "A", 1L, 3, -1), 7) == SongIdMap.ABSENT && built.get("fresh") == 7,
+                    "built map accepts new entries");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
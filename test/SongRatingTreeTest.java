@@ -0,0 +1,182 @@
+package ratings;
+
+import models.Song;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests for SongRatingTree: batch inserts and parallel bulk builds match one-by-one inserts, range queries read through the buckets,
+ * listeners hear about every re-rating, and the live counts follow every change.
+ * Run with: java ratings.SongRatingTreeTest (throws AssertionError on the first failure).
+ */
+public class SongRatingTreeTest {
+
+    public static void main(String[] args) {
+        insertAllMatchesInsertSong();
+        bulkBuildMatchesInsertSong();
+        mergeKeepsBucketOrder();
+        rangeViewsReadThroughTheBuckets();
+        swapDeletesKeepPositionsConsistent();
+        reinsertingAnIndexedSongNotifiesListeners();
+        System.out.println("SongRatingTreeTest: all tests passed");
+    }
+
+    private static void insertAllMatchesInsertSong() {
+        List<Song> batch = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            batch.add(song("id" + (i % 4000), (i % 1000 == 999) ? 6 : 1 + i % 5)); // A few invalid ratings; repeated IDs move
+        }
+        SongRatingTree one = new SongRatingTree();
+        for (Song song : batch) {
+            one.insertSong(song, song.getRating());
+        }
+        SongRatingTree bulk = new SongRatingTree();
+        bulk.insertAll(batch);
+        check(ids(bulk.getBuckets()).equals(ids(one.getBuckets())), "same buckets in the same order");
+        for (int r = 1; r <= 5; r++) {
+            check(bulk.getSongCount(r) == bulk.searchByRating(r).size(), "count of rating " + r);
+        }
+        check(bulk.getTotalSongCount() == one.getTotalSongCount(), "total");
+        check(bulk.deleteSong("id1") && !bulk.deleteSong("id1"), "batch-inserted songs can be deleted");
+    }
+
+    private static void bulkBuildMatchesInsertSong() {
+        Song[] songs = new Song[40_000]; // Above the size where build splits the work
+        for (int i = 0; i < songs.length; i++) {
+            songs[i] = song("id" + (i % 30_000), (i % 1000 == 999) ? 0 : 1 + (i * 7) % 5); // Invalid ratings; repeated IDs move
+        }
+        SongRatingTree one = new SongRatingTree();
+        for (Song song : songs) {
+            one.insertSong(song, song.getRating());
+        }
+        // 30 IDs have an invalid rating in every copy, so they are never inserted
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SongRatingTree built = SongRatingTree.build(songs, pool);
+            check(ids(built.getBuckets()).equals(ids(one.getBuckets())), "built buckets in insertion order");
+            check(built.getTotalSongCount() == one.getTotalSongCount() && built.getTotalSongCount() == 29_970, "built total");
+            for (int r = 1; r <= 5; r++) {
+                check(built.getSongCount(r) == one.getSongCount(r), "built count of rating " + r);
+            }
+            check(built.deleteSong("id29998") && !built.deleteSong("id29998"), "built songs can be deleted");
+            check(built.updateRating("id5", 2) && built.searchByRating(2).contains(songs[5]), "built songs can be re-rated");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void mergeKeepsBucketOrder() {
+        SongRatingTree first = new SongRatingTree();
+        SongRatingTree second = new SongRatingTree();
+        first.insertAll(Arrays.asList(song("a", 3), song("b", 5)));
+        second.insertAll(Arrays.asList(song("c", 3), song("d", 5), song("e", 3)));
+        first.mergeFrom(second);
+        check(ids(first.searchByRating(3)).equals(Arrays.asList("a", "c", "e")), "merged bucket 3");
+        check(ids(first.searchByRating(5)).equals(Arrays.asList("b", "d")), "merged bucket 5");
+        check(first.getTotalSongCount() == 5, "merged total");
+    }
+
+    private static void rangeViewsReadThroughTheBuckets() {
+        SongRatingTree tree = new SongRatingTree();
+        tree.insertAll(Arrays.asList(song("a", 2), song("b", 4), song("c", 5), song("d", 4), song("e", 1)));
+        List<Song> fourUp = tree.searchByRatingRange(4, 5);
+        check(ids(fourUp).equals(Arrays.asList("c", "b", "d")), "highest rating first");
+        tree.insertSong(song("f", 5), 5);
+        check(fourUp.size() == 4 && fourUp.get(1).getId().equals("f"), "views are live");
+        check(tree.searchByRatingRange(5, 4).isEmpty() && tree.searchByRating(0).isEmpty(), "invalid ranges");
+        try {
+            tree.searchByRating(3).add(song("x", 3));
+            throw new AssertionError("bucket views must be read-only");
+        } catch (UnsupportedOperationException expected) {
+            // Expected
+        }
+    }
+
+    private static void swapDeletesKeepPositionsConsistent() {
+        Random random = new Random(14);
+        SongRatingTree tree = new SongRatingTree();
+        Map<String, Integer> model = new HashMap<>();
+        for (int step = 0; step < 20_000; step++) {
+            String id = "id" + random.nextInt(500);
+            int op = random.nextInt(3);
+            if (op == 0) {
+                int rating = 1 + random.nextInt(5);
+                tree.insertSong(song(id, rating), rating);
+                model.put(id, rating);
+            } else if (op == 1) {
+                check(tree.deleteSong(id) == (model.remove(id) != null), "delete " + id + " at step " + step);
+            } else {
+                int rating = 1 + random.nextInt(5);
+                check(tree.updateRating(id, rating) == model.containsKey(id), "update " + id + " at step " + step);
+                model.computeIfPresent(id, (k, old) -> rating);
+            }
+        }
+        Map<String, Integer> indexed = new HashMap<>();
+        for (int r = 1; r <= 5; r++) {
+            for (Song song : tree.searchByRating(r)) {
+                check(indexed.put(song.getId(), r) == null, "indexed once: " + song.getId());
+            }
+            check(tree.getSongCount(r) == tree.searchByRating(r).size(), "count of rating " + r);
+        }
+        check(indexed.equals(model), "buckets match the model");
+        for (String id : model.keySet()) {
+            check(tree.deleteSong(id), "every indexed song can be deleted: " + id);
+        }
+        check(tree.getTotalSongCount() == 0 && tree.getBuckets().isEmpty(), "empty after deleting everything");
+    }
+
+    private static void reinsertingAnIndexedSongNotifiesListeners() {
+        SongRatingTree tree = new SongRatingTree();
+        List<String> changes = new ArrayList<>();
+        tree.addListener((song, oldRating, newRating) -> changes.add(song.getId() + ":" + oldRating + "->" + newRating));
+        Song a = song("a", 2);
+        tree.insertSong(a, 2);
+        tree.insertSong(song("b", 3), 3);
+        check(changes.isEmpty(), "fresh inserts are not rating changes");
+
+        tree.insertSong(a, 4);
+        check(changes.equals(Arrays.asList("a:2->4")), "re-inserting with a new rating notifies: " + changes);
+        check(a.getRating() == 4 && ids(tree.searchByRating(4)).equals(Arrays.asList("a")) && tree.searchByRating(2).isEmpty(), "moved");
+        tree.insertSong(a, 4);
+        check(changes.size() == 1, "same rating is not a change");
+
+        Song replacement = song("b", 5);
+        tree.insertAll(Arrays.asList(replacement));
+        check(changes.equals(Arrays.asList("a:2->4", "b:3->5")), "batch re-insert notifies too: " + changes);
+        check(tree.searchByRating(5).get(0) == replacement && tree.getTotalSongCount() == 2, "new object replaces the indexed one");
+        check(tree.updateRating("b", 1) && changes.get(2).equals("b:5->1") && replacement.getRating() == 1, "updateRating");
+    }
+
+    private static Song song(String id, int rating) {
+        return new Song(id, "Title " + id, "Artist", 1000, rating);
+    }
+
+    private static List<String> ids(List<Song> songs) {
+        List<String> ids = new ArrayList<>(songs.size());
+        for (Song song : songs) {
+            ids.add(song.getId());
+        }
+        return ids;
+    }
+
+    private static List<List<String>> ids(Map<Integer, List<Song>> buckets) {
+        List<List<String>> ids = new ArrayList<>();
+        for (Map.Entry<Integer, List<Song>> bucket : buckets.entrySet()) {
+            List<String> entry = ids(bucket.getValue());
+            entry.add(0, "rating " + bucket.getKey());
+            ids.add(entry);
+        }
+        return ids;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package models;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests for SongStore and its flyweight views: columns round-trip, and hashing, equality and title order
+ * computed from the byte columns agree with the decoded Strings, and concatenated stores hold every part's songs.
+ * Run with: java models.SongStoreTest (throws AssertionError on the first failure).
+ */
+public class SongStoreTest {
+    private static final String[] TITLES = {
+        "apple", "Apple", "APPLES", "banana", "", "a", "Zebra", "zebra!", "\u00e9clair", "\u00c9clair", "Eclair",
+        "caf\u00e9", "cafe", "\ud83c\udfb5 note", "\uff21 wide", "x\u00df", "X\u00df", "xs", "\u0130stanbul", "istanbul"
+    };
+
+    public static void main(String[] args) {
+        columnsRoundTrip();
+        hashAndEqualityMatchDecodedIds();
+        titleOrderMatchesCaseInsensitiveOrder();
+        concatKeepsEveryPartInOrder();
+        System.out.println("SongStoreTest: all tests passed");
+    }
+
+    private static void columnsRoundTrip() {
+        SongStore store = new SongStore(2); // Forces the columns and arenas to grow
+        for (int i = 0; i < 100; i++) {
+            store.add("id" + i, "Title " + i, "Artist " + (i % 3), 1000L * i, 1 + i % 5, i);
+        }
+        check(store.size() == 100, "size");
+        Song view = store.view(42);
+        check(view.getId().equals("id42") && view.getTitle().equals("Title 42"), "text columns");
+        check(view.getArtist().equals("Artist 0") && view.getDurationMs() == 42_000L, "artist and duration");
+        check(view.getRating() == 3 && view.getPopularity() == 42, "rating and popularity");
+        view.setRating(5);
+        check(store.getRating(42) == 5, "setRating writes through");
+        check(store.getAddedSeq(41) < store.getAddedSeq(42), "added order");
+    }
+
+    private static void hashAndEqualityMatchDecodedIds() {
+        SongStore a = new SongStore();
+        SongStore b = new SongStore();
+        String[] ids = {"plain", "caf\u00e9", "\ud83c\udfb5", "same-length\u00e9", "same-lengthe"};
+        for (String id : ids) {
+            a.add(id, "t", "x", 1, 1);
+            b.add(id, "t", "x", 1, 1);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            Song view = a.view(i);
+            Song standalone = new Song(ids[i], "t", "x", 1, 1);
+            check(view.hashCode() == ids[i].hashCode(), "hash of " + ids[i]);
+            check(view.equals(b.view(i)) && view.equals(standalone) && standalone.equals(view), "equal to " + ids[i]);
+            for (int j = 0; j < ids.length; j++) {
+                if (i != j) {
+                    check(!view.equals(b.view(j)) && !view.equals(new Song(ids[j], "t", "x", 1, 1)), ids[i] + " vs " + ids[j]);
+                }
+            }
+        }
+        Set<Song> set = new HashSet<>();
+        set.add(a.view(1));
+        check(set.contains(new Song("caf\u00e9", "other", "y", 2, 2)) && set.contains(b.view(1)), "hash set lookups");
+    }
+
+    private static void titleOrderMatchesCaseInsensitiveOrder() {
+        SongStore store = new SongStore();
+        for (String title : TITLES) {
+            store.add(title, title, "x", 1, 1);
+        }
+        for (int i = 0; i < TITLES.length; i++) {
+            for (int j = 0; j < TITLES.length; j++) {
+                int expected = Integer.signum(String.CASE_INSENSITIVE_ORDER.compare(TITLES[i], TITLES[j]));
+                int actual = Integer.signum(store.compareTitlesIgnoreCase(i, j));
+                check(expected == actual, "'" + TITLES[i] + "' vs '" + TITLES[j] + "': " + actual + " != " + expected);
+            }
+        }
+    }
+
+    private static void concatKeepsEveryPartInOrder() {
+        SongStore first = new SongStore(2);
+        SongStore empty = new SongStore();
+        SongStore second = new SongStore();
+        for (int i = 0; i < TITLES.length; i++) {
+            (i < 7 ? first : second).add("id" + i + TITLES[i], TITLES[i], "Artist " + (i % 3), 1000L * i, 1 + i % 5, i);
+        }
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            SongStore store = SongStore.concat(Arrays.asList(first, empty, second), pool);
+            check(store.size() == TITLES.length, "concat size");
+            for (int i = 0; i < TITLES.length; i++) {
+                SongStore part = (i < 7) ? first : second;
+                int ordinal = (i < 7) ? i : i - 7;
+                check(store.getId(i).equals(part.getId(ordinal)) && store.getTitle(i).equals(TITLES[i]), "text of " + i);
+                check(store.getArtistId(i) == part.getArtistId(ordinal) && store.getDurationMs(i) == 1000L * i
+                        && store.getRating(i) == 1 + i % 5 && store.getPopularity(i) == i, "columns of " + i);
+                check(store.view(i).equals(part.view(ordinal)) && store.idHash(i) == part.idHash(ordinal), "identity of " + i);
+                check(i == 0 || store.getAddedSeq(i - 1) < store.getAddedSeq(i), "added order at " + i);
+            }
+            check(store.getAddedSeq(0) > second.getAddedSeq(second.size() - 1), "concatenated songs count as added now");
+            int ordinal = store.add("late", "Late", "Artist", 1L, 3, 0);
+            check(store.getTitle(ordinal).equals("Late") && store.getTitle(ordinal - 1).equals(TITLES[TITLES.length - 1]),
+                    "appending after concat");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
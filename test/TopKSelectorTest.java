@@ -0,0 +1,51 @@
+package sorting;
+
+import models.Song;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for TopKSelector: the selection equals the first k songs of a stable sort, ties included,
+ * for k smaller than, equal to and larger than the input.
+ * Run with: java sorting.TopKSelectorTest (throws AssertionError on the first failure).
+ */
+public class TopKSelectorTest {
+
+    public static void main(String[] args) {
+        Random random = new Random(20);
+        List<Song> songs = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            songs.add(new Song("id" + i, "T" + random.nextInt(30), "A" + random.nextInt(8), 1000L * random.nextInt(40),
+                    1 + random.nextInt(5), random.nextInt(10)));
+        }
+        TopKSelector selector = new TopKSelector();
+        SortSpec[] specs = {
+            SortSpec.byDescending(SortKey.DURATION),
+            SortSpec.by(SortKey.RATING).then(SortKey.TITLE),
+            SortSpec.byDescending(SortKey.POPULARITY).then(SortKey.ARTIST)
+        };
+        for (SortSpec spec : specs) {
+            List<Song> sorted = new ArrayList<>(songs);
+            sorted.sort(spec.comparator());
+            for (int k : new int[] {1, 5, 64, 1999, 2000, 5000}) {
+                List<Song> top = selector.select(songs, spec, k);
+                List<Song> expected = sorted.subList(0, Math.min(k, sorted.size()));
+                check(top.size() == expected.size(), spec + " k=" + k + ": size " + top.size());
+                for (int i = 0; i < top.size(); i++) {
+                    check(top.get(i) == expected.get(i), spec + " k=" + k + ": differs at " + i);
+                }
+            }
+        }
+        check(selector.select(songs, specs[0], 0).isEmpty(), "k = 0");
+        check(selector.select(new ArrayList<>(), specs[0], 3).isEmpty(), "no songs");
+        check(selector.select(songs, "duration_desc", 5).equals(selector.select(songs, specs[0], 5)), "criteria strings");
+        System.out.println("TopKSelectorTest: all tests passed");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package playlist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Tests for TreapList: random adds, deletes, moves and lazy reversals agree with an ArrayList model,
+ * through get, toList, iteration and parallel spliterator traversal; a list cursor moving both ways and
+ * inserting, removing and replacing in place agrees with an ArrayList's; clearing and refilling reuses the list,
+ * and iterators and cursors are fail-fast.
+ * Run with: java playlist.TreapListTest (throws AssertionError on the first failure).
+ */
+public class TreapListTest {
+
+    public static void main(String[] args) {
+        matchesModelThroughReversesAndMoves();
+        clearAndRefill();
+        iteratorsAreFailFast();
+        cursorMatchesModel();
+        cursorRejectsInvalidCalls();
+        System.out.println("TreapListTest: all tests passed");
+    }
+
+    private static void matchesModelThroughReversesAndMoves() {
+        Random random = new Random(23);
+        TreapList<Integer> list = new TreapList<>();
+        List<Integer> model = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            int size = model.size();
+            switch (random.nextInt(7)) {
+                case 0:
+                    list.addLast(step);
+                    model.add(step);
+                    break;
+                case 1:
+                    list.addFirst(step);
+                    model.add(0, step);
+                    break;
+                case 2: {
+                    int at = random.nextInt(size + 1);
+                    list.add(at, step);
+                    model.add(at, step);
+                    break;
+                }
+                case 3:
+                    if (size > 0) {
+                        int at = random.nextInt(size);
+                        check(list.delete(at).equals(model.remove(at)), "delete at step " + step);
+                    }
+                    break;
+                case 4:
+                    if (size > 0) {
+                        int from = random.nextInt(size);
+                        int to = random.nextInt(size);
+                        list.move(from, to);
+                        model.add(to, model.remove(from));
+                    }
+                    break;
+                case 5:
+                    list.reverse();
+                    Collections.reverse(model);
+                    break;
+                default:
+                    if (size > 0) {
+                        int at = random.nextInt(size);
+                        check(list.get(at).equals(model.get(at)), "get(" + at + ") at step " + step);
+                    }
+            }
+            check(list.getSize() == model.size(), "size at step " + step);
+            if (step % 500 == 0) {
+                sameAsModel(list, model, "step " + step);
+            }
+        }
+        sameAsModel(list, model, "end");
+    }
+
+    private static void clearAndRefill() {
+        TreapList<String> list = new TreapList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.addLast("a" + i);
+        }
+        list.reverse();
+        list.clear();
+        check(list.isEmpty() && list.getSize() == 0 && list.toList().isEmpty(), "empty after clear");
+        check(!list.iterator().hasNext(), "no elements to iterate");
+        List<String> model = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            list.addLast("b" + i);
+            model.add("b" + i);
+        }
+        sameAsModel(list, model, "after refill");
+        try {
+            list.get(1500);
+            throw new AssertionError("get past the end should be rejected");
+        } catch (IndexOutOfBoundsException expected) {
+            // Expected
+        }
+    }
+
+    private static void iteratorsAreFailFast() {
+        TreapList<Integer> list = new TreapList<>();
+        for (int i = 0; i < 10; i++) {
+            list.addLast(i);
+        }
+        Iterator<Integer> it = list.iterator();
+        it.next();
+        list.get(3); // Reads are not modifications
+        it.next();
+        list.reverse();
+        try {
+            it.next();
+            throw new AssertionError("iterator should fail after reverse");
+        } catch (ConcurrentModificationException expected) {
+            // Expected
+        }
+    }
+
+    private static void cursorMatchesModel() {
+        Random random = new Random(41);
+        TreapList<Integer> list = new TreapList<>();
+        List<Integer> model = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            list.addLast(i);
+            model.add(i);
+        }
+        for (int round = 0; round < 50; round++) {
+            list.reverse(); // Cursors must read pending reversals correctly
+            Collections.reverse(model);
+            int start = random.nextInt(model.size() + 1);
+            ListIterator<Integer> cursor = list.listIterator(start);
+            ListIterator<Integer> expected = model.listIterator(start);
+            boolean canEdit = false; // Whether remove/set are allowed, as for the model's cursor
+            for (int step = 0; step < 400; step++) {
+                String where = "round " + round + " step " + step;
+                switch (random.nextInt(6)) {
+                    case 0:
+                    case 1:
+                        if (expected.hasNext()) {
+                            check(cursor.next().equals(expected.next()), where + ": next");
+                            canEdit = true;
+                        }
+                        break;
+                    case 2:
+                        if (expected.hasPrevious()) {
+                            check(cursor.previous().equals(expected.previous()), where + ": previous");
+                            canEdit = true;
+                        }
+                        break;
+                    case 3:
+                        cursor.add(-step);
+                        expected.add(-step);
+                        canEdit = false;
+                        break;
+                    case 4:
+                        if (canEdit) {
+                            cursor.remove();
+                            expected.remove();
+                            canEdit = false;
+                        }
+                        break;
+                    default:
+                        if (canEdit) {
+                            cursor.set(step * 1000);
+                            expected.set(step * 1000);
+                        }
+                }
+                check(cursor.nextIndex() == expected.nextIndex() && cursor.hasNext() == expected.hasNext()
+                        && cursor.hasPrevious() == expected.hasPrevious(), where + ": position");
+            }
+            sameAsModel(list, model, "cursor round " + round);
+        }
+    }
+
+    private static void cursorRejectsInvalidCalls() {
+        TreapList<Integer> list = new TreapList<>();
+        for (int i = 0; i < 5; i++) {
+            list.addLast(i);
+        }
+        ListIterator<Integer> cursor = list.listIterator(5);
+        check(!cursor.hasNext() && cursor.previousIndex() == 4, "positioned at the end");
+        expect(IllegalStateException.class, () -> cursor.set(9), "set before any next/previous");
+        check(cursor.previous() == 4, "previous from the end");
+        cursor.remove();
+        expect(IllegalStateException.class, cursor::remove, "remove twice");
+        expect(NoSuchElementException.class, cursor::next, "next past the end");
+        expect(IndexOutOfBoundsException.class, () -> list.listIterator(6), "start past the end");
+
+        ListIterator<Integer> stale = list.listIterator();
+        stale.next();
+        stale.set(7); // Replacing is not a structural change
+        Iterator<Integer> it = list.iterator();
+        check(it.next() == 7, "set is visible to other readers");
+        list.addLast(10);
+        expect(ConcurrentModificationException.class, stale::next, "cursor fails after an outside edit");
+    }
+
+    private static void expect(Class<? extends RuntimeException> type, Runnable action, String message) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            check(type.isInstance(e), message + ": threw " + e);
+            return;
+        }
+        throw new AssertionError(message + ": nothing thrown");
+    }
+
+    private static <T> void sameAsModel(TreapList<T> list, List<T> model, String where) {
+        check(list.toList().equals(model), where + ": toList");
+        List<T> iterated = new ArrayList<>();
+        for (T value : list) {
+            iterated.add(value);
+        }
+        check(iterated.equals(model), where + ": iterator");
+        List<T> streamed = StreamSupport.stream(list.spliterator(), true).collect(Collectors.toList());
+        check(streamed.equals(model), where + ": parallel spliterator");
+        for (int i = 0; i < model.size(); i += 1 + model.size() / 50) {
+            check(list.get(i).equals(model.get(i)), where + ": get(" + i + ")");
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}